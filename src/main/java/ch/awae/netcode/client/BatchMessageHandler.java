@@ -0,0 +1,26 @@
+package ch.awae.netcode.client;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * a message handler that receives batches sent with {@link NetcodeClient#sendBatchToChannel(java.util.Collection)} or
+ * {@link NetcodeClient#sendBatchPrivately(String, java.util.Collection)} as a whole. Plain message handlers receive the messages
+ * of a batch one by one.
+ */
+public interface BatchMessageHandler extends MessageHandler {
+
+    default void handleBatch(String sender, Timestamp timestamp, List<Serializable> messages) {
+        for (Serializable message : messages) {
+            handleMessage(sender, timestamp, message);
+        }
+    }
+
+    default void handlePrivateBatch(String sender, Timestamp timestamp, List<Serializable> messages) {
+        for (Serializable message : messages) {
+            handlePrivateMessage(sender, timestamp, message);
+        }
+    }
+
+}
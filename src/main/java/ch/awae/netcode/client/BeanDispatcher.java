@@ -0,0 +1,156 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.client.binding.LocalBindings;
+import ch.awae.netcode.exception.NetcodeException;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls beans of the local bindings on behalf of other users. A user binds an interface once and gets a binding id.
+ * The binding maps the method ids of the caller to local method handles, so calls only carry the two ids and the
+ * arguments.
+ */
+class BeanDispatcher {
+
+    private final LocalBindings bindings;
+    private final PayloadCodec codec;
+    private final ConcurrentHashMap<String, Peer> peers = new ConcurrentHashMap<>();
+
+    BeanDispatcher(LocalBindings bindings, PayloadCodec codec) {
+        this.bindings = bindings;
+        this.codec = codec;
+    }
+
+    /**
+     * checks that every method the caller knows exists locally.
+     *
+     * @return the binding id
+     */
+    Integer bind(String sender, BindRequest request) {
+        BeanInterface beanInterface = BeanInterface.forName(request.getInterfaceName());
+        String[] signatures = request.getSignatures();
+        MethodHandle[] invokers = new MethodHandle[signatures.length];
+        Class<?>[][] parameterTypes = new Class<?>[signatures.length][];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < signatures.length; i++) {
+            int methodId = beanInterface.getMethodId(signatures[i]);
+            if (methodId < 0) {
+                missing.add(signatures[i]);
+            } else {
+                invokers[i] = beanInterface.getInvoker(methodId);
+                parameterTypes[i] = beanInterface.getParameterTypes(methodId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new NetcodeException("interface mismatch for " + request.getInterfaceName() + ", methods missing on the remote: " + missing, null);
+        }
+        Peer peer = peers.computeIfAbsent(sender, user -> new Peer());
+        int id = peer.nextBindingId.getAndIncrement();
+        peer.bindings.put(id, new Binding(request.getQualifier(), beanInterface, invokers, parameterTypes));
+        return id;
+    }
+
+    /**
+     * calls the bean bound locally.
+     *
+     * @return the result, or the exception thrown by the bean
+     */
+    Serializable invoke(String sender, ByteBuffer payload) {
+        int bindingId = payload.getInt();
+        int methodId = payload.getInt();
+        Peer peer = peers.get(sender);
+        Binding binding = peer == null ? null : peer.bindings.get(bindingId);
+        if (binding == null || methodId < 0 || methodId >= binding.invokers.length) {
+            throw new NetcodeException("unknown binding " + bindingId + "/" + methodId, null);
+        }
+        Object bean = bindings.getBean(binding.qualifier, binding.beanInterface.getType());
+        if (bean == null) {
+            throw new NetcodeException("no bean bound for " + binding.beanInterface.getName() + (binding.qualifier == null ? "" : " with qualifier " + binding.qualifier), null);
+        }
+        Object[] arguments;
+        try {
+            arguments = InvocationCodec.decodeArguments(payload, binding.parameterTypes[methodId], codec);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NetcodeException("could not decode arguments: " + e.getMessage(), e);
+        }
+        Object result;
+        try {
+            result = binding.invokers[methodId].invokeExact(bean, arguments);
+        } catch (Exception e) {
+            return e;
+        } catch (Throwable t) {
+            return new NetcodeException("remote bean failed: " + t, t);
+        }
+        if (result != null && !(result instanceof Serializable)) {
+            throw new NetcodeException("result is not serializable: " + result.getClass(), null);
+        }
+        return (Serializable) result;
+    }
+
+    /**
+     * runs all calls of a batch in order.
+     *
+     * @return null, or the first failure with the later ones suppressed
+     */
+    Serializable invokeAll(String sender, ByteBuffer payload) {
+        List<ByteBuffer> invocations;
+        try {
+            invocations = InvocationCodec.unbatch(payload);
+        } catch (IOException e) {
+            throw new NetcodeException("could not decode batch: " + e.getMessage(), e);
+        }
+        Throwable failure = null;
+        for (ByteBuffer invocation : invocations) {
+            Throwable error;
+            try {
+                Serializable result = invoke(sender, invocation);
+                error = result instanceof Throwable ? (Throwable) result : null;
+            } catch (NetcodeException e) {
+                error = e;
+            }
+            if (error == null) {
+                continue;
+            }
+            if (failure == null) {
+                failure = error;
+            } else {
+                failure.addSuppressed(error);
+            }
+        }
+        return (Serializable) failure;
+    }
+
+    void userLeft(String userId) {
+        peers.remove(userId);
+    }
+
+    private static final class Peer {
+
+        private final AtomicInteger nextBindingId = new AtomicInteger();
+        private final ConcurrentHashMap<Integer, Binding> bindings = new ConcurrentHashMap<>();
+    }
+
+    private static final class Binding {
+
+        private final String qualifier;
+        private final BeanInterface beanInterface;
+        // by method id of the caller
+        private final MethodHandle[] invokers;
+        private final Class<?>[][] parameterTypes;
+
+        Binding(String qualifier, BeanInterface beanInterface, MethodHandle[] invokers, Class<?>[][] parameterTypes) {
+            this.qualifier = qualifier;
+            this.beanInterface = beanInterface;
+            this.invokers = invokers;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+}
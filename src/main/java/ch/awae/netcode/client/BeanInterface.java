@@ -0,0 +1,151 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.client.binding.OneWay;
+import ch.awae.netcode.exception.NetcodeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The method table of an interface used for remote bindings. Methods are identified by name and descriptor and
+ * numbered in the order of their signatures. The table and the handles that call the methods on local beans are built
+ * once per interface, calls only look them up.
+ */
+final class BeanInterface {
+
+    private static final ConcurrentHashMap<Class<?>, BeanInterface> INTERFACES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, BeanInterface> INTERFACES_BY_NAME = new ConcurrentHashMap<>();
+    // (bean, arguments) -> result, so all methods are invoked the same way
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Class<?> type;
+    private final Method[] methods;
+    private final String[] signatures;
+    private final MethodHandle[] invokers;
+    private final Class<?>[][] parameterTypes;
+    private final boolean[] oneWay;
+    private final Map<Method, Integer> methodIds = new HashMap<>();
+    private final Map<String, Integer> methodIdsBySignature = new HashMap<>();
+
+    private BeanInterface(Class<?> type) {
+        this.type = type;
+        this.methods = Arrays.stream(type.getMethods())
+                .filter(method -> !Modifier.isStatic(method.getModifiers()))
+                .sorted(Comparator.comparing(BeanInterface::signature))
+                .toArray(Method[]::new);
+        this.signatures = new String[methods.length];
+        this.invokers = new MethodHandle[methods.length];
+        this.parameterTypes = new Class<?>[methods.length][];
+        this.oneWay = new boolean[methods.length];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int id = 0; id < methods.length; id++) {
+            Method method = methods[id];
+            signatures[id] = signature(method);
+            parameterTypes[id] = method.getParameterTypes();
+            oneWay[id] = method.isAnnotationPresent(OneWay.class);
+            if (oneWay[id] && method.getReturnType() != void.class) {
+                throw new IllegalArgumentException("one-way method must return void: " + method);
+            }
+            methodIds.put(method, id);
+            methodIdsBySignature.put(signatures[id], id);
+            try {
+                // the interface itself may not be public
+                method.setAccessible(true);
+                MethodHandle handle = lookup.unreflect(method);
+                invokers[id] = handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("cannot bind method " + method + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    static BeanInterface of(Class<?> type) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException(type + " is no interface");
+        }
+        return INTERFACES.computeIfAbsent(type, BeanInterface::new);
+    }
+
+    /**
+     * resolves an interface named by a remote client.
+     */
+    static BeanInterface forName(String name) {
+        BeanInterface beanInterface = INTERFACES_BY_NAME.get(name);
+        if (beanInterface == null) {
+            try {
+                ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                beanInterface = of(Class.forName(name, false, loader != null ? loader : BeanInterface.class.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                throw new NetcodeException("unknown interface: " + name, e);
+            }
+            INTERFACES_BY_NAME.putIfAbsent(name, beanInterface);
+        }
+        return beanInterface;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    String getName() {
+        return type.getName();
+    }
+
+    /**
+     * the signatures of all methods, indexed by method id.
+     */
+    String[] getSignatures() {
+        return signatures.clone();
+    }
+
+    int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            throw new IllegalArgumentException("not a method of " + type + ": " + method);
+        }
+        return id;
+    }
+
+    /**
+     * @return the method id or -1 if the interface has no such method
+     */
+    int getMethodId(String signature) {
+        Integer id = methodIdsBySignature.get(signature);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * the shared array, must not be modified.
+     */
+    Class<?>[] getParameterTypes(int methodId) {
+        return parameterTypes[methodId];
+    }
+
+    boolean isVoid(int methodId) {
+        return methods[methodId].getReturnType() == void.class;
+    }
+
+    boolean isOneWay(int methodId) {
+        return oneWay[methodId];
+    }
+
+    /**
+     * @return a handle of type (Object bean, Object[] arguments)Object
+     */
+    MethodHandle getInvoker(int methodId) {
+        return invokers[methodId];
+    }
+
+}
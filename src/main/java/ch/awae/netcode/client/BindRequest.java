@@ -0,0 +1,35 @@
+package ch.awae.netcode.client;
+
+import java.io.Serializable;
+
+/**
+ * Sent once per bound interface and user with a BIND packet. Lists the methods the caller knows, so the remote can
+ * reject incompatible interfaces before the first call. Answered with the id of the binding.
+ */
+final class BindRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String qualifier;
+    private final String interfaceName;
+    private final String[] signatures;
+
+    BindRequest(String qualifier, String interfaceName, String[] signatures) {
+        this.qualifier = qualifier;
+        this.interfaceName = interfaceName;
+        this.signatures = signatures;
+    }
+
+    String getQualifier() {
+        return qualifier;
+    }
+
+    String getInterfaceName() {
+        return interfaceName;
+    }
+
+    String[] getSignatures() {
+        return signatures;
+    }
+
+}
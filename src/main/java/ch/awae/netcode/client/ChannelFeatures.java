@@ -4,8 +4,14 @@ import java.io.Serializable;
 
 public class ChannelFeatures implements Serializable {
 
+    private static final long serialVersionUID = 5616043322574680636L;
+
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
     private int clientLimit = -1;
     private String password = null;
+    private String compression = null;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
 
     public ChannelFeatures() {
 
@@ -16,6 +22,8 @@ public class ChannelFeatures implements Serializable {
 
         clone.clientLimit = clientLimit;
         clone.password = password;
+        clone.compression = compression;
+        clone.compressionThreshold = compressionThreshold;
 
         return clone;
     }
@@ -39,11 +47,41 @@ public class ChannelFeatures implements Serializable {
         this.password = password;
     }
 
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * enables payload compression with the compressor of the given name, null disables compression. Every member of
+     * the channel must have a compressor of that name registered, clients without it cannot join.
+     *
+     * @see NetcodeClientFactory#addPayloadCompressor(PayloadCompressor)
+     */
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * the encoded payload size in bytes from which on payloads are compressed. Smaller payloads are sent as they are.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("compression threshold must not be negative");
+        }
+        this.compressionThreshold = compressionThreshold;
+    }
+
     @Override
     public String toString() {
         return "ChannelFeatures{" +
                 "clientLimit=" + clientLimit +
                 ", password=" + (password != null ? "*******" : "null" ) +
+                ", compression=" + compression +
+                ", compressionThreshold=" + compressionThreshold +
                 '}';
     }
 }
@@ -2,17 +2,60 @@ package ch.awae.netcode.client;
 
 import ch.awae.netcode.client.binding.RemoteBindings;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public interface ClientReference {
 
     void sendPrivateMessage(Serializable message);
 
+    /**
+     * asks a question with the default timeout of the client. The future fails with a
+     * {@link java.util.concurrent.TimeoutException} if no response arrives in time. Cancelling the future or a timeout
+     * interrupts the question handler of the remote if it is still running. Dependent actions of a timed out future
+     * run on the timer thread of the client and must not block.
+     */
     Future<Serializable> askQuestion(Serializable message);
 
+    /**
+     * asks a question with a timeout. A timeout of 0 waits forever.
+     */
+    CompletableFuture<Serializable> askQuestion(Serializable message, long timeout, TimeUnit unit);
+
     <T extends Serializable> Future<T> askQuestion(Serializable message, Class<? extends T> responseClass);
 
+    /**
+     * transfers the data to the {@link StreamHandler} of the user in fixed-size chunks. The data is read on a
+     * background thread as fast as the receiver consumes it and is not closed afterwards. The future completes once the
+     * receiver has read the whole stream and fails if reading
+     * fails, if the receiver rejects or closes the stream early, if either client leaves or if the receiver consumes
+     * nothing within the stream timeout. Streams are not supported by 2.x clients and servers.
+     */
+    CompletableFuture<Void> sendStream(InputStream data);
+
+    CompletableFuture<Void> sendStream(ReadableByteChannel data);
+
+    int getQuestionLimit();
+
+    /**
+     * limits the number of questions to this user that are in flight at once. The user itself accepts at most the
+     * question window it was configured with (see {@link NetcodeClientFactory#setQuestionWindow(int)}), the smaller of
+     * the two applies. 2.x clients have no window. What happens to questions beyond it is decided by the
+     * {@link #setQuestionFlowControl(QuestionFlowControl) flow control}. Unlimited by default.
+     */
+    void setQuestionLimit(int limit);
+
+    QuestionFlowControl getQuestionFlowControl();
+
+    /**
+     * {@link QuestionFlowControl#QUEUE} by default.
+     */
+    void setQuestionFlowControl(QuestionFlowControl flowControl);
+
     boolean isActive();
 
     RemoteBindings getRemoteBindings();
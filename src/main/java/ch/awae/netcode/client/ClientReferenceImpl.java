@@ -1,27 +1,41 @@
 package ch.awae.netcode.client;
 
 import ch.awae.netcode.client.binding.RemoteBindings;
+import ch.awae.netcode.exception.NetcodeException;
+import ch.awae.netcode.internal.NetcodePacket;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
 
-class ClientReferenceImpl implements ClientReference {
+class ClientReferenceImpl implements ClientReference, PromiseManager.Owner {
 
     private final String userId;
     private final NetcodeClientImpl netcodeClient;
     private final PromiseManager<Serializable> promiseManager;
-    private final ConcurrentHashMap<Long, CompletableFuture<Serializable>> promises = new ConcurrentHashMap<>();
+    private final QuestionCredits credits;
+    private final QuestionStatisticsImpl statistics;
     private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
 
     private volatile boolean active = true;
+    private volatile QuestionFlowControl flowControl = QuestionFlowControl.QUEUE;
+    private final RemoteBindings remoteBindings = new RemoteBindingsImpl(this);
 
-    ClientReferenceImpl(String userId, NetcodeClientImpl netcodeClient, PromiseManager<Serializable> promiseManager) {
+    ClientReferenceImpl(String userId, NetcodeClientImpl netcodeClient, PromiseManager<Serializable> promiseManager,
+                        QuestionCredits credits, QuestionStatisticsImpl statistics) {
         this.userId = userId;
         this.netcodeClient = netcodeClient;
         this.promiseManager = promiseManager;
+        this.credits = credits;
+        this.statistics = statistics;
     }
 
     @Override
@@ -32,33 +46,152 @@ class ClientReferenceImpl implements ClientReference {
 
     @Override
     public CompletableFuture<Serializable> askQuestion(Serializable message) {
+        return askQuestion(message, netcodeClient.getQuestionTimeout());
+    }
+
+    @Override
+    public CompletableFuture<Serializable> askQuestion(Serializable message, long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        // rounded up, a sub-millisecond timeout must not turn into no timeout
+        long millis = unit.toMillis(timeout) + (unit.toNanos(timeout) % 1000000 == 0 ? 0 : 1);
+        return askQuestion(message, millis);
+    }
+
+    private CompletableFuture<Serializable> askQuestion(Serializable message, long timeout) {
+        return ask(id -> netcodeClient.buildPacket(userId, id, NetcodePacketType.QUESTION, message), timeout);
+    }
+
+    /**
+     * binds an interface of a bean of the user.
+     *
+     * @return the binding id
+     */
+    CompletableFuture<Serializable> bind(BindRequest request) {
+        verifyFramed();
+        return ask(id -> netcodeClient.buildPacket(userId, id, NetcodePacketType.BIND, request), netcodeClient.getQuestionTimeout());
+    }
+
+    /**
+     * calls a bean bound by the user.
+     *
+     * @param invocation the payload, see {@link InvocationCodec}
+     */
+    CompletableFuture<Serializable> invoke(byte[] invocation) {
+        verifyFramed();
+        return ask(id -> netcodeClient.buildRawPacket(userId, id, NetcodePacketType.INVOCATION, invocation), netcodeClient.getQuestionTimeout());
+    }
+
+    /**
+     * calls a bean bound by the user without waiting for a response.
+     */
+    void invokeOneWay(byte[] invocation) {
+        verifyActive();
+        verifyFramed();
+        netcodeClient.sendRawPacket(userId, -1, NetcodePacketType.INVOCATION, invocation);
+    }
+
+    /**
+     * runs calls of beans bound by the user in order.
+     *
+     * @param invocations the payload, see {@link InvocationCodec}
+     */
+    CompletableFuture<Serializable> invokeAll(byte[] invocations) {
+        verifyFramed();
+        return ask(id -> netcodeClient.buildRawPacket(userId, id, NetcodePacketType.INVOCATION_BATCH, invocations), netcodeClient.getQuestionTimeout());
+    }
+
+    PayloadCodec getPayloadCodec() {
+        return netcodeClient.getPayloadCodec();
+    }
+
+    private CompletableFuture<Serializable> ask(LongFunction<NetcodePacket> packetBuilder, long timeout) {
         rwLock.readLock().lock();
         try {
             verifyActive();
 
             long id = promiseManager.nextCorrelationId();
-            CompletableFuture<Serializable> promise = promiseManager.createPromise(id);
-            registerPromise(id, promise);
-            promise.whenComplete((serializable, throwable) -> unregisterPromise(id));
-
-            try {
-                netcodeClient.sendPacket(userId, id, NetcodePacketType.QUESTION, message);
-            } catch (Exception e) {
-                promiseManager.fail(id, e);
+            NetcodePacket packet = packetBuilder.apply(id);
+
+            switch (flowControl) {
+                case FAIL:
+                    if (!credits.tryAcquire()) {
+                        statistics.rejected();
+                        return failed(new RejectedExecutionException("user accepts no further questions: " + userId));
+                    }
+                    break;
+                case WAIT:
+                    try {
+                        if (!credits.acquire(timeout)) {
+                            return failed(new TimeoutException("user accepted no question within " + timeout + "ms"));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return failed(e);
+                    }
+                    break;
+                case QUEUE:
+                    CompletableFuture<Serializable> promise = promiseManager.createPromise(id, timeout, this);
+                    if (!credits.acquireOrEnqueue(id, () -> sendQueued(id, packet))) {
+                        return promise;
+                    }
+                    send(id, packet);
+                    return promise;
             }
 
+            CompletableFuture<Serializable> promise = promiseManager.createPromise(id, timeout, this);
+            send(id, packet);
             return promise;
         } finally {
             rwLock.readLock().unlock();
         }
     }
 
-    private void unregisterPromise(long id) {
-        promises.remove(id);
+    private void send(long id, NetcodePacket packet) {
+        try {
+            netcodeClient.sendPacket(packet);
+        } catch (Exception e) {
+            credits.returned(1);
+            promiseManager.abort(id, e);
+        }
+    }
+
+    /**
+     * sends a question once a credit is available, on the thread that returned the credit.
+     */
+    private void sendQueued(long id, NetcodePacket packet) {
+        netcodeClient.offerPacket(packet).whenComplete((result, error) -> {
+            if (error != null) {
+                credits.returned(1);
+                promiseManager.abort(id, error);
+            }
+        });
     }
 
-    private void registerPromise(long id, CompletableFuture<Serializable> promise) {
-        promises.put(id, promise);
+    private static CompletableFuture<Serializable> failed(Exception e) {
+        CompletableFuture<Serializable> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * lets the remote abort work on a question that is no longer waited for.
+     */
+    @Override
+    public void abandoned(long id, boolean cancelled) {
+        if (!active) {
+            // the remote is gone
+            return;
+        }
+        if (cancelled) {
+            statistics.cancelled();
+        }
+        if (credits.dequeue(id)) {
+            // never sent
+            return;
+        }
+        netcodeClient.cancelQuestion(userId, id);
     }
 
     private void verifyActive() {
@@ -68,12 +201,56 @@ class ClientReferenceImpl implements ClientReference {
         }
     }
 
+    private void verifyFramed() {
+        if (!netcodeClient.isFramed()) {
+            // a 2.x server cannot relay the binding packets
+            throw new NetcodeException("remote bindings are not supported by the server", null);
+        }
+    }
+
     @Override
     public <T extends Serializable> Future<T> askQuestion(Serializable message, Class<? extends T> responseClass) {
         CompletableFuture<Serializable> raw = askQuestion(message);
         return raw.thenApply(responseClass::cast);
     }
 
+    @Override
+    public CompletableFuture<Void> sendStream(InputStream data) {
+        verifyActive();
+        return netcodeClient.sendStream(userId, data);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendStream(ReadableByteChannel data) {
+        return sendStream(Channels.newInputStream(data));
+    }
+
+    @Override
+    public int getQuestionLimit() {
+        return credits.getLimit();
+    }
+
+    @Override
+    public void setQuestionLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("question limit must be positive");
+        }
+        credits.setLimit(limit);
+    }
+
+    @Override
+    public QuestionFlowControl getQuestionFlowControl() {
+        return flowControl;
+    }
+
+    @Override
+    public void setQuestionFlowControl(QuestionFlowControl flowControl) {
+        if (flowControl == null) {
+            throw new IllegalArgumentException("flow control must not be null");
+        }
+        this.flowControl = flowControl;
+    }
+
     @Override
     public boolean isActive() {
         return active;
@@ -81,17 +258,16 @@ class ClientReferenceImpl implements ClientReference {
 
     @Override
     public RemoteBindings getRemoteBindings() {
-        return null;
+        return remoteBindings;
     }
 
     void disable() {
         active = false;
+        // wakes up askers waiting for credits, they hold the read lock
+        credits.close();
         rwLock.writeLock().lock();
         try {
-            for (CompletableFuture<Serializable> future : promises.values()) {
-                future.cancel(false);
-            }
-            promises.clear();
+            promiseManager.cancelAll(this);
         } finally {
             rwLock.writeLock().unlock();
         }
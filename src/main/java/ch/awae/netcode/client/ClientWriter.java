@@ -0,0 +1,268 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.NetcodeException;
+import ch.awae.netcode.exception.SendQueueFullException;
+import ch.awae.netcode.internal.CoalescingOutputStream;
+import ch.awae.netcode.internal.FragmentScheduler;
+import ch.awae.netcode.internal.Frames;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.internal.PacketFrame;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single writer of a client. All outgoing messages pass through a bounded queue, the writer thread writes them in
+ * order and flushes according to the flush policy. The future of an asynchronous send is completed once the message
+ * has been flushed to the socket, dependent actions run on the writer thread and must not block. Synchronous senders
+ * are released as soon as their message has been written, they do not wait for the flush.
+ * <p>
+ * On framed connections large packets are written in fragments. Messages queued in the meantime are written between
+ * the fragments, so they overtake the large packet instead of waiting for it. Messages keep their order per
+ * destination: a message to the destination of a pending large packet, and every public message, is written after it.
+ */
+class ClientWriter implements Runnable {
+
+    private static final Pending CLOSE = new Pending(null, false);
+
+    private final MessageStreams streams;
+    private final boolean framed;
+    private final CoalescingOutputStream output;
+    private final FlushPolicy flushPolicy;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<Pending> queue;
+    private final List<Pending> unflushed = new ArrayList<>();
+    private final FragmentScheduler<Pending> fragments = new FragmentScheduler<>();
+    private boolean dirty = false;
+    private volatile boolean closed = false;
+    private volatile boolean stopped = false;
+    private Thread thread;
+
+    ClientWriter(MessageStreams streams, boolean framed, CoalescingOutputStream output, FlushPolicy flushPolicy, long flushInterval, int queueSize) {
+        this.streams = streams;
+        this.framed = framed;
+        this.output = output;
+        this.flushPolicy = flushPolicy;
+        this.flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushInterval);
+        this.queue = new LinkedBlockingQueue<>(queueSize);
+        // the writer decides when to flush
+        output.setAutoFlush(false);
+    }
+
+    void start(ThreadFactory threadFactory, String name) {
+        thread = threadFactory.newThread(this);
+        thread.setName(name);
+        // must not keep the JVM alive once the connection is gone
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * enqueues a message without blocking.
+     *
+     * @return a future that fails with a {@link SendQueueFullException} if the queue is full
+     */
+    CompletableFuture<Void> offer(Serializable message) {
+        Pending pending = new Pending(message, true);
+        if (closed) {
+            pending.future.completeExceptionally(new IllegalStateException("client is inactive and can no longer be used"));
+        } else if (!queue.offer(pending)) {
+            pending.future.completeExceptionally(new SendQueueFullException("send queue full (" + queue.size() + " messages)"));
+        } else if (stopped) {
+            failQueued(new IllegalStateException("client is inactive and can no longer be used"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * enqueues a message and waits until it has been written. Waits for room in the queue if it is full.
+     */
+    void send(Serializable message) {
+        if (Thread.currentThread() == thread) {
+            // called from a completion callback: queueing would wait for ourselves
+            try {
+                streams.write(message);
+                output.flushBuffer();
+            } catch (IOException e) {
+                throw new NetcodeException("could not send message: " + e.getMessage(), e);
+            }
+            return;
+        }
+        Pending pending = new Pending(message, false);
+        try {
+            if (closed) {
+                throw new IllegalStateException("client is inactive and can no longer be used");
+            }
+            queue.put(pending);
+            if (stopped) {
+                failQueued(new IllegalStateException("client is inactive and can no longer be used"));
+            }
+            pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetcodeException("interrupted while sending message", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new NetcodeException("could not send message: " + cause.getMessage(), cause);
+        }
+    }
+
+    int getPendingSends() {
+        return queue.size();
+    }
+
+    /**
+     * writes all messages queued so far and stops the writer. Waits at most the given time for the writer to finish.
+     */
+    void close(long timeoutMillis) {
+        closed = true;
+        if (!queue.offer(CLOSE)) {
+            thread.interrupt();
+        }
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long deadline = 0;
+        try {
+            while (true) {
+                Pending pending;
+                if (fragments.isFull()) {
+                    pending = null;
+                } else if (fragments.hasFragments()) {
+                    pending = queue.poll();
+                } else if (!dirty) {
+                    pending = queue.take();
+                } else if (flushPolicy == FlushPolicy.INTERVAL) {
+                    pending = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } else {
+                    pending = queue.poll();
+                }
+                if (pending == CLOSE) {
+                    while (fragments.hasFragments()) {
+                        writeFragment();
+                    }
+                    flush();
+                    break;
+                }
+                if (!dirty) {
+                    deadline = System.nanoTime() + flushIntervalNanos;
+                }
+                if (pending != null) {
+                    write(pending);
+                } else if (fragments.hasFragments()) {
+                    writeFragment();
+                }
+                // a null entry means the queue has drained or the flush interval has passed
+                if (pending == null || flushPolicy == FlushPolicy.IMMEDIATE
+                        || (flushPolicy == FlushPolicy.INTERVAL && System.nanoTime() - deadline >= 0)) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            NetcodeException failure = new NetcodeException("could not send message: " + e.getMessage(), e);
+            unflushed.forEach(pending -> pending.future.completeExceptionally(failure));
+            unflushed.clear();
+            fragments.clear().forEach(pending -> pending.future.completeExceptionally(failure));
+        }
+        stopped = true;
+        closed = true;
+        IllegalStateException inactive = new IllegalStateException("client is inactive and can no longer be used");
+        unflushed.forEach(pending -> pending.future.completeExceptionally(inactive));
+        fragments.clear().forEach(pending -> pending.future.completeExceptionally(inactive));
+        failQueued(inactive);
+    }
+
+    private void write(Pending pending) throws IOException {
+        if (framed) {
+            // public packets and other messages are ordered with everything
+            Object key = pending.message instanceof PacketFrame ? ((PacketFrame) pending.message).getDestinationId() : null;
+            if (fragments.isOrderedBehind(key)) {
+                fragments.add(Frames.encode(pending.message), key, pending);
+                return;
+            }
+            if (pending.message instanceof PacketFrame) {
+                byte[] frame = ((PacketFrame) pending.message).getFrame();
+                if (FragmentScheduler.isLarge(frame)) {
+                    fragments.add(frame, key, pending);
+                    return;
+                }
+            }
+        }
+        unflushed.add(pending);
+        streams.write(pending.message);
+        dirty = true;
+        if (!pending.awaitFlush) {
+            unflushed.remove(unflushed.size() - 1);
+            pending.future.complete(null);
+        }
+    }
+
+    private void writeFragment() throws IOException {
+        streams.writeFrame(fragments.nextFragment());
+        dirty = true;
+        Pending completed = fragments.getCompleted();
+        if (completed != null) {
+            if (completed.awaitFlush) {
+                unflushed.add(completed);
+            } else {
+                completed.future.complete(null);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        output.flushBuffer();
+        dirty = false;
+        for (Pending pending : unflushed) {
+            pending.future.complete(null);
+        }
+        unflushed.clear();
+    }
+
+    private void failQueued(Exception e) {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending != CLOSE) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Pending {
+
+        private final Serializable message;
+        private final boolean awaitFlush;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(Serializable message, boolean awaitFlush) {
+            this.message = message;
+            this.awaitFlush = awaitFlush;
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package ch.awae.netcode.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+
+/**
+ * wraps the payload codec of a channel with compression enabled. Every payload is preceded by a marker byte telling
+ * whether the rest is compressed, only payloads of at least the threshold size are.
+ */
+class CompressingPayloadCodec implements PayloadCodec {
+
+    private static final byte RAW = 0;
+    private static final byte COMPRESSED = 1;
+
+    private final PayloadCodec codec;
+    private final PayloadCompressor compressor;
+    private final int threshold;
+    private final CompressionStatisticsImpl statistics;
+
+    CompressingPayloadCodec(PayloadCodec codec, PayloadCompressor compressor, int threshold, CompressionStatisticsImpl statistics) {
+        this.codec = codec;
+        this.compressor = compressor;
+        this.threshold = threshold;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public String getName() {
+        return codec.getName();
+    }
+
+    @Override
+    public byte[] encode(Serializable payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        encode(payload, bytes);
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void encode(Serializable payload, OutputStream out) throws IOException {
+        Buffer encoded = new Buffer();
+        codec.encode(payload, encoded);
+        if (encoded.size() < threshold) {
+            statistics.skipped();
+            out.write(RAW);
+            encoded.writeTo(out);
+            return;
+        }
+        long start = System.nanoTime();
+        Buffer compressed = new Buffer();
+        compressor.compress(encoded.array(), 0, encoded.size(), compressed);
+        statistics.compressed(encoded.size(), compressed.size(), System.nanoTime() - start);
+        out.write(COMPRESSED);
+        compressed.writeTo(out);
+    }
+
+    @Override
+    public Serializable decode(byte[] data) throws IOException, ClassNotFoundException {
+        return decode(data, 0, data.length);
+    }
+
+    @Override
+    public Serializable decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+        if (length < 1) {
+            throw new StreamCorruptedException("missing compression marker");
+        }
+        switch (data[offset]) {
+            case RAW:
+                return codec.decode(data, offset + 1, length - 1);
+            case COMPRESSED:
+                long start = System.nanoTime();
+                byte[] decompressed = compressor.decompress(data, offset + 1, length - 1);
+                statistics.decompressed(System.nanoTime() - start);
+                return codec.decode(decompressed, 0, decompressed.length);
+            default:
+                throw new StreamCorruptedException("unknown compression marker: " + data[offset]);
+        }
+    }
+
+    /**
+     * exposes the internal array to avoid copying it.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+}
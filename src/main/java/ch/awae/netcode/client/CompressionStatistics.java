@@ -0,0 +1,43 @@
+package ch.awae.netcode.client;
+
+/**
+ * Payload compression counters of a client. A client is a member of exactly one channel, so these are the statistics of
+ * that channel as seen by the client. All counters are monotonic.
+ */
+public interface CompressionStatistics {
+
+    /**
+     * outgoing payloads that were compressed.
+     */
+    long getCompressedPayloads();
+
+    /**
+     * outgoing payloads that were sent uncompressed because they were below the threshold.
+     */
+    long getUncompressedPayloads();
+
+    /**
+     * the size of all compressed payloads before compression.
+     */
+    long getBytesBeforeCompression();
+
+    /**
+     * the size of all compressed payloads after compression.
+     */
+    long getBytesAfterCompression();
+
+    long getCompressionNanos();
+
+    long getDecompressedPayloads();
+
+    long getDecompressionNanos();
+
+    /**
+     * the ratio of compressed to uncompressed size of all compressed payloads, 1 if nothing has been compressed yet.
+     */
+    default double getCompressionRatio() {
+        long before = getBytesBeforeCompression();
+        return before == 0 ? 1.0 : (double) getBytesAfterCompression() / before;
+    }
+
+}
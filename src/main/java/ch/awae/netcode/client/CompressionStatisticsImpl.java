@@ -0,0 +1,65 @@
+package ch.awae.netcode.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class CompressionStatisticsImpl implements CompressionStatistics {
+
+    private final LongAdder compressedPayloads = new LongAdder();
+    private final LongAdder uncompressedPayloads = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder decompressedPayloads = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    void compressed(int before, int after, long nanos) {
+        compressedPayloads.increment();
+        bytesBeforeCompression.add(before);
+        bytesAfterCompression.add(after);
+        compressionNanos.add(nanos);
+    }
+
+    void skipped() {
+        uncompressedPayloads.increment();
+    }
+
+    void decompressed(long nanos) {
+        decompressedPayloads.increment();
+        decompressionNanos.add(nanos);
+    }
+
+    @Override
+    public long getCompressedPayloads() {
+        return compressedPayloads.sum();
+    }
+
+    @Override
+    public long getUncompressedPayloads() {
+        return uncompressedPayloads.sum();
+    }
+
+    @Override
+    public long getBytesBeforeCompression() {
+        return bytesBeforeCompression.sum();
+    }
+
+    @Override
+    public long getBytesAfterCompression() {
+        return bytesAfterCompression.sum();
+    }
+
+    @Override
+    public long getCompressionNanos() {
+        return compressionNanos.sum();
+    }
+
+    @Override
+    public long getDecompressedPayloads() {
+        return decompressedPayloads.sum();
+    }
+
+    @Override
+    public long getDecompressionNanos() {
+        return decompressionNanos.sum();
+    }
+}
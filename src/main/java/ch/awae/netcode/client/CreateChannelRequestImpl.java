@@ -4,12 +4,16 @@ import ch.awae.netcode.internal.CreateChannelRequest;
 
 class CreateChannelRequestImpl implements CreateChannelRequest {
 
+    private static final long serialVersionUID = -6453024676192240426L;
+
     private final String userId;
     private final ChannelFeatures features;
+    private final String payloadCodec;
 
-    CreateChannelRequestImpl(String userId, ChannelFeatures features) {
+    CreateChannelRequestImpl(String userId, ChannelFeatures features, String payloadCodec) {
         this.userId = userId;
         this.features = features;
+        this.payloadCodec = payloadCodec;
     }
 
     @Override
@@ -21,4 +25,9 @@ class CreateChannelRequestImpl implements CreateChannelRequest {
     public ChannelFeatures getFeatures() {
         return features;
     }
+
+    @Override
+    public String getPayloadCodec() {
+        return payloadCodec;
+    }
 }
@@ -0,0 +1,131 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Frames;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * compression using the JDK {@link Deflater}, optionally with a preset dictionary. The dictionary should contain byte
+ * sequences that are common in the payloads of the channel. Its hash is part of the name, so clients with a different
+ * dictionary cannot join.
+ * <p>
+ * The receiver allocates the uncompressed payload up front. Its length is taken from the peer, so it is limited to the
+ * maximum payload length, by default the default maximum frame size.
+ */
+public class DeflateCompressor implements PayloadCompressor {
+
+    public static final String NAME = "deflate";
+
+    private final int level;
+    private final byte[] dictionary;
+    private final String name;
+    private final int maxPayloadLength;
+
+    public DeflateCompressor() {
+        this(Deflater.DEFAULT_COMPRESSION, null);
+    }
+
+    public DeflateCompressor(int level) {
+        this(level, null);
+    }
+
+    public DeflateCompressor(int level, byte[] dictionary) {
+        this(level, dictionary, Frames.DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * @param maxPayloadLength the largest uncompressed payload accepted from peers
+     */
+    public DeflateCompressor(int level, byte[] dictionary, int maxPayloadLength) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+        if (maxPayloadLength < 0) {
+            throw new IllegalArgumentException("max payload length must not be negative");
+        }
+        this.maxPayloadLength = maxPayloadLength;
+        this.level = level;
+        this.dictionary = dictionary == null ? null : dictionary.clone();
+        this.name = dictionary == null ? NAME : NAME + "-" + Integer.toHexString(Arrays.hashCode(dictionary));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void compress(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        // the uncompressed length allows exact allocation on the receiving side
+        new DataOutputStream(out).writeInt(length);
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            byte[] buffer = new byte[Math.min(length + 64, 8192)];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length) throws IOException {
+        int uncompressedLength = new DataInputStream(new ByteArrayInputStream(data, offset, length)).readInt();
+        if (uncompressedLength < 0) {
+            throw new StreamCorruptedException("invalid uncompressed length: " + uncompressedLength);
+        }
+        if (uncompressedLength > maxPayloadLength) {
+            throw new StreamCorruptedException("uncompressed length " + uncompressedLength + " exceeds the limit of "
+                    + maxPayloadLength + " bytes");
+        }
+        byte[] result = new byte[uncompressedLength];
+        // only used to detect data beyond the declared length
+        byte[] excess = new byte[1];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset + 4, length - 4);
+            int position = 0;
+            while (!inflater.finished()) {
+                int count = position < result.length
+                        ? inflater.inflate(result, position, result.length - position)
+                        : inflater.inflate(excess);
+                if (count == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                    } else if (!inflater.finished() && (inflater.needsDictionary() || inflater.needsInput())) {
+                        throw new StreamCorruptedException("truncated compressed payload");
+                    }
+                } else if (position == result.length) {
+                    throw new StreamCorruptedException("compressed payload exceeds its declared length of "
+                            + uncompressedLength + " bytes");
+                }
+                position += count;
+            }
+            if (position < result.length) {
+                throw new StreamCorruptedException("truncated compressed payload");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("invalid compressed payload: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package ch.awae.netcode.client;
+
+/**
+ * decides when messages buffered by a client are written to the socket.
+ */
+public enum FlushPolicy {
+
+    /**
+     * every message is flushed on its own.
+     */
+    IMMEDIATE,
+
+    /**
+     * messages are flushed once the send queue has drained. A single sender flushes every message, bursts share their
+     * flushes.
+     */
+    ON_DRAIN,
+
+    /**
+     * messages are flushed periodically (see {@link NetcodeClientFactory#setFlushInterval(long)}) or when the buffer is
+     * full. Adds at most one interval of latency.
+     */
+    INTERVAL
+
+}
@@ -3,14 +3,25 @@ package ch.awae.netcode.client;
 import ch.awae.netcode.internal.HandshakeRequest;
 
 class HandshakeRequestImpl implements HandshakeRequest {
+
+    // pinned to the value of previous versions so that older servers can still read (and ignore) the new fields
+    private static final long serialVersionUID = 3457833545534625748L;
+
     private final String appId;
+    private final int protocolVersion;
 
-    HandshakeRequestImpl(String appId) {
+    HandshakeRequestImpl(String appId, int protocolVersion) {
         this.appId = appId;
+        this.protocolVersion = protocolVersion;
     }
 
     @Override
     public String getAppId() {
         return appId;
     }
+
+    @Override
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
 }
@@ -0,0 +1,234 @@
+package ch.awae.netcode.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel for large numbers of timeouts that are usually cancelled before they expire. Scheduling and
+ * cancelling are O(1) and never block, expiry is checked once per tick by a single worker thread, so timeouts fire up
+ * to one tick late. The worker thread is started with the first timeout.
+ * <p>
+ * Expiry tasks run on the worker thread and must not block.
+ */
+class HashedWheelTimer {
+
+    private final static Logger LOG = Logger.getLogger(HashedWheelTimer.class.getName());
+
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    private final ThreadFactory threadFactory;
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger workerState = new AtomicInteger(0);
+    private volatile long startTime;
+    private Thread worker;
+
+    /**
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     */
+    HashedWheelTimer(ThreadFactory threadFactory, String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("tick duration must be positive");
+        }
+        if (wheelSize < 1 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("invalid wheel size: " + wheelSize);
+        }
+        this.threadFactory = threadFactory;
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+    }
+
+    /**
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay) - startTime);
+        added.add(timeout);
+        return timeout;
+    }
+
+    private void start() {
+        switch (workerState.get()) {
+            case 0:
+                if (workerState.compareAndSet(0, 1)) {
+                    startTime = System.nanoTime();
+                    worker = threadFactory.newThread(this::run);
+                    worker.setName(name);
+                    worker.setDaemon(true);
+                    worker.start();
+                }
+                break;
+            case 1:
+                break;
+            default:
+                throw new IllegalStateException("timer has been stopped");
+        }
+        // another thread may be between the state change and the start time
+        while (startTime == 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * stops the timer. Pending timeouts never expire.
+     */
+    void stop() {
+        if (workerState.getAndSet(2) == 1) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        long tick = 0;
+        try {
+            while (workerState.get() == 1) {
+                waitForTick(tick);
+                removeCancelled();
+                transferAdded(tick);
+                wheel[(int) (tick & mask)].expire();
+                tick++;
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    private void waitForTick(long tick) throws InterruptedException {
+        long deadline = startTime + (tick + 1) * tickNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdded(long tick) {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != STATE_PENDING) {
+                continue;
+            }
+            long expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            wheel[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+        // owned by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous, next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if the timeout has already expired or been cancelled
+         */
+        boolean cancel() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+
+        private void expire() {
+            if (state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "timeout task failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * a doubly linked list of timeouts, owned by the worker thread.
+     */
+    private static final class Bucket {
+
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package ch.awae.netcode.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * payload layout of {@link NetcodePacketType#INVOCATION} packets: a 4 byte binding id, a 4 byte method id and the
+ * arguments. Both sides know the parameter types from the binding, so primitive arguments are written as is. Other
+ * arguments are a 4 byte length, -1 for null, and the payload encoded by the codec.
+ * <p>
+ * {@link NetcodePacketType#INVOCATION_BATCH} packets carry a 4 byte count followed by the invocations, each prefixed
+ * with its 4 byte length.
+ */
+final class InvocationCodec {
+
+    private InvocationCodec() {
+    }
+
+    static byte[] encode(int bindingId, int methodId, Class<?>[] types, Object[] arguments, PayloadCodec codec) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(bindingId);
+        out.writeInt(methodId);
+        ByteArrayOutputStream argument = null;
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            Object value = arguments[i];
+            if (type.isPrimitive()) {
+                writePrimitive(out, type, value);
+            } else if (value == null) {
+                out.writeInt(-1);
+            } else if (!(value instanceof Serializable)) {
+                throw new NotSerializableException(value.getClass().getName());
+            } else {
+                if (argument == null) {
+                    argument = new ByteArrayOutputStream(64);
+                }
+                argument.reset();
+                codec.encode((Serializable) value, argument);
+                out.writeInt(argument.size());
+                argument.writeTo(out);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static byte[] batch(List<byte[]> invocations) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + invocations.stream().mapToInt(invocation -> 4 + invocation.length).sum());
+        buffer.putInt(invocations.size());
+        for (byte[] invocation : invocations) {
+            buffer.putInt(invocation.length).put(invocation);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return the invocations of a batch, each a view of the payload
+     */
+    static List<ByteBuffer> unbatch(ByteBuffer payload) throws StreamCorruptedException {
+        try {
+            int count = payload.getInt();
+            if (count < 0 || count > payload.remaining() / 4) {
+                throw new StreamCorruptedException("invalid batch size: " + count);
+            }
+            List<ByteBuffer> invocations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = payload.getInt();
+                if (length < 0 || length > payload.remaining()) {
+                    throw new StreamCorruptedException("invalid invocation length: " + length);
+                }
+                ByteBuffer invocation = payload.slice();
+                invocation.limit(length);
+                invocations.add(invocation);
+                payload.position(payload.position() + length);
+            }
+            return invocations;
+        } catch (BufferUnderflowException e) {
+            throw new StreamCorruptedException("truncated batch");
+        }
+    }
+
+    /**
+     * reads the arguments following the ids.
+     */
+    static Object[] decodeArguments(ByteBuffer buffer, Class<?>[] types, PayloadCodec codec) throws IOException, ClassNotFoundException {
+        Object[] arguments = new Object[types.length];
+        try {
+            for (int i = 0; i < types.length; i++) {
+                Class<?> type = types[i];
+                if (type.isPrimitive()) {
+                    arguments[i] = readPrimitive(buffer, type);
+                    continue;
+                }
+                int length = buffer.getInt();
+                if (length < -1 || length > buffer.remaining()) {
+                    throw new StreamCorruptedException("invalid argument length: " + length);
+                }
+                if (length >= 0) {
+                    arguments[i] = codec.decode(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                }
+            }
+        } catch (RuntimeException e) {
+            // buffer underflow
+            throw new StreamCorruptedException("truncated invocation: " + e);
+        }
+        return arguments;
+    }
+
+    private static void writePrimitive(DataOutputStream out, Class<?> type, Object value) throws IOException {
+        if (type == int.class) {
+            out.writeInt((Integer) value);
+        } else if (type == long.class) {
+            out.writeLong((Long) value);
+        } else if (type == boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else if (type == double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == float.class) {
+            out.writeFloat((Float) value);
+        } else if (type == byte.class) {
+            out.writeByte((Byte) value);
+        } else if (type == short.class) {
+            out.writeShort((Short) value);
+        } else {
+            out.writeChar((Character) value);
+        }
+    }
+
+    private static Object readPrimitive(ByteBuffer buffer, Class<?> type) {
+        if (type == int.class) {
+            return buffer.getInt();
+        } else if (type == long.class) {
+            return buffer.getLong();
+        } else if (type == boolean.class) {
+            return buffer.get() != 0;
+        } else if (type == double.class) {
+            return buffer.getDouble();
+        } else if (type == float.class) {
+            return buffer.getFloat();
+        } else if (type == byte.class) {
+            return buffer.get();
+        } else if (type == short.class) {
+            return buffer.getShort();
+        } else {
+            return buffer.getChar();
+        }
+    }
+
+}
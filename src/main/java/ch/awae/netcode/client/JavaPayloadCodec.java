@@ -0,0 +1,48 @@
+package ch.awae.netcode.client;
+
+import org.apache.commons.lang3.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * plain java serialization. This is the default codec and the only one known to clients prior to 3.0.
+ */
+public class JavaPayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "java";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(Serializable payload) {
+        return SerializationUtils.serialize(payload);
+    }
+
+    @Override
+    public Serializable decode(byte[] data) {
+        return SerializationUtils.deserialize(data);
+    }
+
+    @Override
+    public void encode(Serializable payload, OutputStream out) throws IOException {
+        ObjectOutputStream objectStream = new ObjectOutputStream(out);
+        objectStream.writeObject(payload);
+        objectStream.flush();
+    }
+
+    @Override
+    public Serializable decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data, offset, length))) {
+            return (Serializable) in.readObject();
+        }
+    }
+
+}
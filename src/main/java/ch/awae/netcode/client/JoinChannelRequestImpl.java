@@ -4,14 +4,20 @@ import ch.awae.netcode.internal.JoinChannelRequest;
 
 class JoinChannelRequestImpl implements JoinChannelRequest {
 
+    private static final long serialVersionUID = -8563471912379617827L;
+
     private final String userId;
     private final String password;
     private final String channelId;
+    private final String payloadCodec;
+    private final String[] compressions;
 
-    JoinChannelRequestImpl(String userId, String password, String channelId) {
+    JoinChannelRequestImpl(String userId, String password, String channelId, String payloadCodec, String[] compressions) {
         this.userId = userId;
         this.password = password;
         this.channelId = channelId;
+        this.payloadCodec = payloadCodec;
+        this.compressions = compressions;
     }
 
     @Override
@@ -28,4 +34,14 @@ class JoinChannelRequestImpl implements JoinChannelRequest {
     public String getChannelId() {
         return channelId;
     }
+
+    @Override
+    public String getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    @Override
+    public String[] getCompressions() {
+        return compressions;
+    }
 }
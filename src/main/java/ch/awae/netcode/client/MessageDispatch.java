@@ -0,0 +1,29 @@
+package ch.awae.netcode.client;
+
+/**
+ * decides which thread runs the message handler of a client. Responses, questions and user change events never wait
+ * for message handlers unless messages are handled {@link #INLINE} or the dispatch queue is full (see
+ * {@link NetcodeClientFactory#setDispatchQueueSize(int)}).
+ */
+public enum MessageDispatch {
+
+    /**
+     * messages are handled on the reader thread in the order they arrive. A slow handler holds up all incoming
+     * packets of the client.
+     */
+    INLINE,
+
+    /**
+     * messages are handled by a fixed pool of dispatch threads (see
+     * {@link NetcodeClientFactory#setDispatchThreads(int)}). Messages may be handled in any order, even those of the
+     * same sender.
+     */
+    POOLED,
+
+    /**
+     * the messages of each sender are handled in order by one of the dispatch threads. Different senders are handled
+     * in parallel unless they share a thread.
+     */
+    ORDERED_PER_SENDER
+
+}
@@ -0,0 +1,95 @@
+package ch.awae.netcode.client;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs message handlers as configured by {@link MessageDispatch}. Ordered dispatch is striped: every sender is
+ * assigned one single threaded executor by the hash of its id. The queues of the executors are bounded, once one is
+ * full the reader thread waits for it.
+ */
+class MessageDispatcher {
+
+    private final static Logger LOG = Logger.getLogger(MessageDispatcher.class.getName());
+
+    private final MessageDispatch dispatch;
+    private final ExecutorService[] executors;
+
+    MessageDispatcher(MessageDispatch dispatch, int threads, int queueSize, ThreadFactory threadFactory) {
+        this.dispatch = dispatch;
+        switch (dispatch) {
+            case POOLED:
+                executors = new ExecutorService[]{newExecutor(threads, queueSize, threadFactory)};
+                break;
+            case ORDERED_PER_SENDER:
+                executors = new ExecutorService[threads];
+                for (int i = 0; i < threads; i++) {
+                    executors[i] = newExecutor(1, queueSize, threadFactory);
+                }
+                break;
+            default:
+                executors = new ExecutorService[0];
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads, int queueSize, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                threadFactory, MessageDispatcher::awaitSpace);
+    }
+
+    /**
+     * holds up the reader thread until the queue has space. Messages are dropped once the client is closing.
+     */
+    private static void awaitSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            // disconnecting
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void dispatch(String senderId, Runnable handler) {
+        switch (dispatch) {
+            case INLINE:
+                handler.run();
+                break;
+            case POOLED:
+                submit(executors[0], handler);
+                break;
+            case ORDERED_PER_SENDER:
+                submit(executors[Math.floorMod(senderId.hashCode(), executors.length)], handler);
+                break;
+        }
+    }
+
+    private static void submit(ExecutorService executor, Runnable handler) {
+        try {
+            executor.execute(() -> {
+                try {
+                    handler.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "an error occured while handling a message", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down, the client is closing
+        }
+    }
+
+    void shutdown() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+}
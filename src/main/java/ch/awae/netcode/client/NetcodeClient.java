@@ -3,6 +3,8 @@ package ch.awae.netcode.client;
 import ch.awae.netcode.client.binding.LocalBindings;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 public interface NetcodeClient {
 
@@ -18,16 +20,54 @@ public interface NetcodeClient {
 
     void sendPrivately(String userId, Serializable message);
 
+    /**
+     * enqueues the message for the writer thread without blocking. The future completes once the message has been
+     * flushed to the socket and fails with a {@link ch.awae.netcode.exception.SendQueueFullException} if the send
+     * queue is full. Dependent actions run on the writer thread and must not block.
+     */
+    CompletableFuture<Void> sendToChannelAsync(Serializable message);
+
+    CompletableFuture<Void> sendPrivatelyAsync(String userId, Serializable message);
+
+    /**
+     * the number of messages waiting for the writer thread.
+     */
+    int getPendingSends();
+
+    /**
+     * sends all messages as a single packet. Receivers get them in order with the same timestamp, see
+     * {@link BatchMessageHandler}.
+     */
+    void sendBatchToChannel(Collection<? extends Serializable> messages);
+
+    void sendBatchPrivately(String userId, Collection<? extends Serializable> messages);
+
     void setMessageHandler(MessageHandler messageHandler);
 
     void setQuestionHandler(QuestionHandler questionHandler);
 
     void setEventHandler(ChannelEventHandler eventHandler);
 
+    /**
+     * sets the handler for streams sent with {@link ClientReference#sendStream(java.io.InputStream)}. Streams arriving
+     * while no handler is set are rejected.
+     */
+    void setStreamHandler(StreamHandler streamHandler);
+
     void disconnect();
 
     ClientReference getClientReference(String userId);
 
     LocalBindings getLocalBindings();
 
+    /**
+     * the payload compression statistics of this client. All counters stay at zero if the channel does not use
+     * compression.
+     */
+    CompressionStatistics getCompressionStatistics();
+
+    QuestionStatistics getQuestionStatistics();
+
+    QuestionExecutorStatistics getQuestionExecutorStatistics();
+
 }
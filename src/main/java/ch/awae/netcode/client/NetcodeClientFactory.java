@@ -1,28 +1,57 @@
 package ch.awae.netcode.client;
 
 import ch.awae.netcode.exception.HandshakeException;
-import ch.awae.netcode.internal.FullChannelInformation;
-import ch.awae.netcode.internal.ObjectStreams;
+import ch.awae.netcode.internal.*;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 public class NetcodeClientFactory {
 
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
     private String host;
     private int port = -1;
     private String appId;
+    private int protocolVersion = Protocol.CURRENT;
+    private boolean virtualThreads = false;
+    private int streamResetMessages = ResetPolicy.DEFAULT.getMaxMessages();
+    private long streamResetBytes = ResetPolicy.DEFAULT.getMaxBytes();
+    private long streamResetIdleTime = ResetPolicy.DEFAULT.getIdleMillis();
+    private int maxFrameSize = Frames.DEFAULT_MAX_FRAME_SIZE;
+    private FlushPolicy flushPolicy = FlushPolicy.ON_DRAIN;
+    private long flushInterval = 200;
+    private int sendQueueSize = 1024;
+    private MessageDispatch messageDispatch = MessageDispatch.INLINE;
+    private int dispatchThreads = Runtime.getRuntime().availableProcessors();
+    private int dispatchQueueSize = 1024;
+    private long questionTimeout = 60000;
+    private int questionWindow = 64;
+    private long streamTimeout = 60000;
+    private Executor questionExecutor = null;
+    private int questionThreads = 64;
+    private int questionQueueSize = 1024;
+    private PayloadCodec payloadCodec = new JavaPayloadCodec();
+    private final Map<String, PayloadCompressor> compressors = new LinkedHashMap<>();
 
     private MessageHandler messageHandler;
     private QuestionHandler questionHandler;
     private ChannelEventHandler channelEventHandler;
+    private StreamHandler streamHandler;
 
     public NetcodeClientFactory() {
+        addPayloadCompressor(new DeflateCompressor());
     }
 
     public NetcodeClientFactory(String host, int port, String appId) {
+        this();
         setHost(host);
         setPort(port);
         setAppId(appId);
@@ -59,6 +88,277 @@ public class NetcodeClientFactory {
         this.appId = appId;
     }
 
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * runs the reader and the question/event handlers of created clients on virtual threads. Requires Java 21 or newer.
+     *
+     * @throws UnsupportedOperationException if virtual threads are not supported by the runtime
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads && !Threads.isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("virtual threads require Java 21 or newer");
+        }
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getStreamResetMessages() {
+        return streamResetMessages;
+    }
+
+    /**
+     * the number of messages after which an object stream connection resets its back-reference table. 0 disables
+     * the limit. Only used when talking to servers without framing support.
+     */
+    public void setStreamResetMessages(int streamResetMessages) {
+        if (streamResetMessages < 0) {
+            throw new IllegalArgumentException("stream reset message count must not be negative");
+        }
+        this.streamResetMessages = streamResetMessages;
+    }
+
+    public long getStreamResetBytes() {
+        return streamResetBytes;
+    }
+
+    /**
+     * the number of bytes after which an object stream connection resets its back-reference table. 0 disables the
+     * limit.
+     */
+    public void setStreamResetBytes(long streamResetBytes) {
+        if (streamResetBytes < 0) {
+            throw new IllegalArgumentException("stream reset byte count must not be negative");
+        }
+        this.streamResetBytes = streamResetBytes;
+    }
+
+    public long getStreamResetIdleTime() {
+        return streamResetIdleTime;
+    }
+
+    /**
+     * the idle time in milliseconds after which an object stream connection resets its back-reference table before
+     * writing the next message. 0 disables the idle reset.
+     */
+    public void setStreamResetIdleTime(long streamResetIdleTime) {
+        if (streamResetIdleTime < 0) {
+            throw new IllegalArgumentException("stream reset idle time must not be negative");
+        }
+        this.streamResetIdleTime = streamResetIdleTime;
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * the size in bytes of the largest frame that is accepted from the server. The limit is checked before the frame
+     * is buffered, larger frames close the connection. Also applies to reassembled fragmented messages.
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        if (maxFrameSize < FragmentScheduler.MAX_FRAGMENT_LENGTH) {
+            throw new IllegalArgumentException("max frame size must be at least " + FragmentScheduler.MAX_FRAGMENT_LENGTH);
+        }
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * decides when sent messages are written to the socket. Defaults to {@link FlushPolicy#ON_DRAIN}.
+     */
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = Objects.requireNonNull(flushPolicy);
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * the flush interval in microseconds used by {@link FlushPolicy#INTERVAL}.
+     */
+    public void setFlushInterval(long flushInterval) {
+        if (flushInterval < 1) {
+            throw new IllegalArgumentException("flush interval must be positive");
+        }
+        this.flushInterval = flushInterval;
+    }
+
+    public int getSendQueueSize() {
+        return sendQueueSize;
+    }
+
+    /**
+     * the number of messages that may wait for the writer thread of a client. Asynchronous sends fail once the queue
+     * is full, synchronous sends wait for room.
+     */
+    public void setSendQueueSize(int sendQueueSize) {
+        if (sendQueueSize < 1) {
+            throw new IllegalArgumentException("send queue size must be positive");
+        }
+        this.sendQueueSize = sendQueueSize;
+    }
+
+    public MessageDispatch getMessageDispatch() {
+        return messageDispatch;
+    }
+
+    /**
+     * decides which thread runs the message handler. Defaults to {@link MessageDispatch#INLINE}, which keeps the order of
+     * 2.x and needs no buffering, but lets a slow handler hold up responses and user changes.
+     */
+    public void setMessageDispatch(MessageDispatch messageDispatch) {
+        this.messageDispatch = Objects.requireNonNull(messageDispatch);
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    /**
+     * the number of threads handling messages with {@link MessageDispatch#POOLED} and
+     * {@link MessageDispatch#ORDERED_PER_SENDER}. Defaults to the number of processors.
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        if (dispatchThreads < 1) {
+            throw new IllegalArgumentException("dispatch threads must be positive");
+        }
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    /**
+     * the number of messages that may wait for a dispatch thread, per pool with {@link MessageDispatch#POOLED} and per
+     * thread with {@link MessageDispatch#ORDERED_PER_SENDER}. Once it is full the reader thread waits, so the server
+     * holds back further messages instead of the client buffering them. Defaults to 1024.
+     */
+    public void setDispatchQueueSize(int dispatchQueueSize) {
+        if (dispatchQueueSize < 1) {
+            throw new IllegalArgumentException("dispatch queue size must be positive");
+        }
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    public long getQuestionTimeout() {
+        return questionTimeout;
+    }
+
+    /**
+     * the default timeout in milliseconds for questions asked by created clients. 0 disables the timeout.
+     */
+    public void setQuestionTimeout(long questionTimeout) {
+        if (questionTimeout < 0) {
+            throw new IllegalArgumentException("question timeout must not be negative");
+        }
+        this.questionTimeout = questionTimeout;
+    }
+
+    public int getQuestionWindow() {
+        return questionWindow;
+    }
+
+    /**
+     * the number of questions of each other user a created client answers at once. The other users do not send more
+     * questions than that, questions beyond it are rejected. The total load is bounded by the question executor.
+     * Clients connected to a 2.x server have no window, just like 2.x clients themselves.
+     */
+    public void setQuestionWindow(int questionWindow) {
+        if (questionWindow < 1) {
+            throw new IllegalArgumentException("question window must be positive");
+        }
+        this.questionWindow = questionWindow;
+    }
+
+    public long getStreamTimeout() {
+        return streamTimeout;
+    }
+
+    /**
+     * the time in milliseconds a stream sent by created clients waits for the receiver to consume data. The transfer
+     * is aborted if the receiver grants no credit for that long. 0 waits forever. Defaults to 60s.
+     */
+    public void setStreamTimeout(long streamTimeout) {
+        if (streamTimeout < 0) {
+            throw new IllegalArgumentException("stream timeout must not be negative");
+        }
+        this.streamTimeout = streamTimeout;
+    }
+
+    public Executor getQuestionExecutor() {
+        return questionExecutor;
+    }
+
+    /**
+     * the executor answering the questions and remote calls of other users, shared by all created clients. Questions
+     * the executor rejects are answered with an {@link ch.awae.netcode.exception.OverloadedException}. The clients do
+     * not shut it down. Defaults to null, every client then uses its own pool sized by
+     * {@link #setQuestionThreads(int)} and {@link #setQuestionQueueSize(int)}.
+     */
+    public void setQuestionExecutor(Executor questionExecutor) {
+        this.questionExecutor = questionExecutor;
+    }
+
+    public int getQuestionThreads() {
+        return questionThreads;
+    }
+
+    /**
+     * the maximum number of threads answering questions of a client. Defaults to 64.
+     */
+    public void setQuestionThreads(int questionThreads) {
+        if (questionThreads < 1) {
+            throw new IllegalArgumentException("question threads must be positive");
+        }
+        this.questionThreads = questionThreads;
+    }
+
+    public int getQuestionQueueSize() {
+        return questionQueueSize;
+    }
+
+    /**
+     * the number of questions that may wait for a thread. Questions beyond it are answered with an
+     * {@link ch.awae.netcode.exception.OverloadedException}. Defaults to 1024.
+     */
+    public void setQuestionQueueSize(int questionQueueSize) {
+        if (questionQueueSize < 1) {
+            throw new IllegalArgumentException("question queue size must be positive");
+        }
+        this.questionQueueSize = questionQueueSize;
+    }
+
+    public PayloadCodec getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    /**
+     * the codec used to encode message payloads. A channel uses the codec of the client that created it, joining
+     * with a different codec fails.
+     */
+    public void setPayloadCodec(PayloadCodec payloadCodec) {
+        this.payloadCodec = Objects.requireNonNull(payloadCodec);
+    }
+
+    /**
+     * registers a payload compressor. A {@link DeflateCompressor} without dictionary is always registered. Created
+     * clients can only create or join channels whose compressor is registered.
+     */
+    public void addPayloadCompressor(PayloadCompressor compressor) {
+        compressors.put(compressor.getName(), compressor);
+    }
+
+    void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
     public MessageHandler getMessageHandler() {
         return messageHandler;
     }
@@ -83,15 +383,27 @@ public class NetcodeClientFactory {
         this.channelEventHandler = channelEventHandler;
     }
 
+    public StreamHandler getStreamHandler() {
+        return streamHandler;
+    }
+
+    public void setStreamHandler(StreamHandler streamHandler) {
+        this.streamHandler = streamHandler;
+    }
+
     public NetcodeClient createChannel(String user) throws IOException {
         return createChannel(user, new ChannelFeatures());
     }
 
     public NetcodeClient createChannel(String user, ChannelFeatures features) {
+        String compression = features.getCompression();
+        if (compression != null && !compressors.containsKey(compression)) {
+            throw new IllegalArgumentException("unknown payload compressor: " + compression);
+        }
         ProtoClient client = null;
         try {
             client = createProtoClient();
-            return establishChannel(client, new CreateChannelRequestImpl(user, features), user);
+            return establishChannel(client, new CreateChannelRequestImpl(user, features, payloadCodec.getName()), user);
         } catch (IOException | ClassNotFoundException e) {
             handleNetcodeException(client, e);
             return null;
@@ -102,7 +414,15 @@ public class NetcodeClientFactory {
         client.getStreams().write(request);
         Serializable response = client.getStreams().read();
         if (response instanceof FullChannelInformation) {
-            return new NetcodeClientImpl(user, client, (FullChannelInformation) response, messageHandler, questionHandler, channelEventHandler);
+            FullChannelInformation information = (FullChannelInformation) response;
+            PayloadCompressor compressor = null;
+            if (information.getCompression() != null) {
+                compressor = compressors.get(information.getCompression());
+                if (compressor == null) {
+                    throw new HandshakeException(new IllegalStateException("unknown payload compressor: " + information.getCompression()));
+                }
+            }
+            return new NetcodeClientImpl(user, client, information, messageHandler, questionHandler, channelEventHandler, streamHandler, payloadCodec, compressor, questionTimeout, questionWindow, streamTimeout, flushPolicy, flushInterval, sendQueueSize, messageDispatch, dispatchThreads, dispatchQueueSize, questionExecutor, questionThreads, questionQueueSize, virtualThreads);
         } else if (response instanceof Exception) {
             throw new HandshakeException((Exception) response);
         } else {
@@ -125,7 +445,8 @@ public class NetcodeClientFactory {
         ProtoClient client = null;
         try {
             client = createProtoClient();
-            return establishChannel(client, new JoinChannelRequestImpl(user, password, channelId), user);
+            return establishChannel(client, new JoinChannelRequestImpl(user, password, channelId, payloadCodec.getName(),
+                    compressors.keySet().toArray(new String[0])), user);
         } catch (IOException | ClassNotFoundException e) {
             handleNetcodeException(client, e);
             return null;
@@ -135,14 +456,37 @@ public class NetcodeClientFactory {
     private ProtoClient createProtoClient() throws IOException, ClassNotFoundException {
         validatePort(port);
         Socket socket = new Socket(host, port);
-        ObjectStreams streams = new ObjectStreams(socket);
+        // writes are coalesced by the flush policy, small packets must not wait for the ack of a previous fragment
+        socket.setTcpNoDelay(true);
+        // flushes every write until the client applies its flush policy after the handshake
+        CoalescingOutputStream output = new CoalescingOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE);
+        ObjectStreams streams = new ObjectStreams(socket.getInputStream(), output,
+                new ResetPolicy(streamResetMessages, streamResetBytes, streamResetIdleTime));
+
+        streams.write(new HandshakeRequestImpl(appId, protocolVersion));
+        Serializable response = streams.read();
+        if (response == null) {
+            // servers without protocol negotiation confirm the handshake with a plain null
+            return new ProtoClient(socket, streams, output, Protocol.OBJECT_STREAM);
+        } else if (response instanceof HandshakeResponse) {
+            int negotiatedVersion = ((HandshakeResponse) response).getProtocolVersion();
+            return new ProtoClient(socket, createStreams(socket, negotiatedVersion, streams, output), output, negotiatedVersion);
+        } else if (response instanceof Exception) {
+            throw new HandshakeException((Exception) response);
+        } else {
+            throw new AssertionError("unexpected response to handshake 1");
+        }
+    }
 
-        streams.write(new HandshakeRequestImpl(appId));
-        Exception exception = streams.read(Exception.class);
-        if (exception != null) {
-            throw new HandshakeException(exception);
+    private MessageStreams createStreams(Socket socket, int protocolVersion, ObjectStreams handshakeStreams, OutputStream output) throws IOException {
+        switch (protocolVersion) {
+            case Protocol.OBJECT_STREAM:
+                return handshakeStreams;
+            case Protocol.FRAMED:
+                return new FramedStreams(new BufferedInputStream(socket.getInputStream()), output, maxFrameSize);
+            default:
+                throw new IOException("unsupported protocol version: " + protocolVersion);
         }
-        return new ProtoClient(socket, streams);
     }
 
 }
@@ -2,40 +2,80 @@ package ch.awae.netcode.client;
 
 import ch.awae.netcode.client.binding.LocalBindings;
 import ch.awae.netcode.exception.NetcodeException;
+import ch.awae.netcode.exception.OverloadedException;
 import ch.awae.netcode.internal.FullChannelInformation;
+import ch.awae.netcode.internal.MessageStreams;
 import ch.awae.netcode.internal.NetcodePacket;
-import ch.awae.netcode.internal.ObjectStreams;
+import ch.awae.netcode.internal.PacketFrame;
+import ch.awae.netcode.internal.Threads;
 import ch.awae.netcode.internal.UserChangeMessage;
 import org.apache.commons.lang3.SerializationException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-class NetcodeClientImpl extends Thread implements NetcodeClient {
+class NetcodeClientImpl implements NetcodeClient, Runnable {
 
     private final static Logger LOG = Logger.getLogger(NetcodeClientImpl.class.getName());
+    private final static long DISCONNECT_TIMEOUT = 1000;
 
-    private final ObjectStreams streams;
+    private final MessageStreams streams;
+    private final boolean framed;
+    private final ClientWriter writer;
     private final Socket socket;
     private final ChannelInformation channelInformation;
     private final Set<String> users = new HashSet<>();
 
     private final ExecutorService threadPool;
+    private final MessageDispatcher messageDispatcher;
+    private final Executor questionExecutor;
+    private final ExecutorService ownedQuestionExecutor;
+    private final QuestionExecutorStatisticsImpl questionExecutorStatistics = new QuestionExecutorStatisticsImpl();
+    private final ExecutorService eventExecutor;
+    private final Thread readerThread;
     private final String userId;
-
-    private final PromiseManager<Serializable> promiseManager = new PromiseManager<>();
+    private final PayloadCodec payloadCodec;
+    private final CompressionStatisticsImpl compressionStatistics = new CompressionStatisticsImpl();
+
+    private final QuestionStatisticsImpl questionStatistics = new QuestionStatisticsImpl();
+    private final HashedWheelTimer timer;
+    private final PromiseManager<Serializable> promiseManager;
+    private final long questionTimeout;
+    private final int questionWindow;
+    // handler threads of questions being answered, by sender and correlation id
+    private final ConcurrentHashMap<QuestionKey, Thread> runningQuestions = new ConcurrentHashMap<>();
+    // questions being answered by sender, at most the window advertised to it
+    private final ConcurrentHashMap<String, AtomicInteger> questionsInFlight = new ConcurrentHashMap<>();
+    // the questions other users still accept from this client
+    private final ConcurrentHashMap<String, QuestionCredits> questionCredits = new ConcurrentHashMap<>();
     private final HashMap<String, ClientReferenceImpl> clientRefs = new HashMap<>();
+    private final StreamManager streamManager;
 
     private MessageHandler messageHandler;
     private QuestionHandler questionHandler;
@@ -43,22 +83,87 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
 
     private volatile boolean active = true;
     private final LocalBindings localBindings;
+    private final BeanDispatcher beanDispatcher;
 
-    NetcodeClientImpl(String userId, ProtoClient client, FullChannelInformation channelInformation, MessageHandler messageHandler, QuestionHandler questionHandler, ChannelEventHandler eventHandler) {
+    NetcodeClientImpl(String userId, ProtoClient client, FullChannelInformation channelInformation, MessageHandler messageHandler, QuestionHandler questionHandler, ChannelEventHandler eventHandler, StreamHandler streamHandler, PayloadCodec payloadCodec, PayloadCompressor compressor, long questionTimeout, int questionWindow, long streamTimeout, FlushPolicy flushPolicy, long flushInterval, int sendQueueSize, MessageDispatch messageDispatch, int dispatchThreads, int dispatchQueueSize, Executor questionExecutor, int questionThreads, int questionQueueSize, boolean virtualThreads) {
         streams = client.getStreams();
+        framed = client.isFramed();
+        writer = new ClientWriter(streams, framed, client.getOutput(), flushPolicy, flushInterval, sendQueueSize);
         socket = client.getSocket();
         this.userId = userId;
         this.messageHandler = messageHandler;
         this.questionHandler = questionHandler;
         this.eventHandler = eventHandler;
         this.channelInformation = channelInformation;
+        this.payloadCodec = compressor == null ? payloadCodec : new CompressingPayloadCodec(payloadCodec, compressor,
+                channelInformation.getCompressionThreshold(), compressionStatistics);
         users.addAll(Arrays.asList(channelInformation.getUsers()));
-        this.threadPool = Executors.newCachedThreadPool();
+        this.threadPool = Threads.newCachedExecutor(virtualThreads);
+        if (questionExecutor != null) {
+            // supplied by the application, which shuts it down
+            this.questionExecutor = questionExecutor;
+            this.ownedQuestionExecutor = null;
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(questionThreads, questionThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(questionQueueSize), Threads.threadFactory(virtualThreads));
+            pool.allowCoreThreadTimeOut(true);
+            this.questionExecutor = pool;
+            this.ownedQuestionExecutor = pool;
+        }
+        this.messageDispatcher = new MessageDispatcher(messageDispatch, dispatchThreads, dispatchQueueSize, Threads.threadFactory(virtualThreads));
+        // in order and independent of the message handlers
+        this.eventExecutor = Executors.newSingleThreadExecutor(Threads.threadFactory(virtualThreads));
+        this.questionTimeout = questionTimeout;
+        this.questionWindow = questionWindow;
+        // 10ms ticks, one round every ~5s
+        this.timer = new HashedWheelTimer(Threads.threadFactory(false), "NetcodeClient Timer: " + channelInformation.getChannelId() + "/" + userId,
+                10, TimeUnit.MILLISECONDS, 512);
+        this.promiseManager = new PromiseManager<>(timer, questionStatistics);
         this.localBindings = LocalBindings.createInstance();
+        this.beanDispatcher = new BeanDispatcher(localBindings, this.payloadCodec);
+        this.streamManager = new StreamManager(this, threadPool, streamHandler, streamTimeout);
+
+        writer.start(Threads.threadFactory(virtualThreads), "NetcodeClient Writer: " + channelInformation.getChannelId() + "/" + userId);
+        // users joining later get their credits with the join notification
+        for (String user : users) {
+            if (!user.equals(userId)) {
+                grantQuestionCredits(user, -1, questionWindow);
+            }
+        }
+
+        readerThread = Threads.threadFactory(virtualThreads).newThread(this);
+        readerThread.setName("NetcodeClient: " + channelInformation.getChannelId() + "/" + userId);
+        readerThread.start();
+    }
+
+    @Override
+    public CompressionStatistics getCompressionStatistics() {
+        return compressionStatistics;
+    }
 
-        setName("NetcodeClient: " + channelInformation.getChannelId() + "/" + userId);
+    @Override
+    public QuestionStatistics getQuestionStatistics() {
+        return questionStatistics;
+    }
+
+    @Override
+    public QuestionExecutorStatistics getQuestionExecutorStatistics() {
+        return questionExecutorStatistics;
+    }
 
-        start();
+    /**
+     * @return false if the server is a 2.x server, which only relays the packet types of 2.x
+     */
+    boolean isFramed() {
+        return framed;
+    }
+
+    PayloadCodec getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    long getQuestionTimeout() {
+        return questionTimeout;
     }
 
     @Override
@@ -71,6 +176,11 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
         this.eventHandler = eventHandler;
     }
 
+    @Override
+    public void setStreamHandler(StreamHandler streamHandler) {
+        streamManager.setHandler(streamHandler);
+    }
+
     @Override
     public ChannelInformation getChannelInformation() {
         return channelInformation;
@@ -78,22 +188,22 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
 
     @Override
     public void run() {
-        while (!Thread.interrupted()) {
-            try {
-                processMessage(streams.read());
-            } catch (IOException e) {
+        try {
+            while (!Thread.interrupted()) {
                 try {
-                    socket.close();
+                    processMessage(streams.read());
+                } catch (IOException e) {
+                    // the connection is gone
                     return;
-                } catch (IOException ex) {
-                    ex.printStackTrace();
+                } catch (ClassNotFoundException | SerializationException | NetcodeException e) {
+                    LOG.log(Level.WARNING, "an error occured while processsing incoming message", e);
                 }
-            } catch (ClassNotFoundException | SerializationException e) {
-                LOG.log(Level.WARNING, "an error occured while processsing incoming message", e);
             }
+        } finally {
+            // also after a failing inline handler, the socket is closed first so the writer does not block on it
+            release();
+            writer.close(0);
         }
-        active = false;
-        threadPool.shutdown();
     }
 
     @Override
@@ -113,6 +223,16 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
             processUserChange((UserChangeMessage) message);
         } else if (message instanceof NetcodePacketImpl) {
             processPacket((NetcodePacketImpl) message);
+        } else if (message instanceof PacketFrame) {
+            NetcodePacketImpl packet;
+            try {
+                packet = NetcodePacketImpl.fromFrame((PacketFrame) message);
+            } catch (StreamCorruptedException e) {
+                // relayed from another client, e.g. a newer one. The connection itself is fine
+                LOG.warning("skipping packet from " + ((PacketFrame) message).getSenderId() + ": " + e.getMessage());
+                return;
+            }
+            processPacket(packet);
         }
     }
 
@@ -127,13 +247,48 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
             case RESPONSE:
                 handleResponse(message);
                 break;
+            case BATCH:
+                handleBatch(message);
+                break;
+            case QUESTION_CANCEL:
+                cancelRunningQuestion(message.getSenderId(), message.getCorrelationId());
+                break;
+            case QUESTION_CREDIT:
+                handleQuestionCredit(message);
+                break;
+            case INVOCATION:
+                if (message.getCorrelationId() < 0) {
+                    invokeOneWay(message);
+                } else {
+                    answer(message, invocation -> beanDispatcher.invoke(invocation.getSenderId(), invocation.getRawPayload()));
+                }
+                break;
+            case INVOCATION_BATCH:
+                answer(message, batch -> beanDispatcher.invokeAll(batch.getSenderId(), batch.getRawPayload()));
+                break;
+            case BIND:
+                answer(message, bind -> beanDispatcher.bind(bind.getSenderId(), (BindRequest) bind.getPayload(payloadCodec)));
+                break;
+            case REJECTED:
+                handleRejected(message);
+                break;
+            case STREAM_OPEN:
+            case STREAM_DATA:
+            case STREAM_END:
+            case STREAM_ABORT:
+            case STREAM_CREDIT:
+            case STREAM_CANCEL:
+                streamManager.process(message);
+                break;
         }
     }
 
     private void handleResponse(NetcodePacketImpl message) {
         long correlationId = message.getCorrelationId();
+        // late responses return their credit too
+        getQuestionCredits(message.getSenderId()).returned(1);
         try {
-            Serializable response = message.getPayload();
+            Serializable response = message.getPayload(payloadCodec);
             if (response instanceof Throwable) {
                 promiseManager.fail(correlationId, (Throwable) response);
             } else {
@@ -144,45 +299,221 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
         }
     }
 
+    private void handleRejected(NetcodePacketImpl message) {
+        // the question never reached the user, its credit is returned like for a response
+        getQuestionCredits(message.getSenderId()).returned(1);
+        ByteBuffer payload = message.getRawPayload();
+        String reason = new String(payload.array(), payload.position(), payload.remaining(), StandardCharsets.UTF_8);
+        promiseManager.fail(message.getCorrelationId(), new NetcodeException(reason, null));
+    }
+
     private void handleQuestion(NetcodePacketImpl message) {
         QuestionHandler handler = this.questionHandler;
         if (handler != null) {
-            threadPool.submit(() -> {
-                Serializable answer;
+            answer(message, question -> handler.handleQuestion(question.getSenderId(), question.getTimestamp(), question.getPayload(payloadCodec)));
+        } else {
+            // on the reader thread: never wait for the writer here
+            writer.offer(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, new NetcodeException("could not handle question - no question handler exists on the remote", null)));
+        }
+    }
+
+    private interface Answerer {
+
+        Serializable answer(NetcodePacketImpl message) throws Exception;
+    }
+
+    /**
+     * answers a question or invocation on a pool thread, within the question window of the sender.
+     */
+    private void answer(NetcodePacketImpl message, Answerer answerer) {
+        AtomicInteger inFlight = questionsInFlight.computeIfAbsent(message.getSenderId(), sender -> new AtomicInteger());
+        if (inFlight.incrementAndGet() > questionWindow && framed) {
+            // the asker ignores its credits. Without framing no credits were granted, so there is no window
+            inFlight.decrementAndGet();
+            writer.offer(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, new NetcodeException("question rejected - more than " + questionWindow + " questions in flight", null)));
+            return;
+        }
+        boolean accepted = submitQuestion(() -> {
+            QuestionKey key = new QuestionKey(message.getSenderId(), message.getCorrelationId());
+            Thread thread = Thread.currentThread();
+            runningQuestions.put(key, thread);
+            Serializable answer;
+            try {
+                answer = answerer.answer(message);
+            } catch (Exception e) {
+                answer = e;
+            }
+            // before answering, the asker may send the next question as soon as it has the response
+            inFlight.decrementAndGet();
+            if (!runningQuestions.remove(key, thread)) {
+                // cancelled by the asker, nobody waits for the answer. Do not leak the interrupt into the pool
+                Thread.interrupted();
+                grantQuestionCredits(message.getSenderId(), message.getCorrelationId(), 1);
+                return;
+            }
+            try {
+                writeToStream(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, answer));
+            } catch (Exception e) {
+                writeToStream(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, e));
+            }
+        });
+        if (!accepted) {
+            inFlight.decrementAndGet();
+            writer.offer(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, new OverloadedException("question rejected - the remote is overloaded")));
+        }
+    }
+
+    /**
+     * @return false if the question executor is saturated
+     */
+    private boolean submitQuestion(Runnable task) {
+        questionExecutorStatistics.queued();
+        try {
+            questionExecutor.execute(() -> {
+                questionExecutorStatistics.started();
                 try {
-                    answer = handler.handleQuestion(message.getSenderId(), message.getTimestamp(), message.getPayload());
-                    writeToStream(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, answer));
-                } catch (Exception e) {
-                    writeToStream(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, e));
+                    task.run();
+                } finally {
+                    questionExecutorStatistics.finished();
                 }
             });
+            return true;
+        } catch (RejectedExecutionException e) {
+            questionExecutorStatistics.rejected();
+            return false;
+        }
+    }
+
+    /**
+     * nobody waits for the result, failures are only logged.
+     */
+    private void invokeOneWay(NetcodePacketImpl message) {
+        boolean accepted = submitQuestion(() -> {
+            Object result;
+            try {
+                result = beanDispatcher.invoke(message.getSenderId(), message.getRawPayload());
+            } catch (Exception e) {
+                result = e;
+            }
+            if (result instanceof Throwable) {
+                LOG.log(Level.WARNING, "one-way call from " + message.getSenderId() + " failed", (Throwable) result);
+            }
+        });
+        if (!accepted) {
+            LOG.warning("one-way call from " + message.getSenderId() + " dropped - question executor overloaded");
+        }
+    }
+
+    private void cancelRunningQuestion(String senderId, long correlationId) {
+        // removal and interrupt are atomic with respect to the handler finishing
+        runningQuestions.computeIfPresent(new QuestionKey(senderId, correlationId), (key, thread) -> {
+            thread.interrupt();
+            return null;
+        });
+    }
+
+    private void handleQuestionCredit(NetcodePacketImpl message) {
+        int count = message.getRawPayload().getInt();
+        QuestionCredits credits = getQuestionCredits(message.getSenderId());
+        if (message.getCorrelationId() < 0) {
+            credits.grant(count);
         } else {
-            writeToStream(buildPacket(message.getSenderId(), message.getCorrelationId(), NetcodePacketType.RESPONSE, new NetcodeException("could not handle question - no question handler exists on the remote", null)));
+            credits.returned(count);
         }
     }
 
-    private NetcodePacket buildPacket(String destinationId, long correlationId, NetcodePacketType packetType, Serializable payload) {
-        return new NetcodePacketImpl(Timestamp.from(Instant.now()), this.userId, destinationId, correlationId, packetType, payload);
+    private void grantQuestionCredits(String destinationId, long correlationId, int count) {
+        if (!framed) {
+            // servers of protocol version 2 do not know the type, their clients do not expect credits anyway
+            return;
+        }
+        ByteBuffer credits = ByteBuffer.allocate(4).putInt(count);
+        offerRawPacket(destinationId, correlationId, NetcodePacketType.QUESTION_CREDIT, credits.array());
     }
 
-    private void handleMessage(NetcodePacketImpl message) {
+    QuestionCredits getQuestionCredits(String userId) {
+        return questionCredits.computeIfAbsent(userId, user -> new QuestionCredits());
+    }
+
+    void cancelQuestion(String destinationId, long correlationId) {
+        if (active && framed) {
+            // may run on the timer or the reader thread: never wait for the writer.
+            // servers of protocol version 2 do not know the type, the question simply runs to completion there
+            offerRawPacket(destinationId, correlationId, NetcodePacketType.QUESTION_CANCEL, new byte[0]);
+        }
+    }
+
+    NetcodePacket buildPacket(String destinationId, long correlationId, NetcodePacketType packetType, Serializable payload) {
+        return encode(new NetcodePacketImpl(Timestamp.from(Instant.now()), this.userId, destinationId, correlationId, packetType, payload, payloadCodec));
+    }
+
+    NetcodePacket buildRawPacket(String destinationId, long correlationId, NetcodePacketType packetType, byte[] payload) {
+        return encode(new NetcodePacketImpl(Timestamp.from(Instant.now()), this.userId, destinationId, correlationId, packetType, payload));
+    }
+
+    private NetcodePacket encode(NetcodePacketImpl packet) {
+        try {
+            if (framed) {
+                // the payload is encoded straight into the frame
+                return packet.toFrame();
+            }
+            packet.encodePayload();
+            return packet;
+        } catch (IOException e) {
+            throw new NetcodeException("could not encode payload: " + e.getMessage(), e);
+        }
+    }
+
+    private void handleBatch(NetcodePacketImpl message) {
         MessageHandler handler = this.messageHandler;
         if (handler != null) {
-            if (message.getDestinationId() == null) {
-                handler.handleMessage(message.getSenderId(), message.getTimestamp(), message.getPayload());
+            // decoded by the dispatch thread as well
+            messageDispatcher.dispatch(message.getSenderId(), () -> handleBatch(message, handler));
+        }
+    }
+
+    private void handleBatch(NetcodePacketImpl message, MessageHandler handler) {
+        List<Serializable> messages = message.getBatch(payloadCodec);
+        boolean isPrivate = message.getDestinationId() != null;
+        if (handler instanceof BatchMessageHandler) {
+            BatchMessageHandler batchHandler = (BatchMessageHandler) handler;
+            if (isPrivate) {
+                batchHandler.handlePrivateBatch(message.getSenderId(), message.getTimestamp(), messages);
             } else {
-                handler.handlePrivateMessage(message.getSenderId(), message.getTimestamp(), message.getPayload());
+                batchHandler.handleBatch(message.getSenderId(), message.getTimestamp(), messages);
+            }
+        } else {
+            for (Serializable payload : messages) {
+                if (isPrivate) {
+                    handler.handlePrivateMessage(message.getSenderId(), message.getTimestamp(), payload);
+                } else {
+                    handler.handleMessage(message.getSenderId(), message.getTimestamp(), payload);
+                }
             }
         }
     }
 
+    private void handleMessage(NetcodePacketImpl message) {
+        MessageHandler handler = this.messageHandler;
+        if (handler != null) {
+            messageDispatcher.dispatch(message.getSenderId(), () -> {
+                if (message.getDestinationId() == null) {
+                    handler.handleMessage(message.getSenderId(), message.getTimestamp(), message.getPayload(payloadCodec));
+                } else {
+                    handler.handlePrivateMessage(message.getSenderId(), message.getTimestamp(), message.getPayload(payloadCodec));
+                }
+            });
+        }
+    }
+
     private void processUserChange(UserChangeMessage message) {
         synchronized (users) {
             ChannelEventHandler eventHandler = this.eventHandler;
             if (message.isEntering()) {
                 users.add(message.getUser());
+                grantQuestionCredits(message.getUser(), -1, questionWindow);
                 if (eventHandler != null) {
-                    threadPool.submit(() -> eventHandler.userChange(message.getUser(), true));
+                    eventExecutor.submit(() -> eventHandler.userChange(message.getUser(), true));
                 }
             } else {
                 users.remove(message.getUser());
@@ -190,8 +521,15 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
                 if (ref != null) {
                     ref.disable();
                 }
+                streamManager.userLeft(message.getUser());
+                beanDispatcher.userLeft(message.getUser());
+                questionsInFlight.remove(message.getUser());
+                QuestionCredits credits = questionCredits.remove(message.getUser());
+                if (credits != null) {
+                    credits.close();
+                }
                 if (eventHandler != null) {
-                    threadPool.submit(() -> eventHandler.userChange(message.getUser(), false));
+                    eventExecutor.submit(() -> eventHandler.userChange(message.getUser(), false));
                 }
             }
         }
@@ -203,18 +541,106 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
         writeToStream(buildPacket(null, -1, NetcodePacketType.MESSAGE, message));
     }
 
+    @Override
+    public void sendBatchToChannel(Collection<? extends Serializable> messages) {
+        verifyState();
+        sendBatch(null, messages);
+    }
+
+    @Override
+    public void sendBatchPrivately(String userId, Collection<? extends Serializable> messages) {
+        verifyState();
+        verifyUserKnown(userId);
+        sendBatch(userId, messages);
+    }
+
+    private void sendBatch(String destinationId, Collection<? extends Serializable> messages) {
+        List<Serializable> payloads = new ArrayList<>(messages);
+        if (payloads.isEmpty()) {
+            return;
+        }
+        if (!framed) {
+            // servers without framing may relay to clients that do not know batches
+            for (Serializable payload : payloads) {
+                writeToStream(buildPacket(destinationId, -1, NetcodePacketType.MESSAGE, payload));
+            }
+            return;
+        }
+        writeToStream(encode(NetcodePacketImpl.batch(Timestamp.from(Instant.now()), this.userId, destinationId, payloads, payloadCodec)));
+    }
+
     private void writeToStream(Serializable message) {
+        writer.send(message);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendToChannelAsync(Serializable message) {
+        return sendAsync(null, message);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendPrivatelyAsync(String userId, Serializable message) {
+        return sendAsync(userId, message);
+    }
+
+    private CompletableFuture<Void> sendAsync(String destinationId, Serializable message) {
         try {
-            streams.write(message);
-        } catch (IOException e) {
-            throw new NetcodeException("could not send message: " + e.getMessage(), e);
+            verifyState();
+            if (destinationId != null) {
+                verifyUserKnown(destinationId);
+            }
+            return writer.offer(buildPacket(destinationId, -1, NetcodePacketType.MESSAGE, message));
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
         }
     }
 
+    @Override
+    public int getPendingSends() {
+        return writer.getPendingSends();
+    }
+
     void sendPacket(String destinationId, long correlationId, NetcodePacketType packetType, Serializable payload) {
         writeToStream(buildPacket(destinationId, correlationId, packetType, payload));
     }
 
+    void sendPacket(NetcodePacket packet) {
+        writeToStream(packet);
+    }
+
+    /**
+     * enqueues an encoded packet without blocking. Safe to call from the reader thread.
+     */
+    CompletableFuture<Void> offerPacket(NetcodePacket packet) {
+        return writer.offer(packet);
+    }
+
+    /**
+     * sends a packet with a payload that bypasses the codec.
+     */
+    void sendRawPacket(String destinationId, long correlationId, NetcodePacketType packetType, byte[] payload) {
+        writeToStream(buildRawPacket(destinationId, correlationId, packetType, payload));
+    }
+
+    /**
+     * like {@link #sendRawPacket}, but never blocks. Safe to call from the reader thread.
+     */
+    void offerRawPacket(String destinationId, long correlationId, NetcodePacketType packetType, byte[] payload) {
+        writer.offer(buildRawPacket(destinationId, correlationId, packetType, payload));
+    }
+
+    CompletableFuture<Void> sendStream(String destinationId, InputStream data) {
+        if (!framed) {
+            // a 2.x server cannot relay the stream packets
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new NetcodeException("streams are not supported by the server", null));
+            return future;
+        }
+        return streamManager.send(destinationId, data);
+    }
+
     @Override
     public void sendPrivately(String userId, Serializable message) {
         verifyState();
@@ -224,17 +650,47 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
 
     @Override
     public void disconnect() {
-        interrupt();
+        readerThread.interrupt();
+        streamManager.shutdown();
+        timer.stop();
+        // messages sent before the disconnect still go out
+        writer.close(DISCONNECT_TIMEOUT);
+        release();
+    }
+
+    /**
+     * closes the socket and shuts down everything but the writer. Called by both the reader thread and
+     * {@link #disconnect()}, so it must tolerate being called twice.
+     */
+    private void release() {
         try {
             this.socket.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.log(Level.FINE, "could not close socket", e);
         }
         active = false;
-        for (ClientReferenceImpl reference : clientRefs.values()) {
+        streamManager.shutdown();
+        timer.stop();
+        List<ClientReferenceImpl> references;
+        synchronized (users) {
+            references = new ArrayList<>(clientRefs.values());
+        }
+        for (ClientReferenceImpl reference : references) {
             reference.disable();
         }
+        for (QuestionCredits credits : questionCredits.values()) {
+            credits.close();
+        }
         threadPool.shutdown();
+        shutdownQuestionExecutor();
+        messageDispatcher.shutdown();
+        eventExecutor.shutdown();
+    }
+
+    private void shutdownQuestionExecutor() {
+        if (ownedQuestionExecutor != null) {
+            ownedQuestionExecutor.shutdown();
+        }
     }
 
     @Override
@@ -245,7 +701,7 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
             if (clientRefs.containsKey(userId)) {
                 return clientRefs.get(userId);
             } else {
-                ClientReferenceImpl clientReference = new ClientReferenceImpl(userId, this, promiseManager);
+                ClientReferenceImpl clientReference = new ClientReferenceImpl(userId, this, promiseManager, getQuestionCredits(userId), questionStatistics);
                 clientRefs.put(userId, clientReference);
                 return clientReference;
             }
@@ -270,4 +726,28 @@ class NetcodeClientImpl extends Thread implements NetcodeClient {
             }
         }
     }
+
+    private static final class QuestionKey {
+
+        private final String senderId;
+        private final long correlationId;
+
+        QuestionKey(String senderId, long correlationId) {
+            this.senderId = senderId;
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QuestionKey key = (QuestionKey) o;
+            return correlationId == key.correlationId && senderId.equals(key.senderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * senderId.hashCode() + Long.hashCode(correlationId);
+        }
+    }
 }
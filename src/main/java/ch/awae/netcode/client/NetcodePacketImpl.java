@@ -1,33 +1,113 @@
 package ch.awae.netcode.client;
 
+import ch.awae.netcode.exception.NetcodeException;
 import ch.awae.netcode.internal.NetcodePacket;
-import org.apache.commons.lang3.SerializationUtils;
+import ch.awae.netcode.internal.PacketBatch;
+import ch.awae.netcode.internal.PacketFrame;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Outgoing packets keep the payload object and encode it straight into the frame. Received packets keep the frame and
+ * decode the payload slice at most once. {@link NetcodePacketType#BATCH} packets carry several message payloads, see
+ * {@link PacketBatch}.
+ */
 class NetcodePacketImpl implements NetcodePacket {
 
+    private static final long serialVersionUID = 4880349937298993669L;
+
     private Timestamp timestamp;
     private String senderId, destinationId;
     private long correlationId;
     private NetcodePacketType type;
     private byte[] payload;
 
-    NetcodePacketImpl(Timestamp timestamp, String senderId, String destinationId, long correlationId, NetcodePacketType type, Serializable payload) {
+    private transient PacketFrame.PayloadWriter payloadWriter;
+    private transient PacketFrame frame;
+    private transient boolean decoded;
+    private transient Serializable decodedPayload;
+
+    NetcodePacketImpl(Timestamp timestamp, String senderId, String destinationId, long correlationId, NetcodePacketType type, byte[] payload) {
         this.timestamp = timestamp;
         this.senderId = senderId;
         this.destinationId = destinationId;
         this.correlationId = correlationId;
         this.type = type;
-        this.payload = SerializationUtils.serialize(payload);
+        this.payload = payload;
+    }
+
+    NetcodePacketImpl(Timestamp timestamp, String senderId, String destinationId, long correlationId, NetcodePacketType type, Serializable payload, PayloadCodec codec) {
+        this(timestamp, senderId, destinationId, correlationId, type, out -> codec.encode(payload, out));
+    }
+
+    private NetcodePacketImpl(Timestamp timestamp, String senderId, String destinationId, long correlationId, NetcodePacketType type, PacketFrame.PayloadWriter payloadWriter) {
+        this(timestamp, senderId, destinationId, correlationId, type, (byte[]) null);
+        this.payloadWriter = payloadWriter;
+    }
+
+    static NetcodePacketImpl batch(Timestamp timestamp, String senderId, String destinationId, List<? extends Serializable> payloads, PayloadCodec codec) {
+        return new NetcodePacketImpl(timestamp, senderId, destinationId, -1, NetcodePacketType.BATCH, PacketBatch.writer(payloads, codec));
+    }
+
+    private NetcodePacketImpl(PacketFrame frame, NetcodePacketType type) {
+        this(frame.getTimestamp(), frame.getSenderId(), frame.getDestinationId(), frame.getCorrelationId(), type,
+                (byte[]) null);
+        this.frame = frame;
+    }
+
+    /**
+     * @throws StreamCorruptedException if the frame has an unknown packet type
+     */
+    static NetcodePacketImpl fromFrame(PacketFrame frame) throws StreamCorruptedException {
+        return new NetcodePacketImpl(frame, NetcodePacketType.fromId(frame.getType()));
+    }
+
+    @Override
+    public PacketFrame toFrame() throws IOException {
+        if (frame != null) {
+            return frame;
+        }
+        if (payload != null) {
+            return PacketFrame.encode(destinationId, senderId, (byte) type.ordinal(), correlationId, timestamp, payload);
+        }
+        return PacketFrame.encode(destinationId, senderId, (byte) type.ordinal(), correlationId, timestamp, payloadWriter);
+    }
+
+    /**
+     * materializes the payload bytes. Needed before the packet is written to an object stream, so a failing codec
+     * cannot leave a half-written object behind.
+     */
+    void encodePayload() throws IOException {
+        if (payload == null) {
+            if (frame != null) {
+                payload = frame.getPayload();
+            } else {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+                payloadWriter.writeTo(bytes);
+                payload = bytes.toByteArray();
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        encodePayload();
+        out.defaultWriteObject();
     }
 
     Timestamp getTimestamp() {
         return timestamp;
     }
 
-    String getSenderId() {
+    @Override
+    public String getSenderId() {
         return senderId;
     }
 
@@ -44,8 +124,70 @@ class NetcodePacketImpl implements NetcodePacket {
         return type;
     }
 
-    Serializable getPayload() {
-        return SerializationUtils.deserialize(payload);
+    @Override
+    public int getTypeId() {
+        return type.ordinal();
+    }
+
+    synchronized Serializable getPayload(PayloadCodec codec) {
+        if (!decoded) {
+            decodedPayload = decodePayload(codec);
+            decoded = true;
+        }
+        return decodedPayload;
+    }
+
+    /**
+     * the undecoded payload. Does not copy the frame.
+     */
+    ByteBuffer getRawPayload() {
+        if (frame != null) {
+            byte[] bytes = frame.getFrame();
+            int offset = frame.getPayloadOffset();
+            return ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+        }
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * decodes all messages of a batch packet, at most once.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized List<Serializable> getBatch(PayloadCodec codec) {
+        if (!decoded) {
+            ArrayList<Serializable> messages = new ArrayList<>();
+            try {
+                forEachBatchEntry((data, offset, length) -> messages.add(codec.decode(data, offset, length)));
+            } catch (IOException | ClassNotFoundException e) {
+                throw new NetcodeException("could not decode payload: " + e.getMessage(), e);
+            }
+            decodedPayload = messages;
+            decoded = true;
+        }
+        return (List<Serializable>) decodedPayload;
+    }
+
+    private void forEachBatchEntry(PacketBatch.EntryVisitor visitor) throws IOException, ClassNotFoundException {
+        if (frame != null) {
+            byte[] bytes = frame.getFrame();
+            int offset = frame.getPayloadOffset();
+            PacketBatch.forEach(bytes, offset, bytes.length - offset, visitor);
+        } else {
+            PacketBatch.forEach(payload, 0, payload.length, visitor);
+        }
+    }
+
+    private Serializable decodePayload(PayloadCodec codec) {
+        try {
+            if (frame != null) {
+                byte[] bytes = frame.getFrame();
+                int offset = frame.getPayloadOffset();
+                return codec.decode(bytes, offset, bytes.length - offset);
+            }
+            return codec.decode(payload);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NetcodeException("could not decode payload: " + e.getMessage(), e);
+        }
     }
 
 }
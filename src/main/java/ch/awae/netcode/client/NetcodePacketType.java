@@ -1,7 +1,46 @@
 package ch.awae.netcode.client;
 
+import java.io.StreamCorruptedException;
+
 enum NetcodePacketType {
 
-    MESSAGE, QUESTION, RESPONSE
+    MESSAGE, QUESTION, RESPONSE, BATCH,
+
+    // streams, see StreamManager. The correlation id is the stream id chosen by the sender
+    STREAM_OPEN, STREAM_DATA, STREAM_END, STREAM_ABORT, STREAM_CREDIT, STREAM_CANCEL,
+
+    // the asker no longer waits for the response to the question with the correlation id
+    QUESTION_CANCEL,
+
+    // the sender accepts more questions from the destination. The payload is the int number of credits. The
+    // correlation id is -1 for the initial grant and the id of an abandoned question if its credit is returned
+    QUESTION_CREDIT,
+
+    // a call of a remotely bound bean. Handled like a question and answered with a RESPONSE. The payload is laid out
+    // by InvocationCodec. One-way calls have the correlation id -1 and get no response
+    INVOCATION,
+
+    // binds an interface of a remote bean, see BeanDispatcher. Handled like a question, the response is the binding id
+    BIND,
+
+    // calls of remotely bound beans run in order, see InvocationCodec. Answered with a single RESPONSE
+    INVOCATION_BATCH,
+
+    // sent by the server in place of a packet the destination cannot receive, e.g. a BIND to a 2.x client. The
+    // correlation id is that of the dropped packet, the payload the UTF-8 encoded reason
+    REJECTED;
+
+    private static final NetcodePacketType[] VALUES = values();
+
+    /**
+     * @param id the ordinal of the type as sent on the wire
+     * @throws StreamCorruptedException if there is no such type, e.g. for packets of newer clients
+     */
+    static NetcodePacketType fromId(int id) throws StreamCorruptedException {
+        if (id < 0 || id >= VALUES.length) {
+            throw new StreamCorruptedException("unknown packet type: " + id);
+        }
+        return VALUES[id];
+    }
 
 }
@@ -0,0 +1,38 @@
+package ch.awae.netcode.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Encodes the payloads of messages, questions and responses. All clients of a channel must use the same codec, the
+ * channel adopts the codec of its creator and rejects clients announcing a different codec name.
+ */
+public interface PayloadCodec {
+
+    /**
+     * identifies the codec and its configuration. Two codecs with the same name must be able to read each others
+     * output.
+     */
+    String getName();
+
+    byte[] encode(Serializable payload) throws IOException;
+
+    Serializable decode(byte[] data) throws IOException, ClassNotFoundException;
+
+    /**
+     * writes the encoded payload directly into an outgoing frame. Must not close the stream.
+     */
+    default void encode(Serializable payload, OutputStream out) throws IOException {
+        out.write(encode(payload));
+    }
+
+    /**
+     * decodes a payload directly from a received frame.
+     */
+    default Serializable decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+        return decode(Arrays.copyOfRange(data, offset, offset + length));
+    }
+
+}
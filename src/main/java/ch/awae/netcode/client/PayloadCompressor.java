@@ -0,0 +1,25 @@
+package ch.awae.netcode.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * compresses encoded payloads of channels with compression enabled. A compressor is identified by its name, all members
+ * of a channel must have a compressor of that name registered.
+ *
+ * @see ChannelFeatures#setCompression(String)
+ * @see NetcodeClientFactory#addPayloadCompressor(PayloadCompressor)
+ */
+public interface PayloadCompressor {
+
+    /**
+     * the name identifying this compressor. Compressors with different settings that affect the output format (e.g. a
+     * preset dictionary) must use different names.
+     */
+    String getName();
+
+    void compress(byte[] data, int offset, int length, OutputStream out) throws IOException;
+
+    byte[] decompress(byte[] data, int offset, int length) throws IOException;
+
+}
@@ -1,34 +1,192 @@
 package ch.awae.netcode.client;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The pending questions of a client. A promise is removed as soon as it completes, no matter if it was answered,
+ * failed, cancelled or timed out. Responses without a pending promise are counted as late and discarded.
+ * <p>
+ * Promises are kept in a {@link PromiseTable} shared by all client references. Each promise knows its owner, so no
+ * per-question callbacks are registered.
+ */
 class PromiseManager<T> {
 
+    /**
+     * the client reference a question was asked through.
+     */
+    interface Owner {
+
+        /**
+         * called when the asker stops waiting for a response because the promise was cancelled or timed out.
+         */
+        void abandoned(long correlationId, boolean cancelled);
+
+    }
+
     private final AtomicLong nextCorrelationId = new AtomicLong(1);
-    private final ConcurrentHashMap<Long, CompletableFuture<T>> promises = new ConcurrentHashMap<>();
+    private final PromiseTable<Promise> promises = new PromiseTable<>();
+    private final HashedWheelTimer timer;
+    private final QuestionStatisticsImpl statistics;
+
+    PromiseManager(HashedWheelTimer timer, QuestionStatisticsImpl statistics) {
+        this.timer = timer;
+        this.statistics = statistics;
+    }
 
     long nextCorrelationId() {
         return nextCorrelationId.getAndIncrement();
     }
 
-    CompletableFuture<T> createPromise(long correlationId) {
-        CompletableFuture<T> promise = new CompletableFuture<>();
+    /**
+     * @param timeout the time in milliseconds after which the promise fails with a {@link TimeoutException}. 0 for
+     *                no timeout.
+     */
+    CompletableFuture<T> createPromise(long correlationId, long timeout, Owner owner) {
+        Promise promise = new Promise(correlationId, owner);
         promises.put(correlationId, promise);
+        statistics.asked();
+        if (timeout > 0) {
+            promise.expiry = timer.schedule(() -> expire(correlationId, timeout), timeout, TimeUnit.MILLISECONDS);
+        }
         return promise;
     }
 
-    void fulfill(long correlationId, T result) {
-        CompletableFuture<T> promise = promises.get(correlationId);
-        promise.complete(result);
-        promises.remove(correlationId);
+    private void expire(long correlationId, long timeout) {
+        Promise promise = promises.remove(correlationId);
+        if (promise != null && !promise.isDone()) {
+            // counted first, the waiting thread may look at the statistics right away
+            statistics.timedOut();
+            if (promise.resolveExceptionally(new TimeoutException("no response within " + timeout + "ms"))) {
+                promise.owner.abandoned(correlationId, false);
+            }
+        }
+    }
+
+    /**
+     * @return false if the promise no longer exists
+     */
+    boolean fulfill(long correlationId, T result) {
+        Promise promise = take(correlationId);
+        if (promise == null) {
+            return false;
+        }
+        promise.resolve(result);
+        return true;
+    }
+
+    /**
+     * @return false if the promise no longer exists
+     */
+    boolean fail(long correlationId, Throwable ex) {
+        Promise promise = take(correlationId);
+        if (promise == null) {
+            return false;
+        }
+        promise.resolveExceptionally(ex);
+        return true;
+    }
+
+    /**
+     * fails a promise whose question could not be sent. Not counted as a response.
+     */
+    void abort(long correlationId, Throwable ex) {
+        Promise promise = promises.remove(correlationId);
+        if (promise != null) {
+            promise.cancelExpiry();
+            promise.resolveExceptionally(ex);
+        }
+    }
+
+    private Promise take(long correlationId) {
+        Promise promise = promises.remove(correlationId);
+        if (promise == null || promise.isDone()) {
+            statistics.lateResponse();
+            return null;
+        }
+        statistics.answered();
+        promise.cancelExpiry();
+        return promise;
     }
 
-    void fail(long correlationId, Throwable ex) {
-        CompletableFuture<T> promise = promises.get(correlationId);
-        promise.completeExceptionally(ex);
-        promises.remove(correlationId);
+    /**
+     * cancels all pending promises of the owner.
+     */
+    void cancelAll(Owner owner) {
+        for (Promise promise : promises.removeIf(promise -> promise.owner == owner)) {
+            promise.cancel(false);
+        }
+    }
+
+    int size() {
+        return promises.size();
+    }
+
+    private final class Promise extends CompletableFuture<T> {
+
+        private final long correlationId;
+        private final Owner owner;
+        private volatile HashedWheelTimer.Timeout expiry;
+
+        Promise(long correlationId, Owner owner) {
+            this.correlationId = correlationId;
+            this.owner = owner;
+        }
+
+        void cancelExpiry() {
+            HashedWheelTimer.Timeout expiry = this.expiry;
+            if (expiry != null) {
+                expiry.cancel();
+            }
+        }
+
+        /**
+         * completes a promise that is no longer in the table.
+         */
+        void resolve(T value) {
+            super.complete(value);
+        }
+
+        boolean resolveExceptionally(Throwable ex) {
+            return super.completeExceptionally(ex);
+        }
+
+        private void detach() {
+            promises.remove(correlationId, this);
+            cancelExpiry();
+        }
+
+        // completed by the asker
+
+        @Override
+        public boolean complete(T value) {
+            boolean completed = super.complete(value);
+            if (completed) {
+                detach();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            if (completed) {
+                detach();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                detach();
+                owner.abandoned(correlationId, true);
+            }
+            return cancelled;
+        }
     }
 
 }
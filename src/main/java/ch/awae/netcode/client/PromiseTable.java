@@ -0,0 +1,227 @@
+package ch.awae.netcode.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A map from correlation ids to in-flight values without boxing. The table is split into stripes by the low bits of
+ * the id, so concurrent askers with consecutive ids rarely contend. Each stripe is an open addressing table with linear
+ * probing and backward shift deletion, guarded by its own lock.
+ */
+class PromiseTable<V> {
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeBits;
+
+    PromiseTable() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    PromiseTable(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 64)) * 2 - 1);
+        @SuppressWarnings("unchecked")
+        Stripe[] stripes = (Stripe[]) new PromiseTable<?>.Stripe[count];
+        this.stripes = stripes;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = count - 1;
+        stripeBits = Integer.numberOfTrailingZeros(count);
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) key & stripeMask];
+    }
+
+    private int hash(long key) {
+        // the low bits select the stripe, mix the rest
+        long h = (key >>> stripeBits) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return the previous value or null
+     */
+    V put(long key, V value) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            return stripe.put(key, hash(key), value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    V get(long key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            int index = stripe.find(key, hash(key));
+            return index < 0 ? null : stripe.values[index];
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the removed value or null
+     */
+    V remove(long key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            int index = stripe.find(key, hash(key));
+            if (index < 0) {
+                return null;
+            }
+            V value = stripe.values[index];
+            stripe.delete(index);
+            return value;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * removes the entry only if it is mapped to the given value.
+     */
+    boolean remove(long key, V value) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            int index = stripe.find(key, hash(key));
+            if (index < 0 || stripe.values[index] != value) {
+                return false;
+            }
+            stripe.delete(index);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * removes all matching values. Not atomic across stripes.
+     *
+     * @return the removed values
+     */
+    List<V> removeIf(Predicate<? super V> filter) {
+        List<V> removed = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                int index = 0;
+                while (index < stripe.values.length) {
+                    V value = stripe.values[index];
+                    if (value != null && filter.test(value)) {
+                        removed.add(value);
+                        // the next entry may have been shifted into this slot
+                        stripe.delete(index);
+                    } else {
+                        index++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private V[] values = newArray(INITIAL_STRIPE_CAPACITY);
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private V[] newArray(int capacity) {
+            return (V[]) new Object[capacity];
+        }
+
+        int find(long key, int hash) {
+            int mask = keys.length - 1;
+            for (int index = hash & mask; values[index] != null; index = (index + 1) & mask) {
+                if (keys[index] == key) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        V put(long key, int hash, V value) {
+            int index = find(key, hash);
+            if (index >= 0) {
+                V previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            // at most half full, probe sequences stay short
+            if (size + 1 > keys.length >> 1) {
+                resize();
+            }
+            insert(key, hash, value);
+            size++;
+            return null;
+        }
+
+        private void insert(long key, int hash, V value) {
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            V[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = newArray(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], hash(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+
+        void delete(int index) {
+            int mask = keys.length - 1;
+            values[index] = null;
+            size--;
+            // shift back following entries of the probe sequence so lookups never hit a gap
+            int gap = index;
+            for (int next = (index + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    values[next] = null;
+                    gap = next;
+                }
+            }
+        }
+    }
+
+}
@@ -1,25 +1,39 @@
 package ch.awae.netcode.client;
 
-import ch.awae.netcode.internal.ObjectStreams;
+import ch.awae.netcode.internal.CoalescingOutputStream;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.internal.Protocol;
 
 import java.io.IOException;
 import java.net.Socket;
 
 class ProtoClient {
 
-    private final ObjectStreams streams;
+    private final MessageStreams streams;
     private final Socket socket;
+    private final CoalescingOutputStream output;
+    private final int protocolVersion;
 
-    ProtoClient(Socket socket, ObjectStreams streams) throws IOException {
+    ProtoClient(Socket socket, MessageStreams streams, CoalescingOutputStream output, int protocolVersion) throws IOException {
         this.streams = streams;
         this.socket = socket;
+        this.output = output;
+        this.protocolVersion = protocolVersion;
     }
 
-    ObjectStreams getStreams() {
+    MessageStreams getStreams() {
         return streams;
     }
 
     Socket getSocket() {
         return socket;
     }
+
+    CoalescingOutputStream getOutput() {
+        return output;
+    }
+
+    boolean isFramed() {
+        return protocolVersion != Protocol.OBJECT_STREAM;
+    }
 }
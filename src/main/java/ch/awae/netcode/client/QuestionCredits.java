@@ -0,0 +1,242 @@
+package ch.awae.netcode.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The questions a client may still send to one user. Every client advertises how many questions of each other user it
+ * answers at once with QUESTION_CREDIT. Each response returns the credit of its question, a question that was
+ * cancelled before it was answered is returned with an explicit QUESTION_CREDIT. A local limit further bounds the
+ * questions in flight. Questions that can not be sent right away wait in a queue until a credit returns.
+ * <p>
+ * Clients of protocol version 2 never grant credits, so until the first grant arrives only the local limit applies.
+ * The first grant accounts for the questions already in flight.
+ */
+class QuestionCredits {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+
+    // granted by the remote and not used yet, only counted once the remote granted any
+    private int credits;
+    private boolean granted;
+    // sent and neither answered nor returned
+    private int inFlight;
+    private int limit = Integer.MAX_VALUE;
+    private boolean closed;
+
+    /**
+     * takes a credit if one is available and no queued question comes first.
+     */
+    boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (!closed && queue.isEmpty() && canSend()) {
+                take();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * waits for a credit.
+     *
+     * @param timeout in milliseconds, 0 waits forever
+     * @return false if no credit became available in time
+     */
+    boolean acquire(long timeout) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (closed || !queue.isEmpty() || !canSend()) {
+                if (closed) {
+                    throw new IllegalStateException("user no longer present");
+                }
+                if (timeout == 0) {
+                    available.await();
+                } else if (remaining <= 0) {
+                    return false;
+                } else {
+                    remaining = available.awaitNanos(remaining);
+                }
+            }
+            take();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * takes a credit or queues the question until one becomes available. A queued question is sent by whoever
+     * returns the credit, so sending must not block.
+     *
+     * @return true if a credit was taken and the caller sends the question itself
+     */
+    boolean acquireOrEnqueue(long correlationId, Runnable send) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("user no longer present");
+            }
+            if (queue.isEmpty() && canSend()) {
+                take();
+                return true;
+            }
+            queue.add(new Queued(correlationId, send));
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * removes a question that has not been sent yet.
+     *
+     * @return false if the question is not queued
+     */
+    boolean dequeue(long correlationId) {
+        lock.lock();
+        try {
+            Iterator<Queued> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().correlationId == correlationId) {
+                    iterator.remove();
+                    // a question waiting behind it may be able to go now
+                    available.signalAll();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * the remote accepts further questions.
+     */
+    void grant(int count) {
+        lock.lock();
+        try {
+            if (granted) {
+                credits += count;
+            } else {
+                // questions sent before the grant already use up part of it
+                granted = true;
+                credits = count - inFlight;
+            }
+        } finally {
+            lock.unlock();
+        }
+        sendQueued();
+    }
+
+    /**
+     * questions were answered or abandoned by the remote, or could not be sent.
+     */
+    void returned(int count) {
+        lock.lock();
+        try {
+            credits += count;
+            inFlight = Math.max(0, inFlight - count);
+        } finally {
+            lock.unlock();
+        }
+        sendQueued();
+    }
+
+    boolean isGranted() {
+        lock.lock();
+        try {
+            return granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setLimit(int limit) {
+        lock.lock();
+        try {
+            this.limit = limit;
+        } finally {
+            lock.unlock();
+        }
+        sendQueued();
+    }
+
+    /**
+     * drops all queued questions and wakes up waiting askers.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            queue.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canSend() {
+        return (!granted || credits > 0) && inFlight < limit;
+    }
+
+    private void take() {
+        if (granted) {
+            credits--;
+        }
+        inFlight++;
+    }
+
+    private void sendQueued() {
+        List<Runnable> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!closed && !queue.isEmpty() && canSend()) {
+                take();
+                ready.add(queue.poll().send);
+            }
+            if (canSend()) {
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // outside of the lock, sending may return the credit again
+        for (Runnable send : ready) {
+            send.run();
+        }
+    }
+
+    private static class Queued {
+
+        private final long correlationId;
+        private final Runnable send;
+
+        Queued(long correlationId, Runnable send) {
+            this.correlationId = correlationId;
+            this.send = send;
+        }
+    }
+
+}
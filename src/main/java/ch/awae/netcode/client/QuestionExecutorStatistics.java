@@ -0,0 +1,24 @@
+package ch.awae.netcode.client;
+
+/**
+ * Load of the executor answering the questions and remote calls of other users.
+ */
+public interface QuestionExecutorStatistics {
+
+    /**
+     * questions being handled right now.
+     */
+    int getActiveQuestions();
+
+    /**
+     * questions waiting for a thread of the executor.
+     */
+    int getQueuedQuestions();
+
+    /**
+     * questions answered with an {@link ch.awae.netcode.exception.OverloadedException} because the executor accepted
+     * no further tasks. Monotonic.
+     */
+    long getRejectedQuestions();
+
+}
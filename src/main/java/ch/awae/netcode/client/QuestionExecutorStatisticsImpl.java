@@ -0,0 +1,44 @@
+package ch.awae.netcode.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+class QuestionExecutorStatisticsImpl implements QuestionExecutorStatistics {
+
+    private final AtomicInteger activeQuestions = new AtomicInteger();
+    private final AtomicInteger queuedQuestions = new AtomicInteger();
+    private final LongAdder rejectedQuestions = new LongAdder();
+
+    void queued() {
+        queuedQuestions.incrementAndGet();
+    }
+
+    void rejected() {
+        queuedQuestions.decrementAndGet();
+        rejectedQuestions.increment();
+    }
+
+    void started() {
+        queuedQuestions.decrementAndGet();
+        activeQuestions.incrementAndGet();
+    }
+
+    void finished() {
+        activeQuestions.decrementAndGet();
+    }
+
+    @Override
+    public int getActiveQuestions() {
+        return activeQuestions.get();
+    }
+
+    @Override
+    public int getQueuedQuestions() {
+        return queuedQuestions.get();
+    }
+
+    @Override
+    public long getRejectedQuestions() {
+        return rejectedQuestions.sum();
+    }
+}
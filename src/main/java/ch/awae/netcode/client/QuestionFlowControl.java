@@ -0,0 +1,25 @@
+package ch.awae.netcode.client;
+
+/**
+ * decides what asking a question does if the user accepts no further questions right now, see
+ * {@link ClientReference#setQuestionFlowControl(QuestionFlowControl)}.
+ */
+public enum QuestionFlowControl {
+
+    /**
+     * the question waits in a local queue and is sent as soon as the user accepts it. Its timeout starts right away.
+     */
+    QUEUE,
+
+    /**
+     * asking blocks until the user accepts the question, at most for the timeout of the question. Must not be used on
+     * the thread that delivers messages, the credits arrive on that thread.
+     */
+    WAIT,
+
+    /**
+     * the question fails immediately with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    FAIL
+
+}
@@ -3,6 +3,11 @@ package ch.awae.netcode.client;
 import java.io.Serializable;
 import java.sql.Timestamp;
 
+/**
+ * answers questions asked with {@link ClientReference#askQuestion(Serializable)}. Each question is handled on a pool
+ * thread. If the asker cancels the question or stops waiting for the response, the handling thread is interrupted
+ * and the answer is discarded.
+ */
 @FunctionalInterface
 public interface QuestionHandler {
 
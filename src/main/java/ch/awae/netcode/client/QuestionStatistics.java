@@ -0,0 +1,33 @@
+package ch.awae.netcode.client;
+
+/**
+ * Counters of the questions asked by a client. All counters are monotonic.
+ */
+public interface QuestionStatistics {
+
+    long getAskedQuestions();
+
+    long getAnsweredQuestions();
+
+    /**
+     * questions that failed because no response arrived before their deadline.
+     */
+    long getTimedOutQuestions();
+
+    /**
+     * questions that were cancelled by the asker before a response arrived.
+     */
+    long getCancelledQuestions();
+
+    /**
+     * responses that arrived after their question had timed out or been cancelled. They are discarded.
+     */
+    long getLateResponses();
+
+    /**
+     * questions that were not sent because the user accepted no further questions and the flow control is
+     * {@link QuestionFlowControl#FAIL}.
+     */
+    long getRejectedQuestions();
+
+}
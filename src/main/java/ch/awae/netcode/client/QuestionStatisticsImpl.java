@@ -0,0 +1,67 @@
+package ch.awae.netcode.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class QuestionStatisticsImpl implements QuestionStatistics {
+
+    private final LongAdder askedQuestions = new LongAdder();
+    private final LongAdder answeredQuestions = new LongAdder();
+    private final LongAdder timedOutQuestions = new LongAdder();
+    private final LongAdder cancelledQuestions = new LongAdder();
+    private final LongAdder lateResponses = new LongAdder();
+    private final LongAdder rejectedQuestions = new LongAdder();
+
+    void asked() {
+        askedQuestions.increment();
+    }
+
+    void answered() {
+        answeredQuestions.increment();
+    }
+
+    void timedOut() {
+        timedOutQuestions.increment();
+    }
+
+    void cancelled() {
+        cancelledQuestions.increment();
+    }
+
+    void lateResponse() {
+        lateResponses.increment();
+    }
+
+    void rejected() {
+        rejectedQuestions.increment();
+    }
+
+    @Override
+    public long getAskedQuestions() {
+        return askedQuestions.sum();
+    }
+
+    @Override
+    public long getAnsweredQuestions() {
+        return answeredQuestions.sum();
+    }
+
+    @Override
+    public long getTimedOutQuestions() {
+        return timedOutQuestions.sum();
+    }
+
+    @Override
+    public long getCancelledQuestions() {
+        return cancelledQuestions.sum();
+    }
+
+    @Override
+    public long getLateResponses() {
+        return lateResponses.sum();
+    }
+
+    @Override
+    public long getRejectedQuestions() {
+        return rejectedQuestions.sum();
+    }
+}
@@ -0,0 +1,216 @@
+package ch.awae.netcode.client;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Encodes registered payload types with a small numeric type id and a hand-written codec instead of a full class
+ * descriptor. Unregistered types fall back to java serialization, so framework payloads like exceptions keep working.
+ * <p>
+ * All clients of a channel must register the same types under the same ids. The codec name is derived from the
+ * registrations, so mismatching registries are rejected when joining a channel. Registration must be completed
+ * before the codec is used.
+ */
+public class RegistryPayloadCodec implements PayloadCodec {
+
+    private static final int FALLBACK_ID = 0;
+
+    private final JavaPayloadCodec fallback = new JavaPayloadCodec();
+    private final Map<Class<?>, Registration<?>> byType = new HashMap<>();
+    private final Map<Integer, Registration<?>> byId = new TreeMap<>();
+
+    /**
+     * registers a type with a hand-written codec.
+     *
+     * @param id a positive id, unique within this registry
+     */
+    public synchronized <T extends Serializable> void register(int id, Class<T> type, TypeCodec<T> codec) {
+        if (id <= FALLBACK_ID) {
+            throw new IllegalArgumentException("type id must be positive: " + id);
+        }
+        if (byId.containsKey(id)) {
+            throw new IllegalArgumentException("type id already in use: " + id);
+        }
+        if (byType.containsKey(type)) {
+            throw new IllegalArgumentException("type already registered: " + type.getName());
+        }
+        Registration<T> registration = new Registration<>(id, type, codec);
+        byId.put(id, registration);
+        byType.put(type, registration);
+    }
+
+    /**
+     * registers an {@link Externalizable} type. Nested objects written through {@link ObjectOutput#writeObject} are
+     * encoded by this codec as well.
+     */
+    public <T extends Serializable & Externalizable> void register(int id, Class<T> type) {
+        register(id, type, new ExternalizableCodec<>(type));
+    }
+
+    @Override
+    public synchronized String getName() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Registration<?> registration : byId.values()) {
+            fingerprint.append(registration.id).append(':').append(registration.type.getName()).append(';');
+        }
+        return "registry-" + Integer.toHexString(fingerprint.toString().hashCode());
+    }
+
+    @Override
+    public byte[] encode(Serializable payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        write(payload, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(byte[] data) throws IOException, ClassNotFoundException {
+        return read(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    @Override
+    public void encode(Serializable payload, OutputStream out) throws IOException {
+        DataOutputStream dataStream = new DataOutputStream(out);
+        write(payload, dataStream);
+        dataStream.flush();
+    }
+
+    @Override
+    public Serializable decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+        return read(new DataInputStream(new ByteArrayInputStream(data, offset, length)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Object value, DataOutputStream out) throws IOException {
+        Registration<Object> registration = value == null ? null : (Registration<Object>) lookup(value.getClass());
+        if (registration == null) {
+            writeVarInt(out, FALLBACK_ID);
+            byte[] serialized = fallback.encode((Serializable) value);
+            writeVarInt(out, serialized.length);
+            out.write(serialized);
+        } else {
+            writeVarInt(out, registration.id);
+            registration.codec.write(value, out);
+        }
+    }
+
+    private Serializable read(DataInputStream in) throws IOException, ClassNotFoundException {
+        int id = readVarInt(in);
+        if (id == FALLBACK_ID) {
+            int length = readVarInt(in);
+            // the input is always an array, available() is the exact remainder
+            if (length < 0 || length > in.available()) {
+                throw new StreamCorruptedException("invalid length of serialized payload: " + length);
+            }
+            byte[] serialized = new byte[length];
+            in.readFully(serialized);
+            return fallback.decode(serialized);
+        }
+        Registration<?> registration = lookup(id);
+        if (registration == null) {
+            throw new InvalidClassException("unknown payload type id: " + id);
+        }
+        return (Serializable) registration.codec.read(in);
+    }
+
+    private synchronized Registration<?> lookup(Class<?> type) {
+        return byType.get(type);
+    }
+
+    private synchronized Registration<?> lookup(int id) {
+        return byId.get(id);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("malformed varint");
+    }
+
+    private static final class Registration<T> {
+
+        private final int id;
+        private final Class<T> type;
+        private final TypeCodec<T> codec;
+
+        Registration(int id, Class<T> type, TypeCodec<T> codec) {
+            this.id = id;
+            this.type = type;
+            this.codec = codec;
+        }
+    }
+
+    private final class ExternalizableCodec<T extends Externalizable> implements TypeCodec<T> {
+
+        private final Class<T> type;
+
+        ExternalizableCodec(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(T value, DataOutput out) throws IOException {
+            value.writeExternal(new NestedOutput((DataOutputStream) out));
+        }
+
+        @Override
+        public T read(DataInput in) throws IOException {
+            try {
+                T value = type.getConstructor().newInstance();
+                value.readExternal(new NestedInput((DataInputStream) in));
+                return value;
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } catch (ReflectiveOperationException e) {
+                throw new InvalidClassException(type.getName(), "cannot instantiate: " + e);
+            }
+        }
+    }
+
+    private final class NestedOutput extends DataOutputStream implements ObjectOutput {
+
+        private final DataOutputStream target;
+
+        NestedOutput(DataOutputStream target) {
+            super(target);
+            this.target = target;
+        }
+
+        @Override
+        public void writeObject(Object obj) throws IOException {
+            RegistryPayloadCodec.this.write(obj, target);
+        }
+    }
+
+    private final class NestedInput extends DataInputStream implements ObjectInput {
+
+        private final DataInputStream source;
+
+        NestedInput(DataInputStream source) {
+            super(source);
+            this.source = source;
+        }
+
+        @Override
+        public Object readObject() throws ClassNotFoundException, IOException {
+            return RegistryPayloadCodec.this.read(source);
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.client.binding.RemoteBatch;
+import ch.awae.netcode.client.binding.RemoteBindings;
+import ch.awae.netcode.exception.NetcodeException;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Proxies for beans bound by another client. Binding an interface asks the remote once for a binding id, calls then
+ * only send the binding id, the method id and the arguments. Each call waits for the result like a question, with the
+ * question timeout of the client.
+ */
+class RemoteBindingsImpl implements RemoteBindings {
+
+    private final ClientReferenceImpl reference;
+    // by (qualifier, interface)
+    private final ConcurrentHashMap<List<Object>, Integer> bindingIds = new ConcurrentHashMap<>();
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    RemoteBindingsImpl(ClientReferenceImpl reference) {
+        this.reference = reference;
+    }
+
+    @Override
+    public <T> T bindBean(Class<T> interfaceClass) {
+        return bindBean(null, interfaceClass);
+    }
+
+    @Override
+    public <T> T bindBean(String qualifier, Class<T> interfaceClass) {
+        BeanInterface beanInterface = BeanInterface.of(interfaceClass);
+        int bindingId = bind(qualifier, beanInterface);
+        Object proxy = Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[]{interfaceClass},
+                new RemoteBean(qualifier, beanInterface, bindingId));
+        return interfaceClass.cast(proxy);
+    }
+
+    @Override
+    public RemoteBatch startBatch() {
+        if (batches.get() != null) {
+            throw new IllegalStateException("a batch is already open on this thread");
+        }
+        Batch batch = new Batch();
+        batches.set(batch);
+        return batch;
+    }
+
+    /**
+     * binds the interface unless it already is, fails if the remote interface differs.
+     */
+    private int bind(String qualifier, BeanInterface beanInterface) {
+        List<Object> key = Arrays.asList(qualifier, beanInterface.getType());
+        Integer bindingId = bindingIds.get(key);
+        if (bindingId != null) {
+            return bindingId;
+        }
+        CompletableFuture<Serializable> result = reference.bind(new BindRequest(qualifier, beanInterface.getName(), beanInterface.getSignatures()));
+        try {
+            bindingId = (Integer) result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetcodeException) {
+                throw (NetcodeException) cause;
+            }
+            throw new NetcodeException("could not bind " + beanInterface.getName() + ": " + cause, cause);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new NetcodeException("interrupted while binding " + beanInterface.getName(), e);
+        }
+        // a concurrent bind may have won, both ids are valid
+        Integer previous = bindingIds.putIfAbsent(key, bindingId);
+        return previous != null ? previous : bindingId;
+    }
+
+    private final class RemoteBean implements InvocationHandler {
+
+        private final String qualifier;
+        private final BeanInterface beanInterface;
+        private final int bindingId;
+
+        RemoteBean(String qualifier, BeanInterface beanInterface, int bindingId) {
+            this.qualifier = qualifier;
+            this.beanInterface = beanInterface;
+            this.bindingId = bindingId;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeLocally(proxy, method, args);
+            }
+            int methodId = beanInterface.getMethodId(method);
+            Batch batch = batches.get();
+            if (batch != null && !beanInterface.isVoid(methodId)) {
+                throw new IllegalStateException("only void methods can be called in a batch: " + method.getName());
+            }
+            byte[] invocation;
+            try {
+                invocation = InvocationCodec.encode(bindingId, methodId, beanInterface.getParameterTypes(methodId), args,
+                        reference.getPayloadCodec());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("cannot send arguments of " + method.getName() + ": " + e, e);
+            }
+            if (batch != null) {
+                batch.invocations.add(invocation);
+                return null;
+            }
+            if (beanInterface.isOneWay(methodId)) {
+                reference.invokeOneWay(invocation);
+                return null;
+            }
+            CompletableFuture<? extends Serializable> result = reference.invoke(invocation);
+            return await(result, method.getName(), method.getExceptionTypes());
+        }
+
+        private Object invokeLocally(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "RemoteBean{" + beanInterface.getName() + (qualifier == null ? "" : ", " + qualifier) + "}";
+            }
+        }
+    }
+
+    private static Object await(CompletableFuture<?> result, String call, Class<?>[] declaredExceptions) throws Throwable {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(call, declaredExceptions, e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new NetcodeException("interrupted while waiting for " + call, e);
+        }
+    }
+
+    private static Throwable unwrap(String call, Class<?>[] declaredExceptions, Throwable cause) {
+        if (cause instanceof RuntimeException || cause instanceof Error) {
+            return cause;
+        }
+        for (Class<?> exceptionType : declaredExceptions) {
+            if (exceptionType.isInstance(cause)) {
+                return cause;
+            }
+        }
+        // timeouts and other checked exceptions the method does not declare
+        return new NetcodeException("remote call of " + call + " failed: " + cause, cause);
+    }
+
+    private final class Batch implements RemoteBatch {
+
+        private final List<byte[]> invocations = new ArrayList<>();
+        private CompletableFuture<Void> result;
+
+        @Override
+        public CompletableFuture<Void> submit() {
+            if (result != null) {
+                return result;
+            }
+            if (batches.get() == this) {
+                batches.remove();
+            }
+            if (invocations.isEmpty()) {
+                result = CompletableFuture.completedFuture(null);
+            } else {
+                // the response is the first failure, if any
+                result = reference.invokeAll(InvocationCodec.batch(invocations)).thenAccept(failure -> {
+                    if (failure != null) {
+                        throw new CompletionException((Throwable) failure);
+                    }
+                });
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            try {
+                await(submit(), "batch", new Class<?>[0]);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                // unwrap never returns a checked exception without declared types
+                throw new NetcodeException("remote batch failed: " + t, t);
+            }
+        }
+    }
+
+}
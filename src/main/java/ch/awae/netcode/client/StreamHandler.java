@@ -0,0 +1,17 @@
+package ch.awae.netcode.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+
+/**
+ * receives data streams sent with {@link ClientReference#sendStream(InputStream)}. Each stream is handled on its own
+ * thread. The stream only holds a few chunks at a time, the sender waits while the handler is not reading. Closing the
+ * stream early or throwing aborts the transfer.
+ */
+@FunctionalInterface
+public interface StreamHandler {
+
+    void handleStream(String sender, Timestamp timestamp, InputStream stream) throws IOException;
+
+}
@@ -0,0 +1,419 @@
+package ch.awae.netcode.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Chunked stream transfers between two clients. The sender announces a stream with STREAM_OPEN, sends the data in
+ * chunks of {@link #CHUNK_SIZE} bytes and finishes with STREAM_END (or STREAM_ABORT if its source fails). At most
+ * {@link #WINDOW} chunks are in flight: the receiver grants new credits with STREAM_CREDIT as its handler consumes them,
+ * or gives up with STREAM_CANCEL. Once the receiver has read the end of the stream it returns all outstanding
+ * credits, which completes the transfer for the sender. Chunks are relayed by the server like any other private packet, so memory use on
+ * all three parties is bounded by the window, not by the size of the transfer.
+ * <p>
+ * A sender that gets no credit for the stream timeout aborts the transfer, so a receiver that silently stops reading
+ * does not hold up a sending thread forever.
+ * <p>
+ * Small frames may overtake large ones on the way, so the short last chunk and STREAM_END can arrive before the
+ * chunks sent ahead of them. Each chunk starts with its sequence number and STREAM_END carries the number of chunks,
+ * the receiver puts the chunks back in order.
+ */
+class StreamManager {
+
+    private final static Logger LOG = Logger.getLogger(StreamManager.class.getName());
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int WINDOW = 16;
+
+    private static final int SEQUENCE_BYTES = 4;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final NetcodeClientImpl client;
+    private final ExecutorService executor;
+    private final long timeout;
+    private final AtomicLong nextStreamId = new AtomicLong();
+    private final ConcurrentMap<Long, OutgoingStream> outgoing = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IncomingStream> incoming = new ConcurrentHashMap<>();
+    private volatile StreamHandler handler;
+
+    /**
+     * @param timeout the time in milliseconds a sender waits for a credit, 0 waits forever
+     */
+    StreamManager(NetcodeClientImpl client, ExecutorService executor, StreamHandler handler, long timeout) {
+        this.client = client;
+        this.executor = executor;
+        this.handler = handler;
+        this.timeout = timeout;
+    }
+
+    void setHandler(StreamHandler handler) {
+        this.handler = handler;
+    }
+
+    CompletableFuture<Void> send(String userId, InputStream data) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        OutgoingStream stream = new OutgoingStream(userId, nextStreamId.incrementAndGet());
+        outgoing.put(stream.id, stream);
+        try {
+            executor.submit(() -> {
+                try {
+                    stream.transfer(data);
+                    future.complete(null);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    outgoing.remove(stream.id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            outgoing.remove(stream.id);
+            future.completeExceptionally(new IllegalStateException("client is inactive and can no longer be used"));
+        }
+        return future;
+    }
+
+    void process(NetcodePacketImpl packet) {
+        String sender = packet.getSenderId();
+        long id = packet.getCorrelationId();
+        switch (packet.getType()) {
+            case STREAM_OPEN:
+                open(sender, id, packet.getTimestamp());
+                break;
+            case STREAM_DATA:
+                withIncoming(sender, id, stream -> stream.chunkReceived(packet.getRawPayload()));
+                break;
+            case STREAM_END:
+                withIncoming(sender, id, stream -> stream.ended(packet.getRawPayload().getInt()));
+                break;
+            case STREAM_ABORT:
+                withIncoming(sender, id, stream -> stream.abort("aborted by sender: " + reason(packet)));
+                break;
+            case STREAM_CREDIT:
+                withOutgoing(sender, id, stream -> stream.credit(packet.getRawPayload().getInt()));
+                break;
+            case STREAM_CANCEL:
+                withOutgoing(sender, id, stream -> stream.abort("cancelled by receiver: " + reason(packet)));
+                break;
+            default:
+                throw new AssertionError("not a stream packet: " + packet.getType());
+        }
+    }
+
+    private void open(String sender, long id, Timestamp timestamp) {
+        StreamHandler handler = this.handler;
+        if (handler == null) {
+            client.offerRawPacket(sender, id, NetcodePacketType.STREAM_CANCEL, utf8("no stream handler exists on the remote"));
+            return;
+        }
+        IncomingStream stream = new IncomingStream(sender, id);
+        incoming.put(stream.key, stream);
+        try {
+            executor.submit(() -> {
+                try {
+                    handler.handleStream(sender, timestamp, stream);
+                } catch (Exception e) {
+                    LOG.warning("stream handler failed: " + e);
+                } finally {
+                    stream.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            incoming.remove(stream.key);
+        }
+    }
+
+    private void withIncoming(String sender, long id, Consumer<IncomingStream> action) {
+        // packets of streams the handler has already closed are dropped
+        IncomingStream stream = incoming.get(key(sender, id));
+        if (stream != null) {
+            action.accept(stream);
+        }
+    }
+
+    private void withOutgoing(String receiver, long id, Consumer<OutgoingStream> action) {
+        OutgoingStream stream = outgoing.get(id);
+        if (stream != null && stream.userId.equals(receiver)) {
+            action.accept(stream);
+        }
+    }
+
+    void userLeft(String userId) {
+        outgoing.values().stream().filter(stream -> stream.userId.equals(userId)).forEach(stream -> stream.abort("user left: " + userId));
+        incoming.values().stream().filter(stream -> stream.sender.equals(userId)).forEach(stream -> stream.abort("user left: " + userId));
+    }
+
+    void shutdown() {
+        outgoing.values().forEach(stream -> stream.abort("client disconnected"));
+        incoming.values().forEach(stream -> stream.abort("client disconnected"));
+    }
+
+    private static String key(String sender, long id) {
+        return sender + "/" + id;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String reason(NetcodePacketImpl packet) {
+        ByteBuffer payload = packet.getRawPayload();
+        return new String(payload.array(), payload.position(), payload.remaining(), StandardCharsets.UTF_8);
+    }
+
+    private final class OutgoingStream {
+
+        private final String userId;
+        private final long id;
+        private final Semaphore credits = new Semaphore(WINDOW);
+        private volatile String abortReason;
+
+        OutgoingStream(String userId, long id) {
+            this.userId = userId;
+            this.id = id;
+        }
+
+        void transfer(InputStream data) throws IOException, InterruptedException, TimeoutException {
+            send(NetcodePacketType.STREAM_OPEN, EMPTY);
+            byte[] buffer = new byte[SEQUENCE_BYTES + CHUNK_SIZE];
+            int sequence = 0;
+            try {
+                int length;
+                do {
+                    length = fill(data, buffer);
+                    if (length > 0) {
+                        acquire(1);
+                        ByteBuffer.wrap(buffer).putInt(0, sequence++);
+                        // sending is synchronous, the buffer can be reused afterwards
+                        send(NetcodePacketType.STREAM_DATA, length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, SEQUENCE_BYTES + length));
+                    }
+                } while (length == CHUNK_SIZE);
+            } catch (IOException e) {
+                if (abortReason == null) {
+                    client.offerRawPacket(userId, id, NetcodePacketType.STREAM_ABORT, utf8(String.valueOf(e.getMessage())));
+                }
+                throw e;
+            }
+            send(NetcodePacketType.STREAM_END, ByteBuffer.allocate(4).putInt(sequence).array());
+            // the receiver returns all credits once it has read the end of the stream
+            acquire(WINDOW);
+        }
+
+        private void acquire(int count) throws IOException, InterruptedException, TimeoutException {
+            if (timeout == 0) {
+                credits.acquire(count);
+            } else if (!credits.tryAcquire(count, timeout, TimeUnit.MILLISECONDS)) {
+                String reason = "receiver granted no credit within " + timeout + "ms";
+                client.offerRawPacket(userId, id, NetcodePacketType.STREAM_ABORT, utf8(reason));
+                throw new TimeoutException(reason);
+            }
+            verifyNotAborted();
+        }
+
+        private void send(NetcodePacketType type, byte[] payload) throws IOException {
+            try {
+                client.sendRawPacket(userId, id, type, payload);
+            } catch (RuntimeException e) {
+                throw new IOException(abortReason != null ? abortReason : e.getMessage(), e);
+            }
+        }
+
+        /**
+         * reads a chunk behind the sequence number.
+         */
+        private int fill(InputStream data, byte[] buffer) throws IOException {
+            int length = 0;
+            while (length < CHUNK_SIZE) {
+                int count = data.read(buffer, SEQUENCE_BYTES + length, CHUNK_SIZE - length);
+                if (count < 0) {
+                    break;
+                }
+                length += count;
+            }
+            return length;
+        }
+
+        private void verifyNotAborted() throws IOException {
+            if (abortReason != null) {
+                throw new IOException(abortReason);
+            }
+        }
+
+        void credit(int count) {
+            credits.release(count);
+        }
+
+        void abort(String reason) {
+            abortReason = reason;
+            // wake up the sender
+            credits.release(WINDOW);
+        }
+    }
+
+    private final class IncomingStream extends InputStream {
+
+        private final ByteBuffer END = ByteBuffer.allocate(0);
+        private final ByteBuffer ABORT = ByteBuffer.allocate(0);
+
+        private final String sender;
+        private final long id;
+        private final String key;
+        private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+        // chunks that overtook earlier ones by sequence number, only used by the reader thread
+        private final Map<Integer, ByteBuffer> early = new HashMap<>();
+        private int nextSequence;
+        private int chunkCount = -1;
+        private volatile String abortReason;
+        private ByteBuffer current;
+        private int consumed;
+        private boolean finished;
+
+        IncomingStream(String sender, long id) {
+            this.sender = sender;
+            this.id = id;
+            this.key = key(sender, id);
+        }
+
+        void chunkReceived(ByteBuffer chunk) {
+            if (chunks.size() + early.size() > WINDOW) {
+                cancel("window exceeded");
+                abort("window exceeded by sender");
+                return;
+            }
+            int sequence = chunk.getInt();
+            if (sequence != nextSequence) {
+                early.put(sequence, chunk);
+                return;
+            }
+            do {
+                chunks.add(chunk);
+                nextSequence++;
+            } while ((chunk = early.remove(nextSequence)) != null);
+            endIfComplete();
+        }
+
+        void ended(int chunkCount) {
+            this.chunkCount = chunkCount;
+            endIfComplete();
+        }
+
+        private void endIfComplete() {
+            if (nextSequence == chunkCount) {
+                chunks.add(END);
+            }
+        }
+
+        void abort(String reason) {
+            abortReason = reason;
+            incoming.remove(key);
+            chunks.add(ABORT);
+        }
+
+        private void cancel(String reason) {
+            client.offerRawPacket(sender, id, NetcodePacketType.STREAM_CANCEL, utf8(reason));
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int count = Math.min(len, current.remaining());
+            current.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.remaining();
+        }
+
+        /**
+         * @return false at the end of the stream
+         */
+        private boolean nextChunk() throws IOException {
+            while (current == null || !current.hasRemaining()) {
+                if (finished) {
+                    return false;
+                }
+                if (current != null) {
+                    current = null;
+                    chunkConsumed();
+                }
+                ByteBuffer chunk;
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while waiting for data", e);
+                }
+                if (chunk == END) {
+                    finished = true;
+                    incoming.remove(key);
+                    grantCredits();
+                    return false;
+                }
+                if (chunk == ABORT) {
+                    throw new IOException(abortReason);
+                }
+                current = chunk;
+            }
+            return true;
+        }
+
+        private void chunkConsumed() {
+            // credits are granted in batches of half a window to keep the control traffic low
+            if (++consumed >= WINDOW / 2) {
+                grantCredits();
+            }
+        }
+
+        private void grantCredits() {
+            ByteBuffer credit = ByteBuffer.allocate(4).putInt(consumed);
+            consumed = 0;
+            client.offerRawPacket(sender, id, NetcodePacketType.STREAM_CREDIT, credit.array());
+        }
+
+        @Override
+        public void close() {
+            if (!finished && abortReason == null) {
+                abortReason = "stream closed";
+                incoming.remove(key);
+                cancel("receiver closed the stream");
+            }
+            finished = true;
+            chunks.clear();
+        }
+    }
+
+}
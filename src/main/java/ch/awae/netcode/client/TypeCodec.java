@@ -0,0 +1,16 @@
+package ch.awae.netcode.client;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * hand-written encoding of a single payload type, see {@link RegistryPayloadCodec}.
+ */
+public interface TypeCodec<T> {
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+}
@@ -2,19 +2,17 @@ package ch.awae.netcode.client.binding;
 
 import java.util.*;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Lookups read an immutable snapshot of the registry without locking. Registrations are rare: they copy the
+ * registry, modify the copy and publish it as the new snapshot. The lists returned by lookups are built with the
+ * snapshot and shared, they are unmodifiable.
+ */
 class LocalBindingsImpl implements LocalBindings {
 
-    private final Map<Class<?>, Map<String, Object>> map;
-    private final Lock readLock, writeLock;
-
-    LocalBindingsImpl() {
-        map = new HashMap<>();
-        ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
-        readLock = lock.readLock();
-        writeLock = lock.writeLock();
-    }
+    private final Lock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>());
 
     @Override
     public <T> void register(String qualifier, T bean) {
@@ -29,14 +27,16 @@ class LocalBindingsImpl implements LocalBindings {
         writeLock.lock();
         try {
             verifyNoCollisions(qualifier, interfaces);
-            insertBean(qualifier, bean, interfaces);
+            Map<Class<?>, Map<String, Object>> map = snapshot.copy();
+            insertBean(map, qualifier, bean, interfaces);
+            snapshot = new Snapshot(map);
         } finally {
             writeLock.unlock();
         }
 
     }
 
-    private <T> void insertBean(String qualifier, T bean, Class<?>[] interfaces) {
+    private <T> void insertBean(Map<Class<?>, Map<String, Object>> map, String qualifier, T bean, Class<?>[] interfaces) {
         for (Class<?> anInterface : interfaces) {
             Map<String, Object> interfaceMap = map.computeIfAbsent(anInterface, k -> new HashMap<>());
             interfaceMap.put(qualifier, bean);
@@ -76,7 +76,9 @@ class LocalBindingsImpl implements LocalBindings {
         writeLock.lock();
         try {
             verifyNoCollisions(qualifier, explicitInterfaces);
-            insertBean(qualifier, bean, explicitInterfaces);
+            Map<Class<?>, Map<String, Object>> map = snapshot.copy();
+            insertBean(map, qualifier, bean, explicitInterfaces);
+            snapshot = new Snapshot(map);
         } finally {
             writeLock.unlock();
         }
@@ -103,12 +105,17 @@ class LocalBindingsImpl implements LocalBindings {
 
         writeLock.lock();
         try {
-                Map<String, Object> interfaceMap = map.get(beanInterface);
-                if (interfaceMap != null) {
-                    if (interfaceMap.remove(qualifier) != null) {
-                        deletions++;
-                    }
+            Map<Class<?>, Map<String, Object>> map = snapshot.copy();
+            Map<String, Object> interfaceMap = map.get(beanInterface);
+            if (interfaceMap != null) {
+                if (interfaceMap.remove(qualifier) != null) {
+                    deletions++;
+                }
+                if (interfaceMap.isEmpty()) {
+                    map.remove(beanInterface);
                 }
+            }
+            snapshot = new Snapshot(map);
         } finally {
             writeLock.unlock();
         }
@@ -125,6 +132,7 @@ class LocalBindingsImpl implements LocalBindings {
 
         writeLock.lock();
         try {
+            Map<Class<?>, Map<String, Object>> map = snapshot.copy();
             Class<?>[] interfaces = bean.getClass().getInterfaces();
             for (Class<?> anInterface : interfaces) {
                 List<String> toDelete = new ArrayList<>();
@@ -143,6 +151,7 @@ class LocalBindingsImpl implements LocalBindings {
                     map.remove(anInterface);
                 }
             }
+            snapshot = new Snapshot(map);
         } finally {
             writeLock.unlock();
         }
@@ -156,49 +165,52 @@ class LocalBindingsImpl implements LocalBindings {
     public <T> T getBean(String qualifier, Class<T> beanInterface) {
         Objects.requireNonNull(beanInterface);
         validateIsInterface(beanInterface);
-        readLock.lock();
-        try {
-            Map<String, Object> interfaceMap = map.get(beanInterface);
-            if (interfaceMap != null) {
-                return beanInterface.cast(interfaceMap.get(qualifier));
-            }
-            return null;
-        } finally {
-            readLock.unlock();
+        Map<String, Object> interfaceMap = snapshot.beans.get(beanInterface);
+        if (interfaceMap != null) {
+            return beanInterface.cast(interfaceMap.get(qualifier));
         }
+        return null;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> getBeans(Class<T> beanInterface) {
         Objects.requireNonNull(beanInterface);
         validateIsInterface(beanInterface);
-        readLock.lock();
-        try {
-            Map<String, Object> interfaceMap = map.get(beanInterface);
-            if (interfaceMap == null) {
-                return Collections.emptyList();
-            }
-            Set<T> set = new HashSet<>();
-
-            for (Object x : interfaceMap.values()) {
-                set.add(beanInterface.cast(x));
-            }
-
-            return new ArrayList<>(set);
-        } finally {
-            readLock.unlock();
-        }
+        // every bean in the list implements the interface
+        return (List<T>) snapshot.beansByInterface.getOrDefault(beanInterface, Collections.emptyList());
     }
 
     @Override
     public List<Object> getAllBeans() {
-        readLock.lock();
-        try {
-            Set<Object> set = new HashSet<>();
-            map.forEach((type, beans) -> set.addAll(beans.values()));
-            return new ArrayList<>(set);
-        } finally {
-            readLock.unlock();
+        return snapshot.allBeans;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Class<?>, Map<String, Object>> beans;
+        // distinct beans
+        private final Map<Class<?>, List<Object>> beansByInterface = new HashMap<>();
+        private final List<Object> allBeans;
+
+        Snapshot(Map<Class<?>, Map<String, Object>> beans) {
+            this.beans = beans;
+            Set<Object> all = new HashSet<>();
+            beans.forEach((type, qualified) -> {
+                Set<Object> distinct = new HashSet<>(qualified.values());
+                beansByInterface.put(type, Collections.unmodifiableList(new ArrayList<>(distinct)));
+                all.addAll(distinct);
+            });
+            this.allBeans = Collections.unmodifiableList(new ArrayList<>(all));
+        }
+
+        /**
+         * a deep copy that may be modified.
+         */
+        Map<Class<?>, Map<String, Object>> copy() {
+            Map<Class<?>, Map<String, Object>> copy = new HashMap<>();
+            beans.forEach((type, qualified) -> copy.put(type, new HashMap<>(qualified)));
+            return copy;
         }
     }
 }
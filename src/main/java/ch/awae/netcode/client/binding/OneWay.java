@@ -0,0 +1,17 @@
+package ch.awae.netcode.client.binding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a void method of a remotely bound interface as fire-and-forget. Calls return as soon as they are sent, the
+ * remote neither answers them nor reports failures. One-way calls are not ordered with respect to each other.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OneWay {
+}
@@ -0,0 +1,24 @@
+package ch.awae.netcode.client.binding;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the calls of void methods on beans of one {@link RemoteBindings} made by the current thread. The calls are
+ * sent as a single packet and run on the remote in order, with one response for the whole batch.
+ */
+public interface RemoteBatch extends AutoCloseable {
+
+    /**
+     * sends the collected calls and ends the batch.
+     *
+     * @return completes once all calls ran, exceptionally with the first failure
+     */
+    CompletableFuture<Void> submit();
+
+    /**
+     * submits the batch unless already submitted and waits for the calls to complete. Rethrows the first failure.
+     */
+    @Override
+    void close();
+
+}
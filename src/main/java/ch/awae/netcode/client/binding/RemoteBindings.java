@@ -6,4 +6,10 @@ public interface RemoteBindings {
 
     <T> T bindBean(String qualifier, Class<T> interfaceClass);
 
+    /**
+     * starts collecting calls of the current thread into a batch. Calls of methods that return a value are rejected
+     * while the batch is open.
+     */
+    RemoteBatch startBatch();
+
 }
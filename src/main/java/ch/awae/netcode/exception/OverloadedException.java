@@ -0,0 +1,13 @@
+package ch.awae.netcode.exception;
+
+/**
+ * the response to a question the remote did not answer because its question executor was saturated. The question was
+ * not handled and may be asked again later.
+ */
+public class OverloadedException extends NetcodeException {
+
+    public OverloadedException(String message) {
+        super(message, null);
+    }
+
+}
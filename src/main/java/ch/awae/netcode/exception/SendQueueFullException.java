@@ -0,0 +1,12 @@
+package ch.awae.netcode.exception;
+
+/**
+ * signals backpressure: an asynchronous send was rejected because the send queue of the client is full.
+ */
+public class SendQueueFullException extends NetcodeException {
+
+    public SendQueueFullException(String message) {
+        super(message, null);
+    }
+
+}
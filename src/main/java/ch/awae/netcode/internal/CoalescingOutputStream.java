@@ -0,0 +1,108 @@
+package ch.awae.netcode.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers writes to the socket so several small messages share one TCP segment. {@link #flush()} marks the end of a
+ * message and only reaches the socket while auto flush is enabled, otherwise the owner decides when to call
+ * {@link #flushBuffer()}. A full buffer is always written out.
+ */
+public class CoalescingOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private volatile boolean autoFlush = true;
+    // not synchronized: a virtual thread blocking in a monitor would pin its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CoalescingOutputStream(OutputStream out, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("buffer size must be positive");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        lock.lock();
+        try {
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (byte) b;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        lock.lock();
+        try {
+            if (len > buffer.length - count) {
+                drain();
+            }
+            if (len >= buffer.length) {
+                out.write(b, off, len);
+            } else {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (autoFlush) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * writes all buffered bytes to the socket.
+     */
+    public void flushBuffer() throws IOException {
+        lock.lock();
+        try {
+            drain();
+            out.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return count == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package ch.awae.netcode.internal;
+
+import ch.awae.netcode.client.ChannelFeatures;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+
+/**
+ * binary encodings of the protocol messages exchanged after the handshake. Strings are written as modified UTF-8,
+ * optional strings are preceded by a presence flag.
+ */
+final class ControlFrames {
+
+    private ControlFrames() {
+    }
+
+    /**
+     * @return the encoded frame or null if the object is not a control message
+     */
+    static byte[] encode(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[Frames.HEADER_LENGTH]);
+        byte kind;
+        if (object instanceof UserChangeMessage) {
+            UserChangeMessage message = (UserChangeMessage) object;
+            kind = Frames.USER_CHANGE;
+            out.writeUTF(message.getUser());
+            out.writeBoolean(message.isEntering());
+        } else if (object instanceof FullChannelInformation) {
+            FullChannelInformation information = (FullChannelInformation) object;
+            kind = Frames.CHANNEL_INFO;
+            out.writeUTF(information.getChannelId());
+            out.writeInt(information.getClientLimit());
+            String[] users = information.getUsers();
+            out.writeInt(users.length);
+            for (String user : users) {
+                out.writeUTF(user);
+            }
+            writeNullableString(out, information.getCompression());
+            out.writeInt(information.getCompressionThreshold());
+        } else if (object instanceof CreateChannelRequest) {
+            CreateChannelRequest request = (CreateChannelRequest) object;
+            kind = Frames.CREATE_CHANNEL;
+            out.writeUTF(request.getUserId());
+            writeFeatures(out, request.getFeatures());
+            writeNullableString(out, request.getPayloadCodec());
+        } else if (object instanceof JoinChannelRequest) {
+            JoinChannelRequest request = (JoinChannelRequest) object;
+            kind = Frames.JOIN_CHANNEL;
+            out.writeUTF(request.getUserId());
+            writeNullableString(out, request.getPassword());
+            out.writeUTF(request.getChannelId());
+            writeNullableString(out, request.getPayloadCodec());
+            writeNullableStringArray(out, request.getCompressions());
+        } else {
+            return null;
+        }
+        byte[] frame = bytes.toByteArray();
+        Frames.writeHeader(frame, frame.length - 4, kind);
+        return frame;
+    }
+
+    static Serializable decode(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(frame, Frames.HEADER_LENGTH, frame.length - Frames.HEADER_LENGTH));
+        switch (frame[4]) {
+            case Frames.USER_CHANGE:
+                return new UserChange(in.readUTF(), in.readBoolean());
+            case Frames.CHANNEL_INFO:
+                String channelId = in.readUTF();
+                int clientLimit = in.readInt();
+                int count = in.readInt();
+                if (count < 0 || count > frame.length) {
+                    throw new StreamCorruptedException("invalid user count: " + count);
+                }
+                String[] users = new String[count];
+                for (int i = 0; i < count; i++) {
+                    users[i] = in.readUTF();
+                }
+                return new ChannelInfo(channelId, clientLimit, users, readNullableString(in), in.readInt());
+            case Frames.CREATE_CHANNEL:
+                return new CreateChannel(in.readUTF(), readFeatures(in), readNullableString(in));
+            case Frames.JOIN_CHANNEL:
+                return new JoinChannel(in.readUTF(), readNullableString(in), in.readUTF(), readNullableString(in),
+                        readNullableStringArray(in, frame.length));
+            default:
+                throw new StreamCorruptedException("unknown frame kind: " + frame[4]);
+        }
+    }
+
+    private static void writeFeatures(DataOutputStream out, ChannelFeatures features) throws IOException {
+        out.writeInt(features.getClientLimit());
+        writeNullableString(out, features.getPassword());
+        writeNullableString(out, features.getCompression());
+        out.writeInt(features.getCompressionThreshold());
+    }
+
+    private static ChannelFeatures readFeatures(DataInputStream in) throws IOException {
+        ChannelFeatures features = new ChannelFeatures();
+        features.setClientLimit(in.readInt());
+        features.setPassword(readNullableString(in));
+        features.setCompression(readNullableString(in));
+        features.setCompressionThreshold(in.readInt());
+        return features;
+    }
+
+    static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableStringArray(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null) {
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static String[] readNullableStringArray(DataInputStream in, int limit) throws IOException {
+        int count = in.readInt();
+        if (count == -1) {
+            return null;
+        }
+        if (count < 0 || count > limit) {
+            throw new StreamCorruptedException("invalid array length: " + count);
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readUTF();
+        }
+        return values;
+    }
+
+    private static final class UserChange implements UserChangeMessage {
+
+        private final String user;
+        private final boolean entering;
+
+        UserChange(String user, boolean entering) {
+            this.user = user;
+            this.entering = entering;
+        }
+
+        @Override
+        public String getUser() {
+            return user;
+        }
+
+        @Override
+        public boolean isEntering() {
+            return entering;
+        }
+    }
+
+    private static final class ChannelInfo implements FullChannelInformation {
+
+        private final String channelId;
+        private final int clientLimit;
+        private final String[] users;
+        private final String compression;
+        private final int compressionThreshold;
+
+        ChannelInfo(String channelId, int clientLimit, String[] users, String compression, int compressionThreshold) {
+            this.channelId = channelId;
+            this.clientLimit = clientLimit;
+            this.users = users;
+            this.compression = compression;
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        @Override
+        public String[] getUsers() {
+            return users;
+        }
+
+        @Override
+        public String getChannelId() {
+            return channelId;
+        }
+
+        @Override
+        public int getClientLimit() {
+            return clientLimit;
+        }
+
+        @Override
+        public String getCompression() {
+            return compression;
+        }
+
+        @Override
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+    }
+
+    private static final class CreateChannel implements CreateChannelRequest {
+
+        private final String userId;
+        private final ChannelFeatures features;
+        private final String payloadCodec;
+
+        CreateChannel(String userId, ChannelFeatures features, String payloadCodec) {
+            this.userId = userId;
+            this.features = features;
+            this.payloadCodec = payloadCodec;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public ChannelFeatures getFeatures() {
+            return features;
+        }
+
+        @Override
+        public String getPayloadCodec() {
+            return payloadCodec;
+        }
+    }
+
+    private static final class JoinChannel implements JoinChannelRequest {
+
+        private final String userId;
+        private final String password;
+        private final String channelId;
+        private final String payloadCodec;
+        private final String[] compressions;
+
+        JoinChannel(String userId, String password, String channelId, String payloadCodec, String[] compressions) {
+            this.userId = userId;
+            this.password = password;
+            this.channelId = channelId;
+            this.payloadCodec = payloadCodec;
+            this.compressions = compressions;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String getChannelId() {
+            return channelId;
+        }
+
+        @Override
+        public String getPayloadCodec() {
+            return payloadCodec;
+        }
+
+        @Override
+        public String[] getCompressions() {
+            return compressions;
+        }
+    }
+
+}
@@ -7,4 +7,9 @@ import java.io.Serializable;
 public interface CreateChannelRequest extends Serializable {
     String getUserId();
     ChannelFeatures getFeatures();
+
+    /**
+     * the name of the payload codec used by the client, null for clients prior to 3.0.
+     */
+    String getPayloadCodec();
 }
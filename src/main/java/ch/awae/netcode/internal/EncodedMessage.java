@@ -0,0 +1,33 @@
+package ch.awae.netcode.internal;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A message that is sent to multiple recipients. The frame is encoded on first use and then shared by all framed
+ * recipients, object stream recipients still serialize the message themselves.
+ */
+public final class EncodedMessage {
+
+    private final Serializable message;
+    private byte[] frame;
+
+    public EncodedMessage(Serializable message) {
+        this.message = message;
+    }
+
+    public Serializable getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the encoded frame. Must not be modified.
+     */
+    public synchronized byte[] getFrame() throws IOException {
+        if (frame == null) {
+            frame = Frames.encode(message);
+        }
+        return frame;
+    }
+
+}
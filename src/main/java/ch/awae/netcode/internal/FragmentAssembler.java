@@ -0,0 +1,64 @@
+package ch.awae.netcode.internal;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reassembles the fragments produced by a {@link FragmentScheduler}. Fragmented frames are sent one after another, so
+ * at most one frame is incomplete at any time. The first fragment starts with the header of the original frame, so the
+ * frame is allocated once at its final size. Owned by the single reader of a connection, not thread safe.
+ */
+public final class FragmentAssembler {
+
+    private final int maxFrameSize;
+    private byte[] frame;
+    private int position;
+    private int id;
+
+    public FragmentAssembler() {
+        this(Frames.DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * @param maxFrameSize the largest reassembled frame that is accepted
+     */
+    public FragmentAssembler(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * @param fragment a complete {@link Frames#FRAGMENT} frame
+     * @return the reassembled frame once its last fragment has been added, null otherwise
+     */
+    public byte[] add(byte[] fragment) throws StreamCorruptedException {
+        if (fragment.length < FragmentScheduler.FRAGMENT_HEADER_LENGTH) {
+            throw new StreamCorruptedException("truncated fragment");
+        }
+        ByteBuffer data = ByteBuffer.wrap(fragment, Frames.HEADER_LENGTH, fragment.length - Frames.HEADER_LENGTH);
+        int fragmentId = data.getInt();
+        boolean last = data.get() != 0;
+        if (frame == null) {
+            if (data.remaining() < Frames.HEADER_LENGTH) {
+                throw new StreamCorruptedException("first fragment does not contain a frame header");
+            }
+            frame = new byte[Frames.frameLength(data.getInt(data.position()), maxFrameSize)];
+            position = 0;
+            id = fragmentId;
+        } else if (fragmentId != id) {
+            throw new StreamCorruptedException("fragment of frame " + fragmentId + " while reassembling frame " + id);
+        }
+        int count = data.remaining();
+        if (count > frame.length - position || (last && count != frame.length - position)) {
+            throw new StreamCorruptedException("fragments do not match the length of frame " + id);
+        }
+        data.get(frame, position, count);
+        position += count;
+        if (!last) {
+            return null;
+        }
+        byte[] complete = frame;
+        frame = null;
+        return complete;
+    }
+
+}
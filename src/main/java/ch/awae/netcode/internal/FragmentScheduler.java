@@ -0,0 +1,141 @@
+package ch.awae.netcode.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits large frames into {@link Frames#FRAGMENT} frames so a connection writer can interleave them with small
+ * frames. Large frames are sent one after another in the order they were added, small frames written in between
+ * overtake them. Owned by the single writer of a connection, not thread safe.
+ * <p>
+ * Frames carry an order key, e.g. the sender of a packet. A small frame may only overtake the pending frames if none of
+ * them has the same key (see {@link #isOrderedBehind(Object)}), otherwise it is added behind them and sent as a single
+ * fragment. A null key is ordered with every other key.
+ * <p>
+ * Fragment layout: the 4 byte id of the fragmented frame, a 1 byte flag marking the last fragment and up to
+ * {@link #FRAGMENT_SIZE} bytes of the original frame (including its header).
+ *
+ * @param <T> an attachment that is handed back once the last fragment of a frame has been taken
+ */
+public final class FragmentScheduler<T> {
+
+    public static final int FRAGMENT_SIZE = 16 * 1024;
+    static final int FRAGMENT_HEADER_LENGTH = Frames.HEADER_LENGTH + 5;
+    /**
+     * the size of the largest fragment frame. Readers must accept frames of at least this size.
+     */
+    public static final int MAX_FRAGMENT_LENGTH = FRAGMENT_HEADER_LENGTH + FRAGMENT_SIZE;
+
+    private static final int MAX_PENDING = 16;
+
+    private final ArrayDeque<Entry<T>> pending = new ArrayDeque<>();
+    private int nextId = 0;
+    private T completed;
+
+    /**
+     * @return true if the frame should be sent in fragments
+     */
+    public static boolean isLarge(byte[] frame) {
+        return frame.length > FRAGMENT_SIZE;
+    }
+
+    /**
+     * adds a frame that is ordered with all other frames.
+     */
+    public void add(byte[] frame, T attachment) {
+        add(frame, null, attachment);
+    }
+
+    public void add(byte[] frame, Object key, T attachment) {
+        pending.add(new Entry<>(nextId++, frame, key, attachment));
+    }
+
+    /**
+     * @return true if a frame with the given order key must not overtake the pending frames
+     */
+    public boolean isOrderedBehind(Object key) {
+        for (Entry<T> entry : pending) {
+            if (key == null || entry.key == null || key.equals(entry.key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasFragments() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * @return true if the writer should stop taking new frames until some fragments have been written
+     */
+    public boolean isFull() {
+        return pending.size() >= MAX_PENDING;
+    }
+
+    /**
+     * @return the next fragment of the oldest large frame
+     */
+    public byte[] nextFragment() {
+        Entry<T> entry = pending.element();
+        int count = Math.min(FRAGMENT_SIZE, entry.frame.length - entry.position);
+        boolean last = entry.position + count == entry.frame.length;
+
+        byte[] fragment = new byte[FRAGMENT_HEADER_LENGTH + count];
+        Frames.writeHeader(fragment, fragment.length - 4, Frames.FRAGMENT);
+        fragment[5] = (byte) (entry.id >>> 24);
+        fragment[6] = (byte) (entry.id >>> 16);
+        fragment[7] = (byte) (entry.id >>> 8);
+        fragment[8] = (byte) entry.id;
+        fragment[9] = (byte) (last ? 1 : 0);
+        System.arraycopy(entry.frame, entry.position, fragment, FRAGMENT_HEADER_LENGTH, count);
+        entry.position += count;
+
+        completed = null;
+        if (last) {
+            pending.remove();
+            completed = entry.attachment;
+        }
+        return fragment;
+    }
+
+    /**
+     * @return the attachment of the frame completed by the last call to {@link #nextFragment()}, if any
+     */
+    public T getCompleted() {
+        return completed;
+    }
+
+    /**
+     * discards all pending frames.
+     *
+     * @return the attachments of the discarded frames
+     */
+    public List<T> clear() {
+        List<T> attachments = new ArrayList<>(pending.size());
+        for (Entry<T> entry : pending) {
+            attachments.add(entry.attachment);
+        }
+        pending.clear();
+        completed = null;
+        return attachments;
+    }
+
+    private static final class Entry<T> {
+
+        private final int id;
+        private final byte[] frame;
+        private final Object key;
+        private final T attachment;
+        private int position;
+
+        Entry(int id, byte[] frame, Object key, T attachment) {
+            this.id = id;
+            this.frame = frame;
+            this.key = key;
+            this.attachment = attachment;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package ch.awae.netcode.internal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FramedStreams implements MessageStreams {
+
+    private final DataInputStream inputStream;
+    private final OutputStream outputStream;
+    // not synchronized: a virtual thread blocking in a monitor would pin its carrier thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final int maxFrameSize;
+    private final FragmentAssembler assembler;
+
+    public FramedStreams(InputStream input, OutputStream output) {
+        this(input, output, Frames.DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * @param maxFrameSize the largest frame that is read, larger frames fail with a {@link StreamCorruptedException}
+     */
+    public FramedStreams(InputStream input, OutputStream output, int maxFrameSize) {
+        this.inputStream = new DataInputStream(input);
+        this.outputStream = output;
+        this.maxFrameSize = maxFrameSize;
+        this.assembler = new FragmentAssembler(maxFrameSize);
+    }
+
+    @Override
+    public void write(Serializable object) throws IOException {
+        writeFrame(Frames.encode(object));
+    }
+
+    @Override
+    public void writeEncoded(EncodedMessage message) throws IOException {
+        writeFrame(message.getFrame());
+    }
+
+    @Override
+    public void writeFrame(byte[] frame) throws IOException {
+        writeLock.lock();
+        try {
+            outputStream.write(frame);
+            outputStream.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Serializable read() throws IOException, ClassNotFoundException {
+        byte[] frame;
+        do {
+            int length = inputStream.readInt();
+            frame = new byte[Frames.frameLength(length, maxFrameSize)];
+            ByteBuffer.wrap(frame).putInt(length);
+            inputStream.readFully(frame, 4, length);
+            if (frame[4] == Frames.FRAGMENT) {
+                frame = assembler.add(frame);
+            }
+        } while (frame == null);
+        return Frames.decode(frame);
+    }
+
+    @Override
+    public void close() {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
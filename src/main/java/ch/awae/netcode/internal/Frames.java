@@ -0,0 +1,101 @@
+package ch.awae.netcode.internal;
+
+import java.io.*;
+
+/**
+ * Frame layout: a 4 byte length (covering everything after the length field), a 1 byte frame kind and the body.
+ * Every frame is self-contained, i.e. it can be decoded without any knowledge of previous frames.
+ * <p>
+ * Packets are sent as {@link #PACKET} frames (see {@link PacketFrame}), protocol messages use their own binary frame
+ * kinds (see {@link ControlFrames}). Everything else, e.g. errors, is sent as serialized objects.
+ * <p>
+ * Large frames may be split into {@link #FRAGMENT} frames by the writer (see {@link FragmentScheduler}). Fragments
+ * are reassembled by the reader of the connection before decoding (see {@link FragmentAssembler}), they never reach
+ * {@link #decode(byte[])}.
+ */
+public final class Frames {
+
+    public static final int HEADER_LENGTH = 5;
+
+    /**
+     * the default upper bound for the size of a complete frame (including its header) a reader accepts.
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    public static final byte OBJECT = 0;
+    public static final byte PACKET = 1;
+    public static final byte USER_CHANGE = 2;
+    public static final byte CHANNEL_INFO = 3;
+    public static final byte CREATE_CHANNEL = 4;
+    public static final byte JOIN_CHANNEL = 5;
+    public static final byte FRAGMENT = 6;
+
+    private Frames() {
+    }
+
+    public static byte[] encode(Serializable object) throws IOException {
+        if (object instanceof NetcodePacket) {
+            return ((NetcodePacket) object).toFrame().getFrame();
+        }
+        byte[] control = ControlFrames.encode(object);
+        if (control != null) {
+            return control;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(new byte[HEADER_LENGTH]);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        byte[] frame = bytes.toByteArray();
+        writeHeader(frame, frame.length - 4, OBJECT);
+        return frame;
+    }
+
+    static void writeHeader(byte[] frame, int length, byte kind) {
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        frame[4] = kind;
+    }
+
+    /**
+     * @param length       the length field of a frame
+     * @param maxFrameSize the largest complete frame the reader accepts
+     * @return the length of the complete frame
+     * @throws StreamCorruptedException if the frame would be empty or larger than the limit. This is checked before
+     *                                  any buffer is allocated for the frame.
+     */
+    public static int frameLength(int length, int maxFrameSize) throws StreamCorruptedException {
+        if (length < 1) {
+            throw new StreamCorruptedException("invalid frame length: " + length);
+        }
+        if (length > maxFrameSize - 4) {
+            throw new StreamCorruptedException("frame length " + length + " exceeds the limit of " + maxFrameSize + " bytes");
+        }
+        return length + 4;
+    }
+
+    /**
+     * @param frame the complete frame including the frame header
+     */
+    public static Serializable decode(byte[] frame) throws IOException, ClassNotFoundException {
+        switch (frame[4]) {
+            case OBJECT:
+                ByteArrayInputStream bytes = new ByteArrayInputStream(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+                try (ObjectInputStream in = new ObjectInputStream(bytes)) {
+                    return (Serializable) in.readObject();
+                }
+            case PACKET:
+                return PacketFrame.decode(frame);
+            case USER_CHANGE:
+            case CHANNEL_INFO:
+            case CREATE_CHANNEL:
+            case JOIN_CHANNEL:
+                return ControlFrames.decode(frame);
+            default:
+                throw new StreamCorruptedException("unknown frame kind: " + frame[4]);
+        }
+    }
+
+}
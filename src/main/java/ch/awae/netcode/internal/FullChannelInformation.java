@@ -4,4 +4,11 @@ import ch.awae.netcode.client.ChannelInformation;
 
 public interface FullChannelInformation extends ChannelInformation {
     String[] getUsers();
+
+    /**
+     * the name of the payload compressor of the channel, null if compression is disabled or the server predates 3.0.
+     */
+    String getCompression();
+
+    int getCompressionThreshold();
 }
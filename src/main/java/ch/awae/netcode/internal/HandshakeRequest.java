@@ -4,4 +4,5 @@ import java.io.Serializable;
 
 public interface HandshakeRequest extends Serializable {
     String getAppId();
+    int getProtocolVersion();
 }
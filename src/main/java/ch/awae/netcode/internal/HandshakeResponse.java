@@ -0,0 +1,7 @@
+package ch.awae.netcode.internal;
+
+import java.io.Serializable;
+
+public interface HandshakeResponse extends Serializable {
+    int getProtocolVersion();
+}
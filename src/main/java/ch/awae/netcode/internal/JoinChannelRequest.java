@@ -6,4 +6,14 @@ public interface JoinChannelRequest extends Serializable {
     String getUserId();
     String getPassword();
     String getChannelId();
+
+    /**
+     * the name of the payload codec used by the client, null for clients prior to 3.0.
+     */
+    String getPayloadCodec();
+
+    /**
+     * the names of the payload compressors supported by the client, null for clients prior to 3.0.
+     */
+    String[] getCompressions();
 }
@@ -0,0 +1,144 @@
+package ch.awae.netcode.internal;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A packet as the server writes it to clients that do not support framing. These clients only know the packet class
+ * of 2.x, {@link ObjectStreams} writes this class under that name, so the server does not depend on the packet class
+ * of the client. The fields are the serialized form of the 2.x packet.
+ */
+public final class LegacyPacket implements Serializable {
+
+    // the serialized name and version of the 2.x packet class
+    static final String CLASS_NAME = "ch.awae.netcode.client.NetcodePacketImpl";
+    static final long CLASS_VERSION = 4880349937298993669L;
+
+    private static final long serialVersionUID = CLASS_VERSION;
+
+    // the wire ids of the packet types 2.x clients know, and of batches, which are split into messages for them
+    private static final int MESSAGE = 0;
+    private static final int RESPONSE = 2;
+    private static final int BATCH = 3;
+    private static final int STREAM_OPEN = 4;
+    private static final byte STREAM_CANCEL = 9;
+    private static final int INVOCATION = 12;
+    private static final int INVOCATION_BATCH = 14;
+    private static final byte REJECTED = 15;
+
+    /**
+     * the packet types of 2.x, in the order of their wire ids.
+     */
+    enum Type {
+        MESSAGE, QUESTION, RESPONSE;
+
+        // the serialized name of the 2.x packet type
+        static final String CLASS_NAME = "ch.awae.netcode.client.NetcodePacketType";
+    }
+
+    private final Timestamp timestamp;
+    private final String senderId, destinationId;
+    private final long correlationId;
+    private final Type type;
+    private final byte[] payload;
+
+    private LegacyPacket(Timestamp timestamp, String senderId, String destinationId, long correlationId, Type type,
+                         byte[] payload) {
+        this.timestamp = timestamp;
+        this.senderId = senderId;
+        this.destinationId = destinationId;
+        this.correlationId = correlationId;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * converts a frame for clients that do not support framing. Batches are split into plain messages, as these clients
+     * do not know them. Packets of any other type these clients do not know are dropped, as they could not decode them.
+     */
+    public static List<LegacyPacket> fromFrame(PacketFrame frame) throws IOException {
+        int type = frame.getType();
+        if (type >= MESSAGE && type <= RESPONSE) {
+            return Collections.singletonList(new LegacyPacket(frame.getTimestamp(), frame.getSenderId(),
+                    frame.getDestinationId(), frame.getCorrelationId(), Type.values()[type], frame.getPayload()));
+        }
+        if (type != BATCH) {
+            return Collections.emptyList();
+        }
+        List<LegacyPacket> packets = new ArrayList<>();
+        byte[] bytes = frame.getFrame();
+        int offset = frame.getPayloadOffset();
+        try {
+            PacketBatch.forEach(bytes, offset, bytes.length - offset, (data, entryOffset, length) -> packets.add(
+                    new LegacyPacket(frame.getTimestamp(), frame.getSenderId(), frame.getDestinationId(), -1,
+                            Type.MESSAGE, Arrays.copyOfRange(data, entryOffset, entryOffset + length))));
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+        return packets;
+    }
+
+    /**
+     * answers a packet that is dropped for a client that does not support framing, if the sender of the packet would
+     * otherwise wait for an answer forever.
+     *
+     * @return the answer to send back to the sender, or null
+     */
+    public static PacketFrame rejection(NetcodePacket packet) throws IOException {
+        int type = packet.getTypeId();
+        if (type == STREAM_OPEN) {
+            // as if the receiver had cancelled the stream
+            return answer(packet.toFrame(), STREAM_CANCEL, "streams are not supported by ");
+        }
+        if (type >= INVOCATION && type <= INVOCATION_BATCH) {
+            PacketFrame frame = packet.toFrame();
+            // one-way calls have no correlation id, nobody waits for them
+            return frame.getCorrelationId() < 0 ? null
+                    : answer(frame, REJECTED, "remote bindings are not supported by ");
+        }
+        return null;
+    }
+
+    private static PacketFrame answer(PacketFrame frame, byte type, String reason) throws IOException {
+        byte[] payload = (reason + frame.getDestinationId()).getBytes(StandardCharsets.UTF_8);
+        return PacketFrame.encode(frame.getSenderId(), frame.getDestinationId(), type, frame.getCorrelationId(),
+                frame.getTimestamp(), payload);
+    }
+
+    /**
+     * @return the serialized name of a class 2.x clients know under another name, or null
+     */
+    static String legacyName(Class<?> type) {
+        if (type == LegacyPacket.class) {
+            return CLASS_NAME;
+        }
+        return type == Type.class ? Type.CLASS_NAME : null;
+    }
+
+    String getSenderId() {
+        return senderId;
+    }
+
+    String getDestinationId() {
+        return destinationId;
+    }
+
+    long getCorrelationId() {
+        return correlationId;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+}
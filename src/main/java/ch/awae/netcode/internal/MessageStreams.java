@@ -0,0 +1,36 @@
+package ch.awae.netcode.internal;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+public interface MessageStreams {
+
+    void write(Serializable object) throws IOException;
+
+    default void writeEncoded(EncodedMessage message) throws IOException {
+        write(message.getMessage());
+    }
+
+    /**
+     * writes an encoded frame as it is. Only supported by framed streams.
+     */
+    default void writeFrame(byte[] frame) throws IOException {
+        throw new UnsupportedOperationException("raw frames require a framed protocol");
+    }
+
+    Serializable read() throws IOException, ClassNotFoundException;
+
+    default <T extends Serializable> T read(Class<T> clazz) throws IOException, ClassNotFoundException {
+        return clazz.cast(read());
+    }
+
+    /**
+     * the number of objects retained by the stream for back-references. Always 0 for self-contained encodings.
+     */
+    default int getHandleTableSize() {
+        return 0;
+    }
+
+    void close();
+
+}
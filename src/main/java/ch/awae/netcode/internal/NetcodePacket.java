@@ -1,9 +1,29 @@
 package ch.awae.netcode.internal;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 public interface NetcodePacket extends Serializable {
 
     String getDestinationId();
 
+    String getSenderId();
+
+    /**
+     * @return the packet type as sent on the wire
+     */
+    int getTypeId();
+
+    /**
+     * @return true for plain messages and batches of them. Other packets carry protocol state, e.g. a response a
+     * question waits for
+     */
+    default boolean isMessage() {
+        int type = getTypeId();
+        // the ids of MESSAGE and BATCH
+        return type == 0 || type == 3;
+    }
+
+    PacketFrame toFrame() throws IOException;
+
 }
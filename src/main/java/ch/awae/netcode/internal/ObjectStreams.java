@@ -1,34 +1,95 @@
 package ch.awae.netcode.internal;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.Socket;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class ObjectStreams {
+public class ObjectStreams implements MessageStreams {
 
     private final ObjectInputStream inputStream;
-    private final ObjectOutputStream outputStream;
+    private final HandleCountingOutputStream outputStream;
+    private final ByteCountingOutputStream byteCounter;
+    private final ResetPolicy resetPolicy;
+    // not synchronized: a virtual thread blocking in a monitor would pin its carrier thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private int messagesSinceReset = 0;
+    private long bytesAtReset = 0;
+    private long lastWrite = System.currentTimeMillis();
 
     public ObjectStreams(Socket socket) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    public ObjectStreams(Socket socket, ResetPolicy resetPolicy) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream(), resetPolicy);
+    }
+
+    public ObjectStreams(InputStream input, OutputStream output) throws IOException {
+        this(input, output, ResetPolicy.DEFAULT);
+    }
+
+    public ObjectStreams(InputStream input, OutputStream output, ResetPolicy resetPolicy) throws IOException {
+        this.resetPolicy = resetPolicy;
+        this.byteCounter = new ByteCountingOutputStream(output);
         // order is important: if both sides first open the input stream, they will deadlock
-        outputStream = new ObjectOutputStream(socket.getOutputStream());
-        inputStream = new ObjectInputStream(socket.getInputStream());
+        outputStream = new HandleCountingOutputStream(byteCounter);
+        // the header must reach the peer even if the output is buffered
+        outputStream.flush();
+        inputStream = new ObjectInputStream(input);
     }
 
+    @Override
     public void write(Serializable object) throws IOException {
-        outputStream.writeObject(object);
+        writeLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (messagesSinceReset > 0 && resetPolicy.isIdle(now - lastWrite)) {
+                // a new burst starts: drop the references of the previous one
+                reset();
+            }
+            outputStream.writeObject(object);
+            messagesSinceReset++;
+            lastWrite = now;
+            if (resetPolicy.isExceeded(messagesSinceReset, byteCounter.count - bytesAtReset)) {
+                reset();
+            }
+            outputStream.flush();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
-    public Serializable read() throws IOException, ClassNotFoundException {
-        return (Serializable) inputStream.readObject();
+    private void reset() throws IOException {
+        outputStream.reset();
+        outputStream.handles = 0;
+        messagesSinceReset = 0;
+        bytesAtReset = byteCounter.count;
+    }
+
+    /**
+     * the number of objects currently held by the back-reference table of the output stream. Class descriptors are
+     * not included.
+     */
+    @Override
+    public int getHandleTableSize() {
+        return outputStream.handles;
     }
 
-    public <T extends Serializable> T read(Class<T> clazz) throws IOException, ClassNotFoundException {
-        return clazz.cast(read());
+    @Override
+    public Serializable read() throws IOException, ClassNotFoundException {
+        return (Serializable) inputStream.readObject();
     }
 
+    @Override
     public void close() {
         try {
             inputStream.close();
@@ -41,4 +102,70 @@ public class ObjectStreams {
             e.printStackTrace();
         }
     }
+
+    private static final class HandleCountingOutputStream extends ObjectOutputStream {
+
+        // only objects that are not yet in the table are passed to replaceObject
+        private volatile int handles = 0;
+
+        HandleCountingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            handles++;
+            return obj;
+        }
+
+        /**
+         * writes the classes of {@link LegacyPacket} under the names 2.x clients know. Otherwise like the default.
+         */
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            String legacyName = LegacyPacket.legacyName(desc.forClass());
+            if (legacyName == null) {
+                super.writeClassDescriptor(desc);
+                return;
+            }
+            boolean isEnum = desc.forClass().isEnum();
+            writeUTF(legacyName);
+            // enums always have version 0
+            writeLong(isEnum ? 0L : LegacyPacket.CLASS_VERSION);
+            writeByte(isEnum ? SC_SERIALIZABLE | SC_ENUM : SC_SERIALIZABLE);
+            ObjectStreamField[] fields = desc.getFields();
+            writeShort(fields.length);
+            for (ObjectStreamField field : fields) {
+                writeByte(field.getTypeCode());
+                writeUTF(field.getName());
+                if (!field.isPrimitive()) {
+                    String typeName = LegacyPacket.legacyName(field.getType());
+                    // shares the back-references of the default type strings
+                    writeObject(typeName == null ? field.getTypeString() : "L" + typeName.replace('.', '/') + ";");
+                }
+            }
+        }
+    }
+
+    private static final class ByteCountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        ByteCountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package ch.awae.netcode.internal;
+
+import ch.awae.netcode.client.PayloadCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * payload layout of batch packets: a 4 byte entry count followed by the entries, each a 4 byte length and the encoded
+ * payload. Every entry is exactly the payload a single message packet would carry.
+ */
+public final class PacketBatch {
+
+    private PacketBatch() {
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(byte[] data, int offset, int length) throws IOException, ClassNotFoundException;
+    }
+
+    public static PacketFrame.PayloadWriter writer(List<? extends Serializable> payloads, PayloadCodec codec) {
+        return out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(payloads.size());
+            ByteArrayOutputStream entry = new ByteArrayOutputStream(256);
+            for (Serializable payload : payloads) {
+                entry.reset();
+                codec.encode(payload, entry);
+                data.writeInt(entry.size());
+                entry.writeTo(data);
+            }
+            data.flush();
+        };
+    }
+
+    public static void forEach(byte[] data, int offset, int length, EntryVisitor visitor) throws IOException, ClassNotFoundException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        int count = readLength(buffer);
+        for (int i = 0; i < count; i++) {
+            int entryLength = readLength(buffer);
+            if (entryLength > buffer.remaining()) {
+                throw new StreamCorruptedException("truncated batch entry");
+            }
+            visitor.visit(data, buffer.position(), entryLength);
+            buffer.position(buffer.position() + entryLength);
+        }
+    }
+
+    private static int readLength(ByteBuffer buffer) throws StreamCorruptedException {
+        if (buffer.remaining() < 4) {
+            throw new StreamCorruptedException("truncated batch");
+        }
+        int value = buffer.getInt();
+        if (value < 0 || value > buffer.capacity()) {
+            throw new StreamCorruptedException("invalid batch length: " + value);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,143 @@
+package ch.awae.netcode.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * A packet in its framed representation. The routing header is decoded eagerly, the payload is kept as an opaque
+ * slice of the frame so the server can relay the frame without ever deserializing it.
+ * <p>
+ * Header layout: destination and sender (each a presence flag followed by a UTF string), a 1 byte packet type, the
+ * 8 byte correlation id and the timestamp as 8 byte epoch millis and 4 byte nanos. The payload fills the rest.
+ */
+public final class PacketFrame implements NetcodePacket {
+
+    private static final long serialVersionUID = -2916395245419024877L;
+
+    private final byte[] frame;
+    private final String destinationId;
+    private final String senderId;
+    private final byte type;
+    private final long correlationId;
+    private final long timestampMillis;
+    private final int timestampNanos;
+    private final int payloadOffset;
+
+    private PacketFrame(byte[] frame, String destinationId, String senderId, byte type, long correlationId,
+                        long timestampMillis, int timestampNanos, int payloadOffset) {
+        this.frame = frame;
+        this.destinationId = destinationId;
+        this.senderId = senderId;
+        this.type = type;
+        this.correlationId = correlationId;
+        this.timestampMillis = timestampMillis;
+        this.timestampNanos = timestampNanos;
+        this.payloadOffset = payloadOffset;
+    }
+
+    /**
+     * writes the payload of a packet directly into the frame.
+     */
+    @FunctionalInterface
+    public interface PayloadWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    public static PacketFrame encode(String destinationId, String senderId, byte type, long correlationId,
+                                     Timestamp timestamp, byte[] payload) throws IOException {
+        return encode(destinationId, senderId, type, correlationId, timestamp, out -> out.write(payload));
+    }
+
+    public static PacketFrame encode(String destinationId, String senderId, byte type, long correlationId,
+                                     Timestamp timestamp, PayloadWriter payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[Frames.HEADER_LENGTH]);
+        ControlFrames.writeNullableString(out, destinationId);
+        ControlFrames.writeNullableString(out, senderId);
+        out.writeByte(type);
+        out.writeLong(correlationId);
+        out.writeLong(timestamp.getTime());
+        out.writeInt(timestamp.getNanos());
+        int payloadOffset = out.size();
+        payload.writeTo(out);
+        byte[] frame = bytes.toByteArray();
+        Frames.writeHeader(frame, frame.length - 4, Frames.PACKET);
+        return new PacketFrame(frame, destinationId, senderId, type, correlationId, timestamp.getTime(),
+                timestamp.getNanos(), payloadOffset);
+    }
+
+    static PacketFrame decode(byte[] frame) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(frame, Frames.HEADER_LENGTH,
+                frame.length - Frames.HEADER_LENGTH);
+        DataInputStream in = new DataInputStream(bytes);
+        String destinationId = ControlFrames.readNullableString(in);
+        String senderId = ControlFrames.readNullableString(in);
+        byte type = in.readByte();
+        long correlationId = in.readLong();
+        long timestampMillis = in.readLong();
+        int timestampNanos = in.readInt();
+        int payloadOffset = frame.length - bytes.available();
+        return new PacketFrame(frame, destinationId, senderId, type, correlationId, timestampMillis,
+                timestampNanos, payloadOffset);
+    }
+
+    @Override
+    public String getDestinationId() {
+        return destinationId;
+    }
+
+    @Override
+    public PacketFrame toFrame() {
+        return this;
+    }
+
+    @Override
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    @Override
+    public int getTypeId() {
+        return type;
+    }
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public Timestamp getTimestamp() {
+        Timestamp timestamp = new Timestamp(timestampMillis);
+        timestamp.setNanos(timestampNanos);
+        return timestamp;
+    }
+
+    public byte[] getPayload() {
+        return Arrays.copyOfRange(frame, payloadOffset, frame.length);
+    }
+
+    /**
+     * @return the offset of the payload within {@link #getFrame()}. The payload extends to the end of the frame.
+     */
+    public int getPayloadOffset() {
+        return payloadOffset;
+    }
+
+    /**
+     * @return the complete frame including the frame header. Must not be modified.
+     */
+    public byte[] getFrame() {
+        return frame;
+    }
+
+}
@@ -0,0 +1,24 @@
+package ch.awae.netcode.internal;
+
+public final class Protocol {
+
+    /**
+     * plain java object streams. used by all clients that do not announce a protocol version.
+     */
+    public static final int OBJECT_STREAM = 0;
+
+    /**
+     * length-prefixed frames (see {@link Frames}) after the initial handshake.
+     */
+    public static final int FRAMED = 1;
+
+    public static final int CURRENT = FRAMED;
+
+    private Protocol() {
+    }
+
+    public static int negotiate(int requested) {
+        return Math.max(OBJECT_STREAM, Math.min(requested, CURRENT));
+    }
+
+}
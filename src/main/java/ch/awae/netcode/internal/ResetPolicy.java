@@ -0,0 +1,59 @@
+package ch.awae.netcode.internal;
+
+/**
+ * Decides when an object stream resets its back-reference table. A reset releases every object written so far on
+ * both ends of the connection, at the cost of having to resend class descriptors and repeated objects.
+ * <p>
+ * Each limit can be disabled by setting it to 0.
+ */
+public final class ResetPolicy {
+
+    public static final ResetPolicy DEFAULT = new ResetPolicy(256, 1024 * 1024, 5000);
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long idleMillis;
+
+    /**
+     * @param maxMessages the number of messages after which the stream is reset
+     * @param maxBytes    the number of bytes after which the stream is reset
+     * @param idleMillis  the idle time after which the stream is reset before the next message is written
+     */
+    public ResetPolicy(int maxMessages, long maxBytes, long idleMillis) {
+        if (maxMessages < 0 || maxBytes < 0 || idleMillis < 0) {
+            throw new IllegalArgumentException("reset limits must not be negative");
+        }
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.idleMillis = idleMillis;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    boolean isIdle(long millisSinceLastWrite) {
+        return idleMillis > 0 && millisSinceLastWrite >= idleMillis;
+    }
+
+    boolean isExceeded(int messages, long bytes) {
+        return (maxMessages > 0 && messages >= maxMessages) || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "ResetPolicy{" +
+                "maxMessages=" + maxMessages +
+                ", maxBytes=" + maxBytes +
+                ", idleMillis=" + idleMillis +
+                '}';
+    }
+}
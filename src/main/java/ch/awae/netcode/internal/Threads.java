@@ -0,0 +1,36 @@
+package ch.awae.netcode.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread creation for runtimes without virtual threads. Java 21+ runtimes use the variant in
+ * {@code META-INF/versions/21} instead.
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return false;
+    }
+
+    public static ThreadFactory threadFactory(boolean virtual) {
+        verifySupported(virtual);
+        return Thread::new;
+    }
+
+    public static ExecutorService newCachedExecutor(boolean virtual) {
+        verifySupported(virtual);
+        return Executors.newCachedThreadPool();
+    }
+
+    private static void verifySupported(boolean virtual) {
+        if (virtual) {
+            throw new UnsupportedOperationException("virtual threads require Java 21 or newer");
+        }
+    }
+
+}
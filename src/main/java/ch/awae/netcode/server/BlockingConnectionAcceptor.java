@@ -0,0 +1,62 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.internal.Protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
+
+class BlockingConnectionAcceptor implements ConnectionAcceptor {
+
+    private final ServerSocket serverSocket;
+    private final ThreadFactory threadFactory;
+    private final int outboundQueueSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ServerStatisticsImpl statistics;
+
+    BlockingConnectionAcceptor(int port, ThreadFactory threadFactory, int outboundQueueSize,
+                               OverflowPolicy overflowPolicy, ServerStatisticsImpl statistics) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.threadFactory = threadFactory;
+        this.outboundQueueSize = outboundQueueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Socket accept() throws IOException {
+        return serverSocket.accept();
+    }
+
+    @Override
+    public InputStream getInputStream(Socket socket) throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream(Socket socket) throws IOException {
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public Connection connect(Socket socket, MessageStreams streams, int protocolVersion) {
+        OutboundQueue<EncodedMessage> outbound = protocolVersion == Protocol.OBJECT_STREAM
+                ? OutboundQueue.forMessages(outboundQueueSize, overflowPolicy)
+                : OutboundQueue.forFrames(outboundQueueSize, overflowPolicy);
+        return new StreamConnection(socket, streams, protocolVersion, threadFactory, outbound, statistics);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
@@ -1,17 +1,23 @@
 package ch.awae.netcode.server;
 
 import ch.awae.netcode.client.ChannelFeatures;
+import ch.awae.netcode.client.JavaPayloadCodec;
+import ch.awae.netcode.internal.EncodedMessage;
 import ch.awae.netcode.internal.FullChannelInformation;
-import ch.awae.netcode.internal.ObjectStreams;
+import ch.awae.netcode.internal.LegacyPacket;
+import ch.awae.netcode.internal.NetcodePacket;
+import ch.awae.netcode.internal.PacketFrame;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.net.Socket;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 class Channel {
@@ -20,21 +26,24 @@ class Channel {
 
     private final ChannelID id;
     private final ChannelFeatures features;
+    private final String payloadCodec;
     private final ChannelManager channelManager;
 
-    private final Lock USE_LOCK;
-    private final Lock UPDATE_LOCK;
+    // guards membership changes, senders never take it: under OverflowPolicy.BLOCK a send may wait for a slow client
+    private final Lock UPDATE_LOCK = new ReentrantLock(true);
+    // orders join and leave broadcasts, always acquired before UPDATE_LOCK. Events are sent without waiting for the
+    // queues, a slow client must not stop a leave that runs on an event loop
+    private final Lock EVENT_LOCK = new ReentrantLock(true);
 
     private final ConcurrentMap<String, Client> clients = new ConcurrentHashMap<>();
+    // copy-on-write snapshot of the clients for broadcasts, only replaced while holding UPDATE_LOCK
+    private volatile Client[] recipients = new Client[0];
 
-    Channel(ChannelID id, ChannelFeatures features, ChannelManager channelManager) {
+    Channel(ChannelID id, ChannelFeatures features, String payloadCodec, ChannelManager channelManager) {
         this.id = id;
         this.features = features;
+        this.payloadCodec = payloadCodecOrDefault(payloadCodec);
         this.channelManager = channelManager;
-
-        ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
-        USE_LOCK = readWriteLock.readLock();
-        UPDATE_LOCK = readWriteLock.writeLock();
     }
 
     void validatePassword(String password) {
@@ -46,51 +55,92 @@ class Channel {
         }
     }
 
+    void validatePayloadCodec(String payloadCodec) {
+        if (!this.payloadCodec.equals(payloadCodecOrDefault(payloadCodec))) {
+            throw new IllegalArgumentException("payload codec mismatch: channel uses " + this.payloadCodec);
+        }
+    }
+
+    void validateCompression(String[] supportedCompressions) {
+        String compression = features.getCompression();
+        if (compression != null && (supportedCompressions == null || !Arrays.asList(supportedCompressions).contains(compression))) {
+            throw new IllegalArgumentException("compression not supported: channel uses " + compression);
+        }
+    }
+
+    private static String payloadCodecOrDefault(String payloadCodec) {
+        // clients prior to 3.0 do not announce their codec
+        return payloadCodec == null ? JavaPayloadCodec.NAME : payloadCodec;
+    }
+
     private FullChannelInformation getChannelInformation() {
-        return new ChannelInformationImpl(getUserList(), id.getChannelId(), features.getClientLimit());
+        return new ChannelInformationImpl(getUserList(), id.getChannelId(), features.getClientLimit(),
+                features.getCompression(), features.getCompressionThreshold());
     }
 
     private String[] getUserList() {
         return clients.keySet().toArray(new String[0]);
     }
 
-    void sendPrivately(String userId, Serializable message) {
-        USE_LOCK.lock();
-        try {
-            Client client = clients.get(userId);
-            if (client == null) {
-                throw new IllegalArgumentException("target user does not exist");
+    void sendPrivately(Client sender, NetcodePacket packet) {
+        Client client = clients.get(packet.getDestinationId());
+        if (client == null) {
+            throw new IllegalArgumentException("target user does not exist");
+        }
+        if (client.isLegacy()) {
+            // the client drops the packet, a sender waiting for an answer is answered in its place
+            PacketFrame rejection;
+            try {
+                rejection = LegacyPacket.rejection(packet);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (rejection != null) {
+                sender.send(new EncodedMessage(rejection));
+                return;
             }
-            client.send(message);
-        } finally {
-            USE_LOCK.unlock();
         }
+        client.send(new EncodedMessage(packet));
     }
 
     void sendPublicly(Serializable message) {
-        USE_LOCK.lock();
-        try {
-            clients.forEach((id, client) -> client.send(message));
-        } finally {
-            USE_LOCK.unlock();
+        // encoded at most once, no matter how many clients receive it
+        EncodedMessage encoded = new EncodedMessage(message);
+        for (Client client : recipients) {
+            client.send(encoded);
         }
     }
 
-    void addClient(String userId, Socket clientSocket, ObjectStreams streams) {
-        UPDATE_LOCK.lock();
+    void addClient(String userId, Connection connection) {
+        EVENT_LOCK.lock();
         try {
-            enforceUniqueUserIds(userId);
-            enforceClientLimit();
-            Client client = new Client(userId, clientSocket, streams, this);
-            clients.put(userId, client);
-            LOG.info("client " + userId + " entered channel " + this.id);
-            client.send(getChannelInformation());
-            sendPublicly(new UserChangeMessageImpl(userId, true));
+            Client client;
+            UPDATE_LOCK.lock();
+            try {
+                enforceUniqueUserIds(userId);
+                enforceClientLimit();
+                client = new Client(userId, connection, this);
+                clients.put(userId, client);
+                updateRecipients();
+                LOG.info("client " + userId + " entered channel " + this.id);
+                client.sendEvent(new EncodedMessage(getChannelInformation()));
+                client.start();
+            } finally {
+                UPDATE_LOCK.unlock();
+            }
+            // the new client learns about itself through the channel information, not through the broadcast.
+            // its packets are only read afterwards, so none of them can overtake its join.
+            sendEvent(new UserChangeMessageImpl(userId, true), client);
+            client.startReading();
         } finally {
-            UPDATE_LOCK.unlock();
+            EVENT_LOCK.unlock();
         }
     }
 
+    private void updateRecipients() {
+        recipients = clients.values().toArray(new Client[0]);
+    }
+
     private void enforceUniqueUserIds(String userId) {
         if (clients.containsKey(userId)) {
             throw new IllegalArgumentException("userId already exists in channel");
@@ -110,23 +160,34 @@ class Channel {
     }
 
     void removeClient(Client client) {
-        UPDATE_LOCK.lock();
+        EVENT_LOCK.lock();
         try {
             String userId = client.getUserId();
-            if (clients.containsKey(userId)) {
+            UPDATE_LOCK.lock();
+            try {
+                if (!clients.remove(userId, client)) {
+                    return;
+                }
+                updateRecipients();
                 LOG.info("client " + userId + " left channel " + this.id);
-                doRemoveClient(userId);
+                if (clients.isEmpty()) {
+                    closeChannel();
+                }
+            } finally {
+                UPDATE_LOCK.unlock();
             }
+            sendEvent(new UserChangeMessageImpl(userId, false), null);
         } finally {
-            UPDATE_LOCK.unlock();
+            EVENT_LOCK.unlock();
         }
     }
 
-    private void doRemoveClient(String userId) {
-        clients.remove(userId);
-        sendPublicly(new UserChangeMessageImpl(userId, false));
-        if (clients.isEmpty()) {
-            closeChannel();
+    private void sendEvent(Serializable event, Client subject) {
+        EncodedMessage encoded = new EncodedMessage(event);
+        for (Client recipient : recipients) {
+            if (recipient != subject) {
+                recipient.sendEvent(encoded);
+            }
         }
     }
 
@@ -134,19 +195,14 @@ class Channel {
         channelManager.removeChannel(id);
     }
 
+    void collectStatistics(List<ClientStatistics> statistics) {
+        clients.values().forEach(client -> statistics.add(client.getStatistics()));
+    }
+
     void shutdown() {
         UPDATE_LOCK.lock();
         try {
-            clients.forEach((id, client) -> {
-                client.terminate();
-                client.interrupt();
-                try {
-                    client.getSocket().close();
-                    client.closeStreams();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
+            clients.forEach((id, client) -> client.close());
         } finally {
             UPDATE_LOCK.unlock();
         }
@@ -4,14 +4,20 @@ import ch.awae.netcode.internal.FullChannelInformation;
 
 class ChannelInformationImpl implements FullChannelInformation {
 
+    private static final long serialVersionUID = 6379575338910328345L;
+
     private final String[] users;
     private final String channelId;
     private final int clientLimit;
+    private final String compression;
+    private final int compressionThreshold;
 
-    ChannelInformationImpl(String[] users, String channelId, int clientLimit) {
+    ChannelInformationImpl(String[] users, String channelId, int clientLimit, String compression, int compressionThreshold) {
         this.users = users;
         this.channelId = channelId;
         this.clientLimit = clientLimit;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
     }
 
     @Override
@@ -28,4 +34,14 @@ class ChannelInformationImpl implements FullChannelInformation {
     public int getClientLimit() {
         return clientLimit;
     }
+
+    @Override
+    public String getCompression() {
+        return compression;
+    }
+
+    @Override
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
 }
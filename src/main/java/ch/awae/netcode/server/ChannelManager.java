@@ -2,7 +2,9 @@ package ch.awae.netcode.server;
 
 import ch.awae.netcode.client.ChannelFeatures;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.logging.Logger;
@@ -15,12 +17,12 @@ class ChannelManager {
 
     private Semaphore shutdownSemaphore = null;
 
-    synchronized Channel createChannel(String appId, ChannelFeatures features) {
+    synchronized Channel createChannel(String appId, ChannelFeatures features, String payloadCodec) {
         ChannelID id;
         do {
             id = new ChannelID(appId, createChannelId());
         } while (channels.containsKey(id));
-        Channel channel = new Channel(id, features, this);
+        Channel channel = new Channel(id, features, payloadCodec, this);
         channels.put(id, channel);
         LOG.info("created new channel: " + id + " " + features);
         return channel;
@@ -48,13 +50,31 @@ class ChannelManager {
         }
     }
 
+    List<ClientStatistics> getClientStatistics() {
+        Channel[] channels;
+        synchronized (this) {
+            channels = this.channels.values().toArray(new Channel[0]);
+        }
+        List<ClientStatistics> statistics = new ArrayList<>();
+        for (Channel channel : channels) {
+            channel.collectStatistics(statistics);
+        }
+        return statistics;
+    }
+
     void shutdownChannels() throws InterruptedException {
+        Channel[] channels;
         synchronized (this) {
             shutdownSemaphore = new Semaphore(0);
-            Channel[] channels = this.channels.values().toArray(new Channel[0]);
-            for (Channel channel : channels) {
-                channel.shutdown();
+            if (this.channels.isEmpty()) {
+                return;
             }
+            channels = this.channels.values().toArray(new Channel[0]);
+        }
+        // channels are shut down outside of the monitor: a (virtual) thread blocking inside it could otherwise
+        // starve the client threads that need to remove themselves from the channels
+        for (Channel channel : channels) {
+            channel.shutdown();
         }
         shutdownSemaphore.acquire();
     }
@@ -1,82 +1,72 @@
 package ch.awae.netcode.server;
 
+import ch.awae.netcode.internal.EncodedMessage;
 import ch.awae.netcode.internal.NetcodePacket;
-import ch.awae.netcode.internal.ObjectStreams;
 
-import java.io.IOException;
-import java.io.Serializable;
-import java.net.Socket;
-
-class Client extends Thread {
+class Client {
 
     private final String userId;
-    private final Socket socket;
-    private final ObjectStreams streams;
+    private final Connection connection;
     private final Channel channel;
-    private volatile boolean active = true;
 
-    Client(String userId, Socket socket, ObjectStreams streams, Channel channel) {
+    Client(String userId, Connection connection, Channel channel) {
         this.userId = userId;
-        this.socket = socket;
-        this.streams = streams;
+        this.connection = connection;
         this.channel = channel;
-        setName("Server-Side Client: " + channel.getId().getChannelId() + "/" + userId);
+    }
 
-        start();
+    void start() {
+        connection.start(this);
     }
 
-    @Override
-    public void run() {
-        while(!Thread.interrupted() && active) {
-            try {
-                NetcodePacket packet = streams.read(NetcodePacket.class);
-                if (packet != null) {
-                    try {
-                        processPacket(packet);
-                    } catch (RuntimeException e) {
-                        e.printStackTrace();
-                    }
-                }
-            } catch (IOException e) {
-                // stream issue - kill client
-                e.printStackTrace();
-                break;
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        channel.removeClient(this);
+    void startReading() {
+        connection.startReading();
     }
 
-    void send(Serializable message) {
-        try {
-            streams.write(message);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    void send(EncodedMessage message) {
+        connection.send(message, true);
+    }
+
+    /**
+     * sends a membership change. Never waits for the queue, the channel holds its locks while sending them.
+     */
+    void sendEvent(EncodedMessage message) {
+        connection.send(message, false);
+    }
+
+    /**
+     * @return true if the client does not support framing and only receives the packet types of 2.x
+     */
+    boolean isLegacy() {
+        return connection.isLegacy();
     }
 
     String getUserId() {
         return this.userId;
     }
 
-    private void processPacket(NetcodePacket message) {
+    String getName() {
+        return channel.getId().getChannelId() + "/" + userId;
+    }
+
+    void processPacket(NetcodePacket message) {
         if (message.getDestinationId() != null) {
-            channel.sendPrivately(message.getDestinationId(), message);
+            channel.sendPrivately(this, message);
         } else {
             channel.sendPublicly(message);
         }
     }
 
-    Socket getSocket() {
-        return socket;
+    void disconnected() {
+        channel.removeClient(this);
     }
 
-    void closeStreams() {
-        streams.close();
+    ClientStatistics getStatistics() {
+        return new ClientStatisticsImpl(channel.getId().getChannelId(), userId, connection.getOutboundQueue(),
+                connection.getHandleTableSize());
     }
 
-    void terminate() {
-        active = false;
+    void close() {
+        connection.close();
     }
 }
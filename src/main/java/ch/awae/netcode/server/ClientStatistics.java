@@ -0,0 +1,29 @@
+package ch.awae.netcode.server;
+
+public interface ClientStatistics {
+
+    String getChannelId();
+
+    String getUserId();
+
+    /**
+     * the number of messages currently waiting to be written to the client.
+     */
+    int getQueueDepth();
+
+    int getMaxQueueDepth();
+
+    long getQueuedMessages();
+
+    /**
+     * the number of messages discarded by the {@link OverflowPolicy#DROP_OLDEST} policy.
+     */
+    long getDroppedMessages();
+
+    /**
+     * the number of objects retained by the back-reference table of an object stream connection, 0 for framed
+     * connections.
+     */
+    int getHandleTableSize();
+
+}
@@ -0,0 +1,70 @@
+package ch.awae.netcode.server;
+
+class ClientStatisticsImpl implements ClientStatistics {
+
+    private final String channelId;
+    private final String userId;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final long queuedMessages;
+    private final long droppedMessages;
+    private final int handleTableSize;
+
+    ClientStatisticsImpl(String channelId, String userId, OutboundQueue<?> queue, int handleTableSize) {
+        this.channelId = channelId;
+        this.userId = userId;
+        this.queueDepth = queue.size();
+        this.maxQueueDepth = queue.getMaxDepth();
+        this.queuedMessages = queue.getEnqueued();
+        this.droppedMessages = queue.getDropped();
+        this.handleTableSize = handleTableSize;
+    }
+
+    @Override
+    public String getChannelId() {
+        return channelId;
+    }
+
+    @Override
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    @Override
+    public long getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    @Override
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    @Override
+    public int getHandleTableSize() {
+        return handleTableSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientStatistics{" +
+                "channelId='" + channelId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", queueDepth=" + queueDepth +
+                ", maxQueueDepth=" + maxQueueDepth +
+                ", queuedMessages=" + queuedMessages +
+                ", droppedMessages=" + droppedMessages +
+                ", handleTableSize=" + handleTableSize +
+                '}';
+    }
+}
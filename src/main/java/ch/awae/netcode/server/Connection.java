@@ -0,0 +1,34 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+
+interface Connection {
+
+    /**
+     * starts writing queued messages to the client. Nothing is read from the client before {@link #startReading()}.
+     */
+    void start(Client client);
+
+    /**
+     * starts reading the packets of the client.
+     */
+    void startReading();
+
+    /**
+     * @param mayBlock if the calling thread may wait for room in the queue under {@link OverflowPolicy#BLOCK}. If not,
+     *                 the message is queued beyond the limit
+     */
+    void send(EncodedMessage message, boolean mayBlock);
+
+    /**
+     * @return true if the client uses plain object streams, see {@link ch.awae.netcode.internal.LegacyPacket}
+     */
+    boolean isLegacy();
+
+    OutboundQueue<?> getOutboundQueue();
+
+    int getHandleTableSize();
+
+    void close();
+
+}
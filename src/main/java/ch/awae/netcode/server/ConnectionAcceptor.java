@@ -0,0 +1,33 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.MessageStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+interface ConnectionAcceptor {
+
+    Socket accept() throws IOException;
+
+    InputStream getInputStream(Socket socket) throws IOException;
+
+    OutputStream getOutputStream(Socket socket) throws IOException;
+
+    /**
+     * creates the connection used for the channel phase of an accepted socket, once the handshake has been completed.
+     */
+    Connection connect(Socket socket, MessageStreams streams, int protocolVersion);
+
+    /**
+     * stops accepting new connections.
+     */
+    void close() throws IOException;
+
+    /**
+     * releases all remaining resources. Invoked once all channels have been shut down.
+     */
+    void shutdown() throws InterruptedException;
+
+}
@@ -0,0 +1,109 @@
+package ch.awae.netcode.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+class EventLoop implements Runnable {
+
+    private final static Logger LOG = Logger.getLogger(EventLoop.class.getName());
+
+    private final static ThreadLocal<Boolean> EVENT_LOOP_THREAD = ThreadLocal.withInitial(() -> false);
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        thread.start();
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    SelectionKey register(SocketChannel channel, SelectorConnection connection) throws ClosedChannelException {
+        return channel.register(selector, 0, connection);
+    }
+
+    static boolean isEventLoopThread() {
+        return EVENT_LOOP_THREAD.get();
+    }
+
+    @Override
+    public void run() {
+        EVENT_LOOP_THREAD.set(true);
+        while (running) {
+            try {
+                // tasks submitted from within the loop do not wake up the selector
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "selector failure", e);
+                break;
+            }
+            processSelectedKeys();
+            runTasks();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            SelectorConnection connection = (SelectorConnection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    connection.onReadable(readBuffer);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.onWritable();
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    void shutdown() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join();
+    }
+
+}
@@ -0,0 +1,77 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.FragmentAssembler;
+import ch.awae.netcode.internal.Frames;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+class FrameDecoder {
+
+    @FunctionalInterface
+    interface FrameHandler {
+        void handleFrame(Serializable message);
+    }
+
+    private final ByteBuffer header = ByteBuffer.allocate(Frames.HEADER_LENGTH);
+    private final int maxFrameSize;
+    private final FragmentAssembler assembler;
+    private byte[] frame;
+    private int framePosition;
+
+    FrameDecoder(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+        this.assembler = new FragmentAssembler(maxFrameSize);
+    }
+
+    /**
+     * consumes all remaining bytes of the given buffer. Every frame that is completed during this call is passed to the
+     * handler. Incomplete frames are retained until the missing bytes are provided.
+     */
+    void decode(ByteBuffer data, FrameHandler handler) throws IOException {
+        while (data.hasRemaining()) {
+            if (frame == null) {
+                transfer(data, header);
+                if (!header.hasRemaining()) {
+                    // the frame header is kept so packets can be relayed as they are
+                    frame = new byte[Frames.frameLength(header.getInt(0), maxFrameSize)];
+                    header.flip();
+                    header.get(frame, 0, Frames.HEADER_LENGTH);
+                    framePosition = Frames.HEADER_LENGTH;
+                    header.clear();
+                }
+            } else {
+                int count = Math.min(data.remaining(), frame.length - framePosition);
+                data.get(frame, framePosition, count);
+                framePosition += count;
+            }
+            if (frame != null && framePosition == frame.length) {
+                byte[] complete = frame;
+                frame = null;
+                deliver(complete, handler);
+            }
+        }
+    }
+
+    private void deliver(byte[] frame, FrameHandler handler) throws IOException {
+        if (frame[4] == Frames.FRAGMENT) {
+            frame = assembler.add(frame);
+            if (frame == null) {
+                return;
+            }
+        }
+        try {
+            handler.handleFrame(Frames.decode(frame));
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void transfer(ByteBuffer source, ByteBuffer target) {
+        while (source.hasRemaining() && target.hasRemaining()) {
+            target.put(source.get());
+        }
+    }
+
+}
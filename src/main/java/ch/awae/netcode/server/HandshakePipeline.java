@@ -0,0 +1,187 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+class HandshakePipeline {
+
+    private final static Logger LOG = Logger.getLogger(HandshakePipeline.class.getName());
+
+    private final ConnectionAcceptor acceptor;
+    private final ChannelManager channelManager;
+    private final Predicate<String> appIdValidator;
+    private final ServerStatisticsImpl statistics;
+    private final long stageTimeout;
+    private final ResetPolicy resetPolicy;
+    private final int maxFrameSize;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService deadlines;
+    private final Set<Socket> pendingSockets = ConcurrentHashMap.newKeySet();
+
+    HandshakePipeline(ConnectionAcceptor acceptor, ChannelManager channelManager, Predicate<String> appIdValidator,
+                      ServerStatisticsImpl statistics, int threads, int queueSize, long stageTimeout, ResetPolicy resetPolicy,
+                      int maxFrameSize, ThreadFactory threadFactory) {
+        this.acceptor = acceptor;
+        this.channelManager = channelManager;
+        this.appIdValidator = appIdValidator;
+        this.statistics = statistics;
+        this.stageTimeout = stageTimeout;
+        this.resetPolicy = resetPolicy;
+        this.maxFrameSize = maxFrameSize;
+        AtomicInteger workerIndex = new AtomicInteger(0);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setName("NetcodeServer Handshake " + workerIndex.getAndIncrement());
+            return thread;
+        });
+        this.deadlines = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NetcodeServer Handshake Deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void submit(Socket socket) {
+        long acceptedAt = System.nanoTime();
+        statistics.connectionAccepted();
+        pendingSockets.add(socket);
+        try {
+            workers.execute(() -> process(socket, acceptedAt));
+        } catch (RejectedExecutionException e) {
+            LOG.warning("handshake queue full, rejecting connection from " + socket.getRemoteSocketAddress());
+            statistics.handshakeRejected();
+            pendingSockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private void process(Socket socket, long acceptedAt) {
+        AtomicBoolean expired = new AtomicBoolean(false);
+        try {
+            if (handleClient(socket, expired)) {
+                statistics.handshakeCompleted(System.nanoTime() - acceptedAt);
+            } else {
+                statistics.handshakeFailed();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (expired.get()) {
+                LOG.warning("handshake timed out: " + socket.getRemoteSocketAddress());
+                statistics.handshakeTimedOut();
+            } else {
+                e.printStackTrace();
+                statistics.handshakeFailed();
+            }
+            closeQuietly(socket);
+        } finally {
+            pendingSockets.remove(socket);
+        }
+    }
+
+    private boolean handleClient(Socket clientSocket, AtomicBoolean expired) throws IOException {
+        LOG.info("handling new user: " + clientSocket.getRemoteSocketAddress());
+        InputStream input = acceptor.getInputStream(clientSocket);
+        OutputStream output = acceptor.getOutputStream(clientSocket);
+        String appId;
+        int protocolVersion;
+        MessageStreams streams;
+        ScheduledFuture<?> handshakeDeadline = startDeadline(clientSocket, expired);
+        try {
+            ObjectStreams handshakeStreams = new ObjectStreams(input, output, resetPolicy);
+            try {
+                HandshakeRequest handshake = handshakeStreams.read(HandshakeRequest.class);
+                appId = validateHandshake(handshake);
+                protocolVersion = Protocol.negotiate(handshake.getProtocolVersion());
+            } catch (Exception e) {
+                handshakeStreams.write(e);
+                clientSocket.close();
+                return false;
+            }
+            if (protocolVersion == Protocol.OBJECT_STREAM) {
+                // legacy clients expect a plain null as the handshake confirmation
+                handshakeStreams.write(null);
+                streams = handshakeStreams;
+            } else {
+                handshakeStreams.write(new HandshakeResponseImpl(protocolVersion));
+                streams = new FramedStreams(input, output, maxFrameSize);
+            }
+        } finally {
+            handshakeDeadline.cancel(false);
+        }
+        try {
+            Serializable request;
+            ScheduledFuture<?> requestDeadline = startDeadline(clientSocket, expired);
+            try {
+                request = streams.read();
+            } finally {
+                requestDeadline.cancel(false);
+            }
+            if (request instanceof CreateChannelRequest) {
+                CreateChannelRequest createRequest = (CreateChannelRequest) request;
+                Channel channel = channelManager.createChannel(appId, createRequest.getFeatures(),
+                        createRequest.getPayloadCodec());
+                channel.addClient(createRequest.getUserId(), acceptor.connect(clientSocket, streams, protocolVersion));
+            } else if (request instanceof JoinChannelRequest) {
+                JoinChannelRequest joinRequest = (JoinChannelRequest) request;
+                Channel channel = channelManager.getChannel(appId, joinRequest.getChannelId());
+                channel.validatePassword(joinRequest.getPassword());
+                channel.validatePayloadCodec(joinRequest.getPayloadCodec());
+                channel.validateCompression(joinRequest.getCompressions());
+                channel.addClient(joinRequest.getUserId(), acceptor.connect(clientSocket, streams, protocolVersion));
+            } else {
+                throw new UnsupportedOperationException("cannot process request");
+            }
+            return true;
+        } catch (Exception e) {
+            streams.write(e);
+            clientSocket.close();
+            return false;
+        }
+    }
+
+    private String validateHandshake(HandshakeRequest request) {
+        if (!appIdValidator.test(request.getAppId())) {
+            throw new IllegalArgumentException("bad appId");
+        }
+        return request.getAppId();
+    }
+
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        for (Socket socket : pendingSockets) {
+            closeQuietly(socket);
+        }
+        workers.awaitTermination(stageTimeout, TimeUnit.MILLISECONDS);
+        deadlines.shutdownNow();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * closes the socket if the current handshake stage does not complete in time. This interrupts blocking IO for both
+     * plain sockets and socket channels. The returned future must be cancelled once the stage completes.
+     */
+    private ScheduledFuture<?> startDeadline(Socket socket, AtomicBoolean expired) {
+        return deadlines.schedule(() -> {
+            expired.set(true);
+            closeQuietly(socket);
+        }, stageTimeout, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,17 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.HandshakeResponse;
+
+class HandshakeResponseImpl implements HandshakeResponse {
+
+    private final int protocolVersion;
+
+    HandshakeResponseImpl(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    @Override
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+}
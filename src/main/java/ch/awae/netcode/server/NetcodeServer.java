@@ -6,6 +6,8 @@ public interface NetcodeServer {
 
     void join() throws InterruptedException;
 
+    ServerStatistics getStatistics();
+
     default void terminateAndJoin() throws InterruptedException {
         terminate();
         join();
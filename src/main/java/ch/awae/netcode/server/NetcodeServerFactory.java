@@ -1,12 +1,32 @@
 package ch.awae.netcode.server;
 
+import ch.awae.netcode.internal.FragmentScheduler;
+import ch.awae.netcode.internal.Frames;
+import ch.awae.netcode.internal.ResetPolicy;
+import ch.awae.netcode.internal.Threads;
+
 import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Predicate;
 
 public class NetcodeServerFactory {
 
     private int port = -1;
     private Predicate<String> appIdValidator;
+    private ServerEngine engine = ServerEngine.BLOCKING;
+    private int eventLoopCount = Runtime.getRuntime().availableProcessors();
+    private boolean virtualThreads = false;
+    private int handshakeThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private int handshakeQueueSize = 128;
+    private long handshakeTimeout = 10000;
+    private int outboundQueueSize = 1024;
+    // null for the default of the engine
+    private OverflowPolicy overflowPolicy;
+    private int maxFrameSize = Frames.DEFAULT_MAX_FRAME_SIZE;
+    private int streamResetMessages = ResetPolicy.DEFAULT.getMaxMessages();
+    private long streamResetBytes = ResetPolicy.DEFAULT.getMaxBytes();
+    private long streamResetIdleTime = ResetPolicy.DEFAULT.getIdleMillis();
 
     public NetcodeServerFactory() {}
 
@@ -37,9 +57,196 @@ public class NetcodeServerFactory {
         this.appIdValidator = appIdValidator;
     }
 
+    public ServerEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ServerEngine engine) {
+        this.engine = Objects.requireNonNull(engine);
+    }
+
+    public int getEventLoopCount() {
+        return eventLoopCount;
+    }
+
+    public void setEventLoopCount(int eventLoopCount) {
+        if (eventLoopCount < 1) {
+            throw new IllegalArgumentException("at least one event loop is required");
+        }
+        this.eventLoopCount = eventLoopCount;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * runs the accept loop and all per-connection reader threads on virtual threads. Event loops of the selector
+     * engine always use platform threads. Requires Java 21 or newer.
+     *
+     * @throws UnsupportedOperationException if virtual threads are not supported by the runtime
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads && !Threads.isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("virtual threads require Java 21 or newer");
+        }
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getHandshakeThreads() {
+        return handshakeThreads;
+    }
+
+    public void setHandshakeThreads(int handshakeThreads) {
+        if (handshakeThreads < 1) {
+            throw new IllegalArgumentException("at least one handshake thread is required");
+        }
+        this.handshakeThreads = handshakeThreads;
+    }
+
+    public int getHandshakeQueueSize() {
+        return handshakeQueueSize;
+    }
+
+    /**
+     * the number of accepted connections that may wait for a handshake thread. Further connections are closed
+     * immediately.
+     */
+    public void setHandshakeQueueSize(int handshakeQueueSize) {
+        if (handshakeQueueSize < 1) {
+            throw new IllegalArgumentException("handshake queue size must be positive");
+        }
+        this.handshakeQueueSize = handshakeQueueSize;
+    }
+
+    public long getHandshakeTimeout() {
+        return handshakeTimeout;
+    }
+
+    /**
+     * the time in milliseconds a client may take for each stage of the handshake (initial handshake and channel
+     * request) before the connection is closed.
+     */
+    public void setHandshakeTimeout(long handshakeTimeout) {
+        if (handshakeTimeout < 1) {
+            throw new IllegalArgumentException("handshake timeout must be positive");
+        }
+        this.handshakeTimeout = handshakeTimeout;
+    }
+
+    public int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
+    /**
+     * the number of messages that may wait to be written to a single client before the overflow policy applies.
+     */
+    public void setOutboundQueueSize(int outboundQueueSize) {
+        if (outboundQueueSize < 1) {
+            throw new IllegalArgumentException("outbound queue size must be positive");
+        }
+        this.outboundQueueSize = outboundQueueSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        if (overflowPolicy != null) {
+            return overflowPolicy;
+        }
+        return engine == ServerEngine.SELECTOR ? OverflowPolicy.DISCONNECT : OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * decides what happens when the outbound queue of a client is full. Defaults to {@link OverflowPolicy#BLOCK} for
+     * the {@link ServerEngine#BLOCKING} engine and to {@link OverflowPolicy#DISCONNECT} for the
+     * {@link ServerEngine#SELECTOR} engine, whose queues {@link OverflowPolicy#BLOCK} does not bound.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * the size in bytes of the largest frame a client may send. The limit is checked before the frame is buffered,
+     * clients sending larger frames are disconnected. Large messages are fragmented by the sender, so the limit also
+     * applies to the reassembled message.
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        if (maxFrameSize < FragmentScheduler.MAX_FRAGMENT_LENGTH) {
+            throw new IllegalArgumentException("max frame size must be at least " + FragmentScheduler.MAX_FRAGMENT_LENGTH);
+        }
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    public int getStreamResetMessages() {
+        return streamResetMessages;
+    }
+
+    /**
+     * the number of messages after which an object stream connection resets its back-reference table. 0 disables
+     * the limit. Framed connections are not affected.
+     */
+    public void setStreamResetMessages(int streamResetMessages) {
+        if (streamResetMessages < 0) {
+            throw new IllegalArgumentException("stream reset message count must not be negative");
+        }
+        this.streamResetMessages = streamResetMessages;
+    }
+
+    public long getStreamResetBytes() {
+        return streamResetBytes;
+    }
+
+    /**
+     * the number of bytes after which an object stream connection resets its back-reference table. 0 disables the
+     * limit.
+     */
+    public void setStreamResetBytes(long streamResetBytes) {
+        if (streamResetBytes < 0) {
+            throw new IllegalArgumentException("stream reset byte count must not be negative");
+        }
+        this.streamResetBytes = streamResetBytes;
+    }
+
+    public long getStreamResetIdleTime() {
+        return streamResetIdleTime;
+    }
+
+    /**
+     * the idle time in milliseconds after which an object stream connection resets its back-reference table before
+     * writing the next message. 0 disables the idle reset.
+     */
+    public void setStreamResetIdleTime(long streamResetIdleTime) {
+        if (streamResetIdleTime < 0) {
+            throw new IllegalArgumentException("stream reset idle time must not be negative");
+        }
+        this.streamResetIdleTime = streamResetIdleTime;
+    }
+
     public NetcodeServer start() throws IOException {
         validateAndComplete();
-        return new NetcodeServerImpl(port, appIdValidator);
+        ThreadFactory threadFactory = Threads.threadFactory(virtualThreads);
+        ChannelManager channelManager = new ChannelManager();
+        ServerStatisticsImpl statistics = new ServerStatisticsImpl(channelManager);
+        ConnectionAcceptor acceptor = createAcceptor(threadFactory, statistics);
+        HandshakePipeline handshakePipeline = new HandshakePipeline(acceptor, channelManager, appIdValidator, statistics,
+                handshakeThreads, handshakeQueueSize, handshakeTimeout,
+                new ResetPolicy(streamResetMessages, streamResetBytes, streamResetIdleTime), maxFrameSize, threadFactory);
+        return new NetcodeServerImpl(port, acceptor, handshakePipeline, channelManager, statistics, threadFactory);
+    }
+
+    private ConnectionAcceptor createAcceptor(ThreadFactory threadFactory, ServerStatisticsImpl statistics) throws IOException {
+        switch (engine) {
+            case SELECTOR:
+                return new SelectorConnectionAcceptor(port, eventLoopCount, threadFactory, outboundQueueSize,
+                        getOverflowPolicy(), maxFrameSize, statistics);
+            case BLOCKING:
+            default:
+                return new BlockingConnectionAcceptor(port, threadFactory, outboundQueueSize, getOverflowPolicy(),
+                        statistics);
+        }
     }
 
     private void validateAndComplete() {
@@ -1,48 +1,59 @@
 package ch.awae.netcode.server;
 
-import ch.awae.netcode.internal.*;
-
 import java.io.IOException;
-import java.io.Serializable;
-import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.Objects;
-import java.util.function.Predicate;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
-class NetcodeServerImpl extends Thread implements NetcodeServer {
+class NetcodeServerImpl implements NetcodeServer, Runnable {
 
     private final static Logger LOG = Logger.getLogger(NetcodeServerImpl.class.getName());
 
-    private final Predicate<String> appIdValidator;
-    private final ServerSocket serverSocket;
-    private final ChannelManager channelManager = new ChannelManager();
+    private final ConnectionAcceptor acceptor;
+    private final HandshakePipeline handshakePipeline;
+    private final ChannelManager channelManager;
+    private final ServerStatisticsImpl statistics;
+    private final Thread thread;
 
-    public NetcodeServerImpl(int port, Predicate<String> appIdValidator) throws IOException {
-        this.appIdValidator = Objects.requireNonNull(appIdValidator);
-        this.serverSocket = new ServerSocket(port);
+    public NetcodeServerImpl(int port, ConnectionAcceptor acceptor, HandshakePipeline handshakePipeline, ChannelManager channelManager, ServerStatisticsImpl statistics, ThreadFactory threadFactory) {
+        this.acceptor = Objects.requireNonNull(acceptor);
+        this.handshakePipeline = Objects.requireNonNull(handshakePipeline);
+        this.channelManager = Objects.requireNonNull(channelManager);
+        this.statistics = Objects.requireNonNull(statistics);
         LOG.info("started netcode server on port " + port);
-        this.setName("NetcodeServer");
-        start();
+        this.thread = threadFactory.newThread(this);
+        thread.setName("NetcodeServer");
+        thread.start();
     }
 
     @Override
     public void terminate() {
         LOG.info("terminating netcode server");
         synchronized (this) {
-            interrupt();
+            thread.interrupt();
             try {
-                serverSocket.close();
+                acceptor.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    @Override
+    public void join() throws InterruptedException {
+        thread.join();
+    }
+
+    @Override
+    public ServerStatistics getStatistics() {
+        return statistics;
+    }
+
     @Override
     public void run() {
         while (!Thread.interrupted()) {
-            acceptAndHandleClient();
+            acceptClient();
         }
         try {
             shutdownServer();
@@ -52,56 +63,21 @@ class NetcodeServerImpl extends Thread implements NetcodeServer {
     }
 
     private void shutdownServer() throws InterruptedException {
+        handshakePipeline.shutdown();
         channelManager.shutdownChannels();
+        acceptor.shutdown();
         LOG.info("netcode server shut down");
     }
 
-    private void acceptAndHandleClient() {
+    private void acceptClient() {
         try {
-            Socket client = serverSocket.accept();
-            handleClient(client);
+            Socket socket = acceptor.accept();
+            // writes are coalesced by the connection, small frames must not wait for the ack of a previous fragment
+            socket.setTcpNoDelay(true);
+            handshakePipeline.submit(socket);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void handleClient(Socket clientSocket) throws IOException {
-        LOG.info("handling new user: " + clientSocket.getRemoteSocketAddress());
-        ObjectStreams streams = new ObjectStreams(clientSocket);
-        String appId = null;
-        try {
-            appId = validateHandshake(streams.read(HandshakeRequest.class));
-        } catch (Exception e) {
-            streams.write(e);
-            clientSocket.close();
-        }
-        streams.write(null);
-        try {
-            Serializable request = streams.read();
-            Client client;
-            if (request instanceof CreateChannelRequest) {
-                CreateChannelRequest createRequest = (CreateChannelRequest) request;
-                Channel channel = channelManager.createChannel(appId, createRequest.getFeatures());
-                channel.addClient(createRequest.getUserId(), clientSocket, streams);
-            } else if (request instanceof JoinChannelRequest) {
-                JoinChannelRequest joinRequest = (JoinChannelRequest) request;
-                Channel channel = channelManager.getChannel(appId, joinRequest.getChannelId());
-                channel.validatePassword(joinRequest.getPassword());
-                channel.addClient(joinRequest.getUserId(), clientSocket, streams);
-            } else {
-                throw new UnsupportedOperationException("cannot process request");
-            }
-        } catch (Exception e) {
-            streams.write(e);
-            clientSocket.close();
-        }
-    }
-
-    private String validateHandshake(HandshakeRequest request) {
-        if (!appIdValidator.test(request.getAppId())) {
-            throw new IllegalArgumentException("bad appId");
-        }
-        return request.getAppId();
-    }
-
 }
@@ -0,0 +1,309 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.FragmentScheduler;
+import ch.awae.netcode.internal.NetcodePacket;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * bounded queue between the producers of a connection (any thread sending to the client) and its single writer.
+ * <p>
+ * Bulk items (e.g. frames the writer sends in fragments) may be kept in a separate lane. Small items overtake queued
+ * bulk items, the order within each lane is preserved. Both lanes share the capacity.
+ * <p>
+ * Items have an order key, e.g. the sender of a packet. Small items with the same key as a queued bulk item are queued
+ * in the bulk lane behind it, so only items of different keys overtake each other. A null key is ordered with every
+ * other key.
+ * <p>
+ * The {@link OverflowPolicy#DROP_OLDEST} policy only drops droppable items. If none is queued, a droppable new item is
+ * dropped itself and any other item is queued beyond the limit.
+ */
+class OutboundQueue<T> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<T> items = new ArrayDeque<>(4);
+    private final ArrayDeque<T> bulkItems = new ArrayDeque<>(4);
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Predicate<? super T> droppable;
+    private final Predicate<? super T> bulk;
+    private final Function<? super T, ?> orderKey;
+    // the number of bulk lane items per order key
+    private final Map<Object, Integer> bulkKeys = new HashMap<>();
+    private int unkeyedBulkItems = 0;
+
+    private boolean closed = false;
+    private volatile int maxDepth = 0;
+    private volatile long enqueued = 0;
+    private volatile long dropped = 0;
+
+    OutboundQueue(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, item -> true, null, null);
+    }
+
+    /**
+     * @param droppable selects the items the {@link OverflowPolicy#DROP_OLDEST} policy may drop
+     * @param bulk      selects the items for the bulk lane, null to keep all items in a single lane
+     * @param orderKey  the order key of an item, only used with a bulk lane
+     */
+    OutboundQueue(int capacity, OverflowPolicy policy, Predicate<? super T> droppable, Predicate<? super T> bulk,
+                  Function<? super T, ?> orderKey) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.droppable = droppable;
+        this.bulk = bulk;
+        this.orderKey = orderKey;
+    }
+
+    /**
+     * creates the queue of an object stream connection. Only messages may be dropped.
+     */
+    static OutboundQueue<EncodedMessage> forMessages(int capacity, OverflowPolicy policy) {
+        return new OutboundQueue<>(capacity, policy, OutboundQueue::isDroppable, null, null);
+    }
+
+    /**
+     * creates the queue of a framed connection. Large frames are kept in the bulk lane, packets are ordered per sender.
+     * Only messages may be dropped.
+     */
+    static OutboundQueue<EncodedMessage> forFrames(int capacity, OverflowPolicy policy) {
+        return new OutboundQueue<>(capacity, policy, OutboundQueue::isDroppable, OutboundQueue::isLarge,
+                OutboundQueue::orderKey);
+    }
+
+    /**
+     * @return true for plain messages. Channel events, responses and credits are never dropped, the peers would wait
+     * for them forever
+     */
+    private static boolean isDroppable(EncodedMessage message) {
+        Serializable content = message.getMessage();
+        return content instanceof NetcodePacket && ((NetcodePacket) content).isMessage();
+    }
+
+    private static boolean isLarge(EncodedMessage message) {
+        try {
+            return FragmentScheduler.isLarge(message.getFrame());
+        } catch (IOException e) {
+            // reported by the writer
+            return false;
+        }
+    }
+
+    /**
+     * @return the sender of a packet, null for messages of the server itself
+     */
+    static Object orderKey(EncodedMessage message) {
+        Serializable content = message.getMessage();
+        return content instanceof NetcodePacket ? ((NetcodePacket) content).getSenderId() : null;
+    }
+
+    /**
+     * @param mayBlock if the calling thread may be blocked by the {@link OverflowPolicy#BLOCK} policy
+     * @return false if the queue is full and the policy demands the client to be disconnected
+     */
+    boolean offer(T item, boolean mayBlock) throws InterruptedException {
+        // may encode the item, not done while holding the lock
+        boolean isBulk = bulk != null && bulk.test(item);
+        Object key = bulk == null ? null : orderKey.apply(item);
+        lock.lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            if (depth() >= capacity) {
+                switch (policy) {
+                    case DISCONNECT:
+                        return false;
+                    case DROP_OLDEST:
+                        // bulk items go first, they free the most memory
+                        if (dropBulkItem() || dropItem()) {
+                            dropped++;
+                        } else if (droppable.test(item)) {
+                            // nothing older may be dropped
+                            dropped++;
+                            return true;
+                        }
+                        break;
+                    case BLOCK:
+                        while (mayBlock && !closed && depth() >= capacity) {
+                            notFull.await();
+                        }
+                        if (closed) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+            if (isBulk || isBehindBulkItem(key)) {
+                bulkItems.add(item);
+                if (key == null) {
+                    unkeyedBulkItems++;
+                } else {
+                    bulkKeys.merge(key, 1, Integer::sum);
+                }
+            } else {
+                items.add(item);
+            }
+            enqueued++;
+            if (depth() > maxDepth) {
+                maxDepth = depth();
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * waits for the next item.
+     *
+     * @return the next item or null if the queue has been closed
+     */
+    T take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && depth() == 0) {
+                notEmpty.await();
+            }
+            return closed ? null : remove();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    T poll() {
+        lock.lock();
+        try {
+            return depth() == 0 ? null : remove();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the next item that is not in the bulk lane, or null if there is none
+     */
+    T pollSmall() {
+        lock.lock();
+        try {
+            T item = items.poll();
+            if (item != null) {
+                notFull.signal();
+            }
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private T remove() {
+        T item = items.isEmpty() ? removeBulkItem() : items.poll();
+        notFull.signal();
+        return item;
+    }
+
+    private boolean isBehindBulkItem(Object key) {
+        if (bulkItems.isEmpty()) {
+            return false;
+        }
+        return key == null || unkeyedBulkItems > 0 || bulkKeys.containsKey(key);
+    }
+
+    private T removeBulkItem() {
+        T item = bulkItems.poll();
+        removeBulkKey(item);
+        return item;
+    }
+
+    private void removeBulkKey(T item) {
+        Object key = orderKey.apply(item);
+        if (key == null) {
+            unkeyedBulkItems--;
+        } else {
+            bulkKeys.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * @return false if no bulk item may be dropped
+     */
+    private boolean dropBulkItem() {
+        Iterator<T> iterator = bulkItems.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            if (droppable.test(item)) {
+                iterator.remove();
+                removeBulkKey(item);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false if no small item may be dropped
+     */
+    private boolean dropItem() {
+        Iterator<T> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            if (droppable.test(iterator.next())) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int depth() {
+        return items.size() + bulkItems.size();
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            items.clear();
+            bulkItems.clear();
+            bulkKeys.clear();
+            unkeyedBulkItems = 0;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return depth();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    long getEnqueued() {
+        return enqueued;
+    }
+
+    long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,24 @@
+package ch.awae.netcode.server;
+
+public enum OverflowPolicy {
+
+    /**
+     * the sender waits until the queue has room again. Event loop threads of the selector engine are never blocked,
+     * messages they produce are queued beyond the limit instead. As the selector engine relays all messages of framed
+     * clients on its event loops, the queue size does not bound memory there: use {@link #DROP_OLDEST} or
+     * {@link #DISCONNECT} to bound it. Membership changes never wait either, they are queued beyond the limit.
+     */
+    BLOCK,
+
+    /**
+     * the oldest queued message is discarded in favour of the new one. Only plain messages are discarded: channel
+     * events, responses and other protocol packets are queued beyond the limit if no message can make room.
+     */
+    DROP_OLDEST,
+
+    /**
+     * the receiving client is disconnected.
+     */
+    DISCONNECT
+
+}
@@ -0,0 +1,208 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.FragmentScheduler;
+import ch.awae.netcode.internal.NetcodePacket;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+class SelectorConnection implements Connection {
+
+    private final static Logger LOG = Logger.getLogger(SelectorConnection.class.getName());
+
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final FrameDecoder decoder;
+    private final OutboundQueue<EncodedMessage> outbound;
+    private final ServerStatisticsImpl statistics;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    // only accessed from the event loop once started
+    private SelectionKey key;
+    private Client client;
+    private ByteBuffer pending;
+    private final FragmentScheduler<Void> fragments = new FragmentScheduler<>();
+
+    SelectorConnection(SocketChannel channel, EventLoop eventLoop, OutboundQueue<EncodedMessage> outbound,
+                       int maxFrameSize, ServerStatisticsImpl statistics) {
+        this.channel = channel;
+        this.decoder = new FrameDecoder(maxFrameSize);
+        this.eventLoop = eventLoop;
+        this.outbound = outbound;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void start(Client client) {
+        this.client = client;
+        eventLoop.execute(this::register);
+    }
+
+    @Override
+    public void startReading() {
+        // runs after register(), the event loop executes its tasks in order
+        eventLoop.execute(() -> {
+            if (key != null && key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        });
+    }
+
+    private void register() {
+        try {
+            channel.configureBlocking(false);
+            key = eventLoop.register(channel, this);
+            key.interestOps(0);
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeNow();
+        }
+    }
+
+    void onReadable(ByteBuffer buffer) {
+        try {
+            buffer.clear();
+            if (channel.read(buffer) < 0) {
+                closeNow();
+                return;
+            }
+            buffer.flip();
+            decoder.decode(buffer, this::handleFrame);
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeNow();
+        }
+    }
+
+    private void handleFrame(Serializable message) {
+        if (message instanceof NetcodePacket) {
+            try {
+                client.processPacket((NetcodePacket) message);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    void onWritable() {
+        flush();
+    }
+
+    @Override
+    public void send(EncodedMessage message, boolean mayBlock) {
+        try {
+            // encoded by the sender, not on the event loop
+            message.getFrame();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            // event loops must never wait for each other
+            if (!outbound.offer(message, mayBlock && !EventLoop.isEventLoopThread())) {
+                LOG.warning("outbound queue of " + channel + " is full, disconnecting");
+                statistics.slowConsumerDisconnected();
+                close();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+    }
+
+    @Override
+    public boolean isLegacy() {
+        // only framed clients are served by the event loops
+        return false;
+    }
+
+    @Override
+    public OutboundQueue<?> getOutboundQueue() {
+        return outbound;
+    }
+
+    @Override
+    public int getHandleTableSize() {
+        // frames are self-contained
+        return 0;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            // a partially written frame is held outside of the queue so it can not be dropped
+            while (pending != null || (pending = nextFrame()) != null) {
+                channel.write(pending);
+                if (pending.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pending = null;
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeNow();
+        }
+    }
+
+    /**
+     * the next queued frame. Large frames are split into fragments, small frames are sent between the fragments.
+     */
+    private ByteBuffer nextFrame() throws IOException {
+        // large frames wait in the bulk lane of the queue until the current one is done
+        EncodedMessage message = fragments.hasFragments() ? outbound.pollSmall() : outbound.poll();
+        byte[] frame = message == null ? null : message.getFrame();
+        if (frame != null && (FragmentScheduler.isLarge(frame)
+                || fragments.isOrderedBehind(OutboundQueue.orderKey(message)))) {
+            // small frames of a sender whose large frame is being sent are sent after it
+            fragments.add(frame, OutboundQueue.orderKey(message), null);
+            frame = null;
+        }
+        if (frame == null && fragments.hasFragments()) {
+            return ByteBuffer.wrap(fragments.nextFragment());
+        }
+        return frame == null ? null : ByteBuffer.wrap(frame);
+    }
+
+    @Override
+    public void close() {
+        outbound.close();
+        eventLoop.execute(this::closeNow);
+    }
+
+    private void closeNow() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        outbound.close();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        pending = null;
+        fragments.clear();
+        if (client != null) {
+            client.disconnected();
+        }
+    }
+}
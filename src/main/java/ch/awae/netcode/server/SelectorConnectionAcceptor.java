@@ -0,0 +1,84 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.internal.Protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SelectorConnectionAcceptor implements ConnectionAcceptor {
+
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextEventLoop = new AtomicInteger(0);
+    private final ThreadFactory threadFactory;
+    private final int outboundQueueSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxFrameSize;
+    private final ServerStatisticsImpl statistics;
+
+    SelectorConnectionAcceptor(int port, int eventLoopCount, ThreadFactory threadFactory, int outboundQueueSize,
+                               OverflowPolicy overflowPolicy, int maxFrameSize, ServerStatisticsImpl statistics)
+            throws IOException {
+        this.threadFactory = threadFactory;
+        this.outboundQueueSize = outboundQueueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.maxFrameSize = maxFrameSize;
+        this.statistics = statistics;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        this.eventLoops = new EventLoop[eventLoopCount];
+        for (int i = 0; i < eventLoopCount; i++) {
+            eventLoops[i] = new EventLoop("NetcodeServer EventLoop " + i);
+        }
+    }
+
+    @Override
+    public Socket accept() throws IOException {
+        return serverChannel.accept().socket();
+    }
+
+    @Override
+    public InputStream getInputStream(Socket socket) {
+        return ChannelStreams.newInputStream(socket.getChannel());
+    }
+
+    @Override
+    public OutputStream getOutputStream(Socket socket) {
+        return ChannelStreams.newOutputStream(socket.getChannel());
+    }
+
+    @Override
+    public Connection connect(Socket socket, MessageStreams streams, int protocolVersion) {
+        if (protocolVersion == Protocol.OBJECT_STREAM) {
+            // object streams cannot be decoded incrementally
+            OutboundQueue<EncodedMessage> outbound = OutboundQueue.forMessages(outboundQueueSize, overflowPolicy);
+            return new StreamConnection(socket, streams, protocolVersion, threadFactory, outbound, statistics);
+        }
+        OutboundQueue<EncodedMessage> outbound = OutboundQueue.forFrames(outboundQueueSize, overflowPolicy);
+        return new SelectorConnection(socket.getChannel(), nextEventLoop(), outbound, maxFrameSize, statistics);
+    }
+
+    private EventLoop nextEventLoop() {
+        return eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ch.awae.netcode.server;
+
+public enum ServerEngine {
+
+    /**
+     * every connected client is served by a dedicated thread performing blocking IO.
+     */
+    BLOCKING,
+
+    /**
+     * clients are multiplexed onto a fixed number of selector-driven event loops.
+     * Clients that do not support the framed protocol fall back to a dedicated thread.
+     */
+    SELECTOR
+
+}
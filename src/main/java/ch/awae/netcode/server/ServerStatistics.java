@@ -0,0 +1,45 @@
+package ch.awae.netcode.server;
+
+import java.util.List;
+
+/**
+ * Live server counters. All counters are monotonic, rates can be derived by sampling them periodically.
+ */
+public interface ServerStatistics {
+
+    long getAcceptedConnections();
+
+    int getPendingHandshakes();
+
+    long getCompletedHandshakes();
+
+    /**
+     * handshakes that were refused by the server, e.g. due to an invalid appId or an unknown channel.
+     */
+    long getFailedHandshakes();
+
+    /**
+     * connections that were closed without a handshake because the handshake queue was full.
+     */
+    long getRejectedHandshakes();
+
+    long getTimedOutHandshakes();
+
+    /**
+     * the accumulated duration of all completed handshakes, measured from the acceptance of the connection.
+     */
+    long getTotalHandshakeNanos();
+
+    long getMaxHandshakeNanos();
+
+    /**
+     * clients disconnected by the {@link OverflowPolicy#DISCONNECT} policy.
+     */
+    long getSlowConsumerDisconnects();
+
+    /**
+     * a snapshot of the outbound queues of all connected clients.
+     */
+    List<ClientStatistics> getClientStatistics();
+
+}
@@ -0,0 +1,107 @@
+package ch.awae.netcode.server;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class ServerStatisticsImpl implements ServerStatistics {
+
+    private final ChannelManager channelManager;
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final AtomicInteger pendingHandshakes = new AtomicInteger();
+    private final LongAdder completedHandshakes = new LongAdder();
+    private final LongAdder failedHandshakes = new LongAdder();
+    private final LongAdder rejectedHandshakes = new LongAdder();
+    private final LongAdder timedOutHandshakes = new LongAdder();
+    private final LongAdder totalHandshakeNanos = new LongAdder();
+    private final LongAccumulator maxHandshakeNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+
+    ServerStatisticsImpl(ChannelManager channelManager) {
+        this.channelManager = channelManager;
+    }
+
+    void connectionAccepted() {
+        acceptedConnections.increment();
+        pendingHandshakes.incrementAndGet();
+    }
+
+    // the outcome is counted before the handshake stops being pending, so no handshake is ever missing in both
+
+    void handshakeCompleted(long nanos) {
+        completedHandshakes.increment();
+        totalHandshakeNanos.add(nanos);
+        maxHandshakeNanos.accumulate(nanos);
+        pendingHandshakes.decrementAndGet();
+    }
+
+    void handshakeFailed() {
+        failedHandshakes.increment();
+        pendingHandshakes.decrementAndGet();
+    }
+
+    void handshakeRejected() {
+        rejectedHandshakes.increment();
+        pendingHandshakes.decrementAndGet();
+    }
+
+    void handshakeTimedOut() {
+        timedOutHandshakes.increment();
+        pendingHandshakes.decrementAndGet();
+    }
+
+    void slowConsumerDisconnected() {
+        slowConsumerDisconnects.increment();
+    }
+
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    @Override
+    public int getPendingHandshakes() {
+        return pendingHandshakes.get();
+    }
+
+    @Override
+    public long getCompletedHandshakes() {
+        return completedHandshakes.sum();
+    }
+
+    @Override
+    public long getFailedHandshakes() {
+        return failedHandshakes.sum();
+    }
+
+    @Override
+    public long getRejectedHandshakes() {
+        return rejectedHandshakes.sum();
+    }
+
+    @Override
+    public long getTimedOutHandshakes() {
+        return timedOutHandshakes.sum();
+    }
+
+    @Override
+    public long getTotalHandshakeNanos() {
+        return totalHandshakeNanos.sum();
+    }
+
+    @Override
+    public long getMaxHandshakeNanos() {
+        return maxHandshakeNanos.get();
+    }
+
+    @Override
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.sum();
+    }
+
+    @Override
+    public List<ClientStatistics> getClientStatistics() {
+        return channelManager.getClientStatistics();
+    }
+}
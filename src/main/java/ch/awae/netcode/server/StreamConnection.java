@@ -0,0 +1,181 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.FragmentScheduler;
+import ch.awae.netcode.internal.LegacyPacket;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.internal.NetcodePacket;
+import ch.awae.netcode.internal.PacketFrame;
+import ch.awae.netcode.internal.Protocol;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+class StreamConnection implements Connection, Runnable {
+
+    private final static Logger LOG = Logger.getLogger(StreamConnection.class.getName());
+
+    private final Socket socket;
+    private final MessageStreams streams;
+    private final boolean legacy;
+    private final ThreadFactory threadFactory;
+    private final OutboundQueue<EncodedMessage> outbound;
+    private final ServerStatisticsImpl statistics;
+    private volatile boolean active = true;
+    private Client client;
+    private Thread thread;
+    private Thread writerThread;
+
+    StreamConnection(Socket socket, MessageStreams streams, int protocolVersion, ThreadFactory threadFactory,
+                     OutboundQueue<EncodedMessage> outbound, ServerStatisticsImpl statistics) {
+        this.socket = socket;
+        this.streams = streams;
+        this.legacy = protocolVersion == Protocol.OBJECT_STREAM;
+        this.threadFactory = threadFactory;
+        this.outbound = outbound;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void start(Client client) {
+        this.client = client;
+        this.writerThread = threadFactory.newThread(this::writeLoop);
+        writerThread.setName("Server-Side Client Writer: " + client.getName());
+        writerThread.start();
+    }
+
+    @Override
+    public void startReading() {
+        this.thread = threadFactory.newThread(this);
+        thread.setName("Server-Side Client: " + client.getName());
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.interrupted() && active) {
+            try {
+                NetcodePacket packet = streams.read(NetcodePacket.class);
+                if (packet != null) {
+                    try {
+                        client.processPacket(packet);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            } catch (IOException e) {
+                // stream issue - kill client
+                if (active) {
+                    e.printStackTrace();
+                }
+                break;
+            } catch (ClassNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+        // release any sender still blocked on the queue before leaving the channel
+        close();
+        client.disconnected();
+    }
+
+    private void writeLoop() {
+        // large frames are written in fragments, queued messages are written in between
+        FragmentScheduler<Void> fragments = new FragmentScheduler<>();
+        try {
+            while (true) {
+                EncodedMessage message;
+                if (!fragments.hasFragments()) {
+                    message = outbound.take();
+                    if (message == null) {
+                        break;
+                    }
+                } else {
+                    // large messages wait in the bulk lane of the queue until the current one is done
+                    message = outbound.pollSmall();
+                }
+                if (message == null) {
+                    streams.writeFrame(fragments.nextFragment());
+                } else if (legacy) {
+                    writeLegacy(message.getMessage());
+                } else if (FragmentScheduler.isLarge(message.getFrame())
+                        || fragments.isOrderedBehind(OutboundQueue.orderKey(message))) {
+                    // small frames of a sender whose large frame is being sent are sent after it
+                    fragments.add(message.getFrame(), OutboundQueue.orderKey(message), null);
+                } else {
+                    streams.writeEncoded(message);
+                }
+            }
+        } catch (InterruptedException e) {
+            // connection closed
+        } catch (IOException e) {
+            if (active) {
+                e.printStackTrace();
+            }
+            close();
+        }
+    }
+
+    private void writeLegacy(Serializable message) throws IOException {
+        // object stream clients only know the packet object
+        if (message instanceof PacketFrame) {
+            for (LegacyPacket packet : LegacyPacket.fromFrame((PacketFrame) message)) {
+                streams.write(packet);
+            }
+        } else {
+            streams.write(message);
+        }
+    }
+
+    @Override
+    public void send(EncodedMessage message, boolean mayBlock) {
+        try {
+            if (!outbound.offer(message, mayBlock)) {
+                LOG.warning("outbound queue of " + (client == null ? socket.getRemoteSocketAddress() : client.getName())
+                        + " is full, disconnecting");
+                statistics.slowConsumerDisconnected();
+                close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isLegacy() {
+        return legacy;
+    }
+
+    @Override
+    public OutboundQueue<?> getOutboundQueue() {
+        return outbound;
+    }
+
+    @Override
+    public int getHandleTableSize() {
+        return streams.getHandleTableSize();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!active) {
+            return;
+        }
+        active = false;
+        outbound.close();
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+        if (writerThread != null && writerThread != Thread.currentThread()) {
+            writerThread.interrupt();
+        }
+        try {
+            socket.close();
+            streams.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ch.awae.netcode.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread creation for Java 21+ runtimes, supporting virtual threads.
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return true;
+    }
+
+    public static ThreadFactory threadFactory(boolean virtual) {
+        return virtual ? Thread.ofVirtual().factory() : Thread::new;
+    }
+
+    public static ExecutorService newCachedExecutor(boolean virtual) {
+        // virtual threads are cheap enough to not be pooled
+        return virtual ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().factory()) : Executors.newCachedThreadPool();
+    }
+
+}
@@ -0,0 +1,151 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.SendQueueFullException;
+import ch.awae.netcode.internal.CoalescingOutputStream;
+import ch.awae.netcode.internal.MessageStreams;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncSendTest {
+
+    private NetcodeServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testAsyncMessagesAreDelivered() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+
+        Semaphore semaphore = new Semaphore(0);
+        bob.setMessageHandler((sender, timestamp, message) -> semaphore.release());
+        CompletableFuture<Void> first = alice.sendToChannelAsync("hello");
+        CompletableFuture<Void> second = alice.sendPrivatelyAsync("bob", "psst");
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertTrue(semaphore.tryAcquire(2, 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUnknownUserFailsTheFuture() throws Exception {
+        NetcodeClient alice = new NetcodeClientFactory("localhost", 8000, "testApp").createChannel("alice");
+        try {
+            alice.sendPrivatelyAsync("nobody", "hello").get(5, TimeUnit.SECONDS);
+            fail("send should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testFullQueueSignalsBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MessageStreams blockingStreams = new MessageStreams() {
+            @Override
+            public void write(Serializable object) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public Serializable read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ClientWriter writer = new ClientWriter(blockingStreams, false, new CoalescingOutputStream(new ByteArrayOutputStream(), 64),
+                FlushPolicy.ON_DRAIN, 200, 2);
+        writer.start(Thread::new, "test writer");
+
+        CompletableFuture<Void> inFlight = writer.offer("blocked in write");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getPendingSends() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        CompletableFuture<Void> queued1 = writer.offer("one");
+        CompletableFuture<Void> queued2 = writer.offer("two");
+        CompletableFuture<Void> rejected = writer.offer("three");
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SendQueueFullException);
+        }
+
+        release.countDown();
+        CompletableFuture.allOf(inFlight, queued1, queued2).get(5, TimeUnit.SECONDS);
+        writer.close(1000);
+    }
+
+    @Test
+    public void testWriterStopsWhenServerGoesAway() throws Exception {
+        NetcodeClient alice = new NetcodeClientFactory("localhost", 8000, "testApp").createChannel("alice");
+        String writer = "NetcodeClient Writer: " + alice.getChannelId() + "/alice";
+        assertTrue(findThread(writer).isDaemon());
+        server.terminateAndJoin();
+        awaitThreadEnd(writer);
+    }
+
+    @Test
+    public void testFailingInlineHandlerShutsDownTheClient() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            throw new IllegalStateException("handler failure");
+        });
+        alice.sendToChannel("hello");
+        awaitThreadEnd("NetcodeClient Writer: " + alice.getChannelId() + "/bob");
+        try {
+            bob.sendToChannel("hello");
+            fail("client should be inactive");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static Thread findThread(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name)) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    private static void awaitThreadEnd(String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (findThread(name) != null) {
+            assertTrue("thread " + name + " still running", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BatchSendTest {
+
+    private NetcodeServer server;
+    private NetcodeClientFactory clientFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testPlainHandlerReceivesMessagesOneByOne() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+
+        Semaphore semaphore = new Semaphore(0);
+        List<Serializable> received = new CopyOnWriteArrayList<>();
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            received.add(message);
+            semaphore.release();
+        });
+        alice.sendBatchToChannel(Arrays.asList(1, "two", 3.0));
+        assertTrue(semaphore.tryAcquire(3, 5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, "two", 3.0), received);
+    }
+
+    @Test
+    public void testBatchHandlerReceivesPrivateBatch() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+
+        Semaphore semaphore = new Semaphore(0);
+        AtomicReference<List<Serializable>> received = new AtomicReference<>();
+        bob.setMessageHandler(new BatchMessageHandler() {
+            @Override
+            public void handleMessage(String sender, Timestamp timestamp, Serializable message) {
+                fail("public message received");
+            }
+
+            @Override
+            public void handlePrivateBatch(String sender, Timestamp timestamp, List<Serializable> messages) {
+                received.set(messages);
+                semaphore.release();
+            }
+        });
+        Users.await(alice, "bob");
+        alice.sendBatchPrivately("bob", Arrays.asList("a", "b"));
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b"), received.get());
+    }
+
+    @Test
+    public void testBatchIsSplitForObjectStreamClients() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        clientFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+
+        Semaphore semaphore = new Semaphore(0);
+        List<Serializable> received = new CopyOnWriteArrayList<>();
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            received.add(message);
+            semaphore.release();
+        });
+        alice.sendBatchToChannel(Arrays.asList("x", "y"));
+        assertTrue(semaphore.tryAcquire(2, 5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("x", "y"), received);
+    }
+}
@@ -0,0 +1,138 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.HandshakeException;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class CompressionTest {
+
+    private static final byte[] DICTIONARY = "position velocity heading".getBytes(StandardCharsets.UTF_8);
+
+    private NetcodeServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    private static String snapshot() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("position=").append(i % 7).append(";velocity=0;heading=north\n");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testDeflateWithDictionary() throws Exception {
+        DeflateCompressor compressor = new DeflateCompressor(9, DICTIONARY);
+        byte[] data = snapshot().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressor.compress(data, 0, data.length, compressed);
+        assertTrue(compressed.size() < data.length / 4);
+        assertArrayEquals(data, compressor.decompress(compressed.toByteArray(), 0, compressed.size()));
+        assertNotEquals(DeflateCompressor.NAME, compressor.getName());
+    }
+
+    @Test
+    public void testEmptyPayload() throws Exception {
+        DeflateCompressor compressor = new DeflateCompressor(9, DICTIONARY);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressor.compress(new byte[0], 0, 0, compressed);
+        assertEquals(0, compressor.decompress(compressed.toByteArray(), 0, compressed.size()).length);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testLengthAboveLimitIsRejected() throws Exception {
+        DeflateCompressor compressor = new DeflateCompressor(Deflater.DEFAULT_COMPRESSION, null, 1000);
+        byte[] data = snapshot().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressor.compress(data, 0, data.length, compressed);
+        compressor.decompress(compressed.toByteArray(), 0, compressed.size());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testPayloadBeyondDeclaredLengthIsRejected() throws Exception {
+        DeflateCompressor compressor = new DeflateCompressor();
+        byte[] data = snapshot().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressor.compress(data, 0, data.length, compressed);
+        byte[] forged = compressed.toByteArray();
+        // declares half the actual length
+        ByteBuffer.wrap(forged).putInt(0, data.length / 2);
+        compressor.decompress(forged, 0, forged.length);
+    }
+
+    @Test
+    public void testSmallPayloadsAreNotCompressed() throws Exception {
+        CompressionStatisticsImpl statistics = new CompressionStatisticsImpl();
+        PayloadCodec codec = new CompressingPayloadCodec(new JavaPayloadCodec(), new DeflateCompressor(), 1024, statistics);
+        assertEquals("hi", codec.decode(codec.encode("hi")));
+        assertEquals(snapshot(), codec.decode(codec.encode(snapshot())));
+        assertEquals(1, statistics.getUncompressedPayloads());
+        assertEquals(1, statistics.getCompressedPayloads());
+        assertEquals(1, statistics.getDecompressedPayloads());
+        assertTrue(statistics.getCompressionRatio() < 0.5);
+    }
+
+    @Test
+    public void testCompressedChannel() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        ChannelFeatures features = new ChannelFeatures();
+        features.setCompression(DeflateCompressor.NAME);
+        features.setCompressionThreshold(64);
+        NetcodeClient alice = clientFactory.createChannel("alice", features);
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+
+        Semaphore semaphore = new Semaphore(0);
+        AtomicReference<Serializable> received = new AtomicReference<>();
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            received.set(message);
+            semaphore.release();
+        });
+        alice.sendToChannel(snapshot());
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(snapshot(), received.get());
+        assertEquals(1, alice.getCompressionStatistics().getCompressedPayloads());
+        assertTrue(alice.getCompressionStatistics().getCompressionRatio() < 0.5);
+        assertEquals(1, bob.getCompressionStatistics().getDecompressedPayloads());
+    }
+
+    @Test(expected = HandshakeException.class)
+    public void testJoinWithoutCompressorIsRejected() throws Exception {
+        NetcodeClientFactory aliceFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        DeflateCompressor compressor = new DeflateCompressor(9, DICTIONARY);
+        aliceFactory.addPayloadCompressor(compressor);
+        ChannelFeatures features = new ChannelFeatures();
+        features.setCompression(compressor.getName());
+        NetcodeClient alice = aliceFactory.createChannel("alice", features);
+        new NetcodeClientFactory("localhost", 8000, "testApp").joinChannel(alice.getChannelId(), "bob", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCompressorIsRejected() {
+        ChannelFeatures features = new ChannelFeatures();
+        features.setCompression("lz4");
+        new NetcodeClientFactory("localhost", 8000, "testApp").createChannel("alice", features);
+    }
+}
@@ -0,0 +1,97 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.CoalescingOutputStream;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FlushPolicyTest {
+
+    private NetcodeServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testOutputIsHeldBackUntilFlushed() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        CoalescingOutputStream output = new CoalescingOutputStream(target, 16);
+        output.setAutoFlush(false);
+        output.write(new byte[10]);
+        output.flush();
+        assertEquals(0, target.size());
+        output.write(new byte[10]);
+        assertEquals(10, target.size());
+        output.flushBuffer();
+        assertEquals(20, target.size());
+        assertTrue(output.isEmpty());
+    }
+
+    private void assertDelivery(FlushPolicy policy, int senders) throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setFlushPolicy(policy);
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+
+        Semaphore semaphore = new Semaphore(0);
+        bob.setMessageHandler((sender, timestamp, message) -> semaphore.release());
+        ExecutorService executor = Executors.newFixedThreadPool(senders);
+        for (int i = 0; i < senders; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    alice.sendPrivately("bob", j);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(semaphore.tryAcquire(100 * senders, 5, TimeUnit.SECONDS));
+        alice.disconnect();
+        bob.disconnect();
+    }
+
+    @Test
+    public void testImmediate() throws Exception {
+        assertDelivery(FlushPolicy.IMMEDIATE, 1);
+    }
+
+    @Test
+    public void testOnDrainWithConcurrentSenders() throws Exception {
+        assertDelivery(FlushPolicy.ON_DRAIN, 4);
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        assertDelivery(FlushPolicy.INTERVAL, 2);
+    }
+
+    @Test
+    public void testSparseMessageIsFlushedByInterval() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setFlushPolicy(FlushPolicy.INTERVAL);
+        clientFactory.setFlushInterval(1000);
+        NetcodeClient alice = clientFactory.createChannel("alice");
+
+        Semaphore semaphore = new Semaphore(0);
+        alice.setMessageHandler((sender, timestamp, message) -> semaphore.release());
+        alice.sendToChannel("ping");
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+    }
+}
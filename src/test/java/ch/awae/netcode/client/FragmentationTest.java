@@ -0,0 +1,112 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import ch.awae.netcode.server.ServerEngine;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FragmentationTest {
+
+    private NetcodeServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    private void start(ServerEngine engine) throws Exception {
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setEngine(engine);
+        server = serverFactory.start();
+    }
+
+    private void testLargeMessageIsOvertaken() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        NetcodeClient carol = clientFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Users.await(alice, "bob");
+        Users.await(alice, "carol");
+
+        byte[] large = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(large);
+        List<Serializable> received = Collections.synchronizedList(new ArrayList<>());
+        Semaphore semaphore = new Semaphore(0);
+        MessageHandler handler = (sender, timestamp, message) -> {
+            received.add(message);
+            semaphore.release();
+        };
+        bob.setMessageHandler(handler);
+        carol.setMessageHandler(handler);
+
+        // messages to other destinations are written between the fragments
+        CompletableFuture<Void> bulk = alice.sendPrivatelyAsync("bob", large);
+        alice.sendPrivately("carol", "small");
+        bulk.get(10, TimeUnit.SECONDS);
+        assertTrue(semaphore.tryAcquire(2, 10, TimeUnit.SECONDS));
+        assertEquals("small", received.get(0));
+        assertArrayEquals(large, (byte[]) received.get(1));
+    }
+
+    private void testLargeMessageKeepsOrderPerSender() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+
+        byte[] large = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(large);
+        List<Serializable> received = Collections.synchronizedList(new ArrayList<>());
+        Semaphore semaphore = new Semaphore(0);
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            received.add(message);
+            semaphore.release();
+        });
+
+        CompletableFuture<Void> bulk = alice.sendToChannelAsync(large);
+        alice.sendPrivately("bob", "small");
+        alice.sendToChannel("public");
+        bulk.get(10, TimeUnit.SECONDS);
+        assertTrue(semaphore.tryAcquire(3, 10, TimeUnit.SECONDS));
+        assertArrayEquals(large, (byte[]) received.get(0));
+        assertEquals("small", received.get(1));
+        assertEquals("public", received.get(2));
+    }
+
+    @Test
+    public void testBlockingEngine() throws Exception {
+        start(ServerEngine.BLOCKING);
+        testLargeMessageIsOvertaken();
+    }
+
+    @Test
+    public void testSelectorEngine() throws Exception {
+        start(ServerEngine.SELECTOR);
+        testLargeMessageIsOvertaken();
+    }
+
+    @Test
+    public void testBlockingEngineKeepsOrderPerSender() throws Exception {
+        start(ServerEngine.BLOCKING);
+        testLargeMessageKeepsOrderPerSender();
+    }
+
+    @Test
+    public void testSelectorEngineKeepsOrderPerSender() throws Exception {
+        start(ServerEngine.SELECTOR);
+        testLargeMessageKeepsOrderPerSender();
+    }
+
+}
@@ -0,0 +1,60 @@
+package ch.awae.netcode.client;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(Thread::new, "test timer", 5, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testTimeoutsExpire() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1000);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            // spread over several rounds of the wheel
+            timer.schedule(latch::countDown, 50 + i % 100, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testCancelledTimeoutsDoNotExpire() throws Exception {
+        AtomicInteger expired = new AtomicInteger();
+        List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            timeouts.add(timer.schedule(expired::incrementAndGet, 200 + i % 50, TimeUnit.MILLISECONDS));
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        HashedWheelTimer.Timeout kept = timer.schedule(latch::countDown, 400, TimeUnit.MILLISECONDS);
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            assertTrue(timeout.cancel());
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+        assertEquals(0, expired.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStoppedTimerRejectsTimeouts() {
+        timer.stop();
+        timer.schedule(() -> {
+        }, 1, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,78 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * round trip latency of a small question while the same client sends a large channel message every 20ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterleavingBenchmark {
+
+    @Param({"0", "1048576"})
+    private int bulkSize;
+
+    private NetcodeServer server;
+    private NetcodeClient sender;
+    private NetcodeClient receiver;
+    private ClientReference reference;
+    private Thread bulkSender;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new NetcodeServerFactory(8000).start();
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "benchmark");
+        sender = clientFactory.createChannel("sender");
+        receiver = clientFactory.joinChannel(sender.getChannelId(), "receiver", null);
+        receiver.setQuestionHandler((userId, timestamp, question) -> question);
+        reference = sender.getClientReference("receiver");
+        if (bulkSize > 0) {
+            byte[] bulk = new byte[bulkSize];
+            bulkSender = new Thread(() -> {
+                while (!Thread.interrupted()) {
+                    try {
+                        sender.sendToChannel(bulk);
+                        // paced, so the benchmark measures queueing rather than cpu starvation
+                        Thread.sleep(20);
+                    } catch (RuntimeException | InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            bulkSender.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (bulkSender != null) {
+            bulkSender.interrupt();
+        }
+        sender.disconnect();
+        receiver.disconnect();
+        server.terminateAndJoin();
+    }
+
+    @Benchmark
+    public Serializable askQuestion() throws ExecutionException, InterruptedException {
+        return reference.askQuestion(42).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InterleavingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
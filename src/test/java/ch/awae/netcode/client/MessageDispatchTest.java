@@ -0,0 +1,160 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class MessageDispatchTest {
+
+    private NetcodeServer server;
+    private NetcodeClient alice, bob, carol;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    private void connect(MessageDispatch dispatch) throws Exception {
+        connect(dispatch, 2, 1024);
+    }
+
+    private void connect(MessageDispatch dispatch, int threads, int queueSize) throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setMessageDispatch(dispatch);
+        clientFactory.setDispatchThreads(threads);
+        clientFactory.setDispatchQueueSize(queueSize);
+        alice = clientFactory.createChannel("alice");
+        bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        carol = clientFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Users.await(alice, "bob");
+        Users.await(alice, "carol");
+        Users.await(bob, "carol");
+    }
+
+    @Test
+    public void testInlineIsDefault() {
+        assertEquals(MessageDispatch.INLINE, new NetcodeClientFactory("localhost", 8000, "testApp").getMessageDispatch());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDispatchThreadsMustBePositive() {
+        new NetcodeClientFactory("localhost", 8000, "testApp").setDispatchThreads(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDispatchQueueSizeMustBePositive() {
+        new NetcodeClientFactory("localhost", 8000, "testApp").setDispatchQueueSize(0);
+    }
+
+    @Test
+    public void testFullDispatchQueueHoldsUpReader() throws Exception {
+        connect(MessageDispatch.POOLED, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(3);
+        alice.setMessageHandler((sender, timestamp, message) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.countDown();
+        });
+        bob.setQuestionHandler((sender, timestamp, question) -> question);
+        // one message is handled, one is queued and the reader waits with the third
+        for (int i = 0; i < 3; i++) {
+            bob.sendPrivately("alice", i);
+        }
+        Future<Serializable> answer = alice.getClientReference("bob").askQuestion("ping");
+        try {
+            answer.get(300, TimeUnit.MILLISECONDS);
+            fail("the response should wait behind the messages");
+        } catch (TimeoutException e) {
+            // expected
+        } finally {
+            release.countDown();
+        }
+        assertEquals("ping", answer.get(5, TimeUnit.SECONDS));
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testResponsesDoNotWaitForMessageHandlers() throws Exception {
+        connect(MessageDispatch.ORDERED_PER_SENDER);
+        CountDownLatch release = new CountDownLatch(1);
+        alice.setMessageHandler((sender, timestamp, message) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bob.setQuestionHandler((sender, timestamp, question) -> question);
+        bob.sendPrivately("alice", "blocking");
+        try {
+            assertEquals("ping", alice.getClientReference("bob").askQuestion("ping").get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testOrderIsKeptPerSender() throws Exception {
+        connect(MessageDispatch.ORDERED_PER_SENDER);
+        List<Object> fromBob = Collections.synchronizedList(new ArrayList<>());
+        List<Object> fromCarol = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(200);
+        alice.setMessageHandler((sender, timestamp, message) -> {
+            (sender.equals("bob") ? fromBob : fromCarol).add(message);
+            done.countDown();
+        });
+        for (int i = 0; i < 100; i++) {
+            bob.sendPrivately("alice", i);
+            carol.sendPrivately("alice", i);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, fromBob.get(i));
+            assertEquals(i, fromCarol.get(i));
+        }
+    }
+
+    @Test
+    public void testPooledHandlersRunInParallel() throws Exception {
+        connect(MessageDispatch.POOLED);
+        CountDownLatch both = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        alice.setMessageHandler((sender, timestamp, message) -> {
+            both.countDown();
+            try {
+                // only returns if the other message is handled at the same time
+                if (both.await(5, TimeUnit.SECONDS)) {
+                    done.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bob.sendPrivately("alice", 1);
+        bob.sendPrivately("alice", 2);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+}
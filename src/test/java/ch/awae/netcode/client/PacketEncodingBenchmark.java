@@ -0,0 +1,47 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Frames;
+import ch.awae.netcode.internal.PacketFrame;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketEncodingBenchmark {
+
+    private final PayloadCodec codec = new JavaPayloadCodec();
+    private final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+    private final Serializable payload = "a typical chat message of moderate length";
+    private byte[] frame;
+
+    @Setup
+    public void setUp() throws IOException {
+        frame = send();
+    }
+
+    @Benchmark
+    public byte[] send() throws IOException {
+        return Frames.encode(new NetcodePacketImpl(timestamp, "alice", null, -1, NetcodePacketType.MESSAGE, payload, codec));
+    }
+
+    @Benchmark
+    public Serializable receive() throws IOException, ClassNotFoundException {
+        return NetcodePacketImpl.fromFrame((PacketFrame) Frames.decode(frame)).getPayload(codec);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PacketEncodingBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+
+}
@@ -0,0 +1,77 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Frames;
+import ch.awae.netcode.internal.PacketFrame;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import java.io.StreamCorruptedException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class PacketFrameTest {
+
+    private final PayloadCodec codec = new JavaPayloadCodec();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Timestamp timestamp = Timestamp.from(Instant.now());
+        NetcodePacketImpl packet = new NetcodePacketImpl(timestamp, "alice", "bob", 42, NetcodePacketType.QUESTION, "hello", codec);
+
+        PacketFrame frame = (PacketFrame) Frames.decode(Frames.encode(packet));
+        assertEquals("bob", frame.getDestinationId());
+        assertEquals("alice", frame.getSenderId());
+        assertEquals(42, frame.getCorrelationId());
+
+        NetcodePacketImpl copy = NetcodePacketImpl.fromFrame(frame);
+        assertEquals(timestamp, copy.getTimestamp());
+        assertEquals("alice", copy.getSenderId());
+        assertEquals("bob", copy.getDestinationId());
+        assertEquals(42, copy.getCorrelationId());
+        assertEquals(NetcodePacketType.QUESTION, copy.getType());
+        assertEquals("hello", copy.getPayload(codec));
+    }
+
+    @Test
+    public void testPublicPacketHasNoDestination() throws Exception {
+        NetcodePacketImpl packet = new NetcodePacketImpl(Timestamp.from(Instant.now()), "alice", null, -1, NetcodePacketType.MESSAGE, 7, codec);
+        PacketFrame frame = (PacketFrame) Frames.decode(Frames.encode(packet));
+        assertNull(frame.getDestinationId());
+        assertEquals(7, NetcodePacketImpl.fromFrame(frame).getPayload(codec));
+    }
+
+    @Test
+    public void testFrameIsRelayedUnchanged() throws Exception {
+        NetcodePacketImpl packet = new NetcodePacketImpl(Timestamp.from(Instant.now()), "alice", null, -1, NetcodePacketType.MESSAGE, "hi", codec);
+        PacketFrame frame = packet.toFrame();
+        assertSame(frame.getFrame(), Frames.encode(frame));
+    }
+
+    @Test
+    public void testPayloadIsDecodedOnce() throws Exception {
+        NetcodePacketImpl packet = new NetcodePacketImpl(Timestamp.from(Instant.now()), "alice", null, -1, NetcodePacketType.MESSAGE, new ArrayList<>(), codec);
+        NetcodePacketImpl copy = NetcodePacketImpl.fromFrame((PacketFrame) Frames.decode(Frames.encode(packet)));
+        assertSame(copy.getPayload(codec), copy.getPayload(codec));
+    }
+
+    @Test
+    public void testFramedPacketSurvivesJavaSerialization() throws Exception {
+        NetcodePacketImpl packet = new NetcodePacketImpl(Timestamp.from(Instant.now()), "alice", "bob", 3, NetcodePacketType.RESPONSE, "hello", codec);
+        NetcodePacketImpl relayed = NetcodePacketImpl.fromFrame(packet.toFrame());
+        NetcodePacketImpl copy = SerializationUtils.roundtrip(relayed);
+        assertEquals("bob", copy.getDestinationId());
+        assertEquals(NetcodePacketType.RESPONSE, copy.getType());
+        assertEquals("hello", copy.getPayload(codec));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testUnknownPacketTypeIsRejected() throws Exception {
+        PacketFrame frame = PacketFrame.encode(null, "alice", (byte) NetcodePacketType.values().length, -1,
+                Timestamp.from(Instant.now()), new byte[0]);
+        NetcodePacketImpl.fromFrame(frame);
+    }
+
+}
@@ -0,0 +1,60 @@
+package ch.awae.netcode.client;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares encode/decode throughput of the built-in payload codecs. The encoded size per codec is printed before the
+ * benchmark starts. Run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    @Param({"java", "registry"})
+    public String codecName;
+
+    private PayloadCodec codec;
+    private Serializable payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = createCodec(codecName);
+        payload = new PayloadCodecTest.Position(17, 42);
+        encoded = codec.encode(payload);
+    }
+
+    private static PayloadCodec createCodec(String name) {
+        return "java".equals(name) ? new JavaPayloadCodec() : PayloadCodecTest.createRegistry();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(payload);
+    }
+
+    @Benchmark
+    public Serializable decode() throws IOException, ClassNotFoundException {
+        return codec.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        for (String name : new String[]{"java", "registry"}) {
+            byte[] data = createCodec(name).encode(new PayloadCodecTest.Position(17, 42));
+            System.out.println(name + ": " + data.length + " bytes per message");
+        }
+        new Runner(new OptionsBuilder().include(PayloadCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
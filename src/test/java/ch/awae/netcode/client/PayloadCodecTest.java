@@ -0,0 +1,169 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.HandshakeException;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PayloadCodecTest {
+
+    private NetcodeServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    static class Position implements Serializable {
+        final int x, y;
+
+        Position(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static class Named implements Externalizable {
+        String name;
+        Serializable attachment;
+
+        public Named() {
+        }
+
+        Named(String name, Serializable attachment) {
+            this.name = name;
+            this.attachment = attachment;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeObject(attachment);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            name = in.readUTF();
+            attachment = (Serializable) in.readObject();
+        }
+    }
+
+    static RegistryPayloadCodec createRegistry() {
+        RegistryPayloadCodec codec = new RegistryPayloadCodec();
+        codec.register(1, Position.class, new TypeCodec<Position>() {
+            @Override
+            public void write(Position value, DataOutput out) throws IOException {
+                out.writeInt(value.x);
+                out.writeInt(value.y);
+            }
+
+            @Override
+            public Position read(DataInput in) throws IOException {
+                return new Position(in.readInt(), in.readInt());
+            }
+        });
+        codec.register(2, Named.class);
+        return codec;
+    }
+
+    @Test
+    public void testRegisteredTypeIsCompact() throws Exception {
+        RegistryPayloadCodec codec = createRegistry();
+        byte[] data = codec.encode(new Position(3, 4));
+        assertEquals(9, data.length);
+        Position position = (Position) codec.decode(data);
+        assertEquals(3, position.x);
+        assertEquals(4, position.y);
+        assertTrue(new JavaPayloadCodec().encode(new Position(3, 4)).length > 50);
+    }
+
+    @Test
+    public void testExternalizableWithNestedObjects() throws Exception {
+        RegistryPayloadCodec codec = createRegistry();
+        Named named = (Named) codec.decode(codec.encode(new Named("home", new Position(1, 2))));
+        assertEquals("home", named.name);
+        assertEquals(2, ((Position) named.attachment).y);
+    }
+
+    @Test
+    public void testUnregisteredTypesFallBackToSerialization() throws Exception {
+        RegistryPayloadCodec codec = createRegistry();
+        assertEquals("hello", codec.decode(codec.encode("hello")));
+        assertNull(codec.decode(codec.encode(null)));
+    }
+
+    @Test
+    public void testInvalidFallbackLengthIsRejected() throws Exception {
+        RegistryPayloadCodec codec = createRegistry();
+        byte[] valid = codec.encode("hello");
+        // the fallback id followed by a negative length, and by a length beyond the input
+        byte[][] forged = {
+                {valid[0], (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                {valid[0], (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x40, 1, 2, 3}
+        };
+        for (byte[] data : forged) {
+            try {
+                codec.decode(data);
+                fail("invalid length should be rejected");
+            } catch (StreamCorruptedException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testNameDependsOnRegistrations() {
+        assertEquals(createRegistry().getName(), createRegistry().getName());
+        assertNotEquals(createRegistry().getName(), new RegistryPayloadCodec().getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIdIsRejected() {
+        createRegistry().register(1, Named.class);
+    }
+
+    @Test
+    public void testChannelWithRegistryCodec() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setPayloadCodec(createRegistry());
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+
+        Semaphore semaphore = new Semaphore(0);
+        AtomicReference<Serializable> received = new AtomicReference<>();
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            received.set(message);
+            semaphore.release();
+        });
+        alice.sendToChannel(new Position(5, 6));
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(6, ((Position) received.get()).y);
+
+        bob.setQuestionHandler((sender, timestamp, question) -> new Position(((Position) question).y, ((Position) question).x));
+        Position answer = (Position) alice.getClientReference("bob").askQuestion(new Position(1, 2)).get(5, TimeUnit.SECONDS);
+        assertEquals(2, answer.x);
+    }
+
+    @Test(expected = HandshakeException.class)
+    public void testMismatchingCodecIsRejected() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        clientFactory.setPayloadCodec(createRegistry());
+        clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+    }
+}
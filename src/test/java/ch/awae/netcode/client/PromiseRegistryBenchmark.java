@@ -0,0 +1,119 @@
+package ch.awae.netcode.client;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * register, fulfill and await a promise, the bookkeeping of a question without any networking. Compares the shared
+ * {@link PromiseTable} against the previous layout of two boxed maps and completion callbacks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromiseRegistryBenchmark {
+
+    /**
+     * question timeout in milliseconds, 0 for none
+     */
+    @Param({"0", "60000"})
+    private long timeout;
+
+    private HashedWheelTimer timer;
+    private PromiseManager<Serializable> promises;
+    private ConcurrentHashMapPromises<Serializable> legacyPromises;
+    private final PromiseManager.Owner owner = (correlationId, cancelled) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        timer = new HashedWheelTimer(Thread::new, "benchmark timer", 10, TimeUnit.MILLISECONDS, 512);
+        promises = new PromiseManager<>(timer, new QuestionStatisticsImpl());
+        legacyPromises = new ConcurrentHashMapPromises<>(timer, new QuestionStatisticsImpl());
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Benchmark
+    public Serializable promiseTable() {
+        long id = promises.nextCorrelationId();
+        CompletableFuture<Serializable> promise = promises.createPromise(id, timeout, owner);
+        promises.fulfill(id, "answer");
+        return promise.join();
+    }
+
+    @Benchmark
+    public Serializable concurrentHashMap() {
+        long id = legacyPromises.nextCorrelationId();
+        CompletableFuture<Serializable> promise = legacyPromises.ask(id, timeout);
+        legacyPromises.fulfill(id, "answer");
+        return promise.join();
+    }
+
+    /**
+     * the promise bookkeeping before the promise table: the manager and the client reference each kept a map of
+     * boxed ids and removed their entries in completion callbacks.
+     */
+    private static class ConcurrentHashMapPromises<T> {
+
+        private final AtomicLong nextCorrelationId = new AtomicLong(1);
+        private final ConcurrentHashMap<Long, CompletableFuture<T>> promises = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, CompletableFuture<T>> referencePromises = new ConcurrentHashMap<>();
+        private final HashedWheelTimer timer;
+        private final QuestionStatisticsImpl statistics;
+
+        ConcurrentHashMapPromises(HashedWheelTimer timer, QuestionStatisticsImpl statistics) {
+            this.timer = timer;
+            this.statistics = statistics;
+        }
+
+        long nextCorrelationId() {
+            return nextCorrelationId.getAndIncrement();
+        }
+
+        CompletableFuture<T> ask(long id, long timeout) {
+            CompletableFuture<T> promise = new CompletableFuture<>();
+            promises.put(id, promise);
+            statistics.asked();
+            if (timeout > 0) {
+                HashedWheelTimer.Timeout expiry = timer.schedule(() -> promises.remove(id), timeout, TimeUnit.MILLISECONDS);
+                promise.whenComplete((result, error) -> expiry.cancel());
+            }
+            promise.whenComplete((result, error) -> promises.remove(id, promise));
+            referencePromises.put(id, promise);
+            promise.whenComplete((result, error) -> referencePromises.remove(id));
+            return promise;
+        }
+
+        void fulfill(long id, T result) {
+            CompletableFuture<T> promise = promises.remove(id);
+            if (promise == null || promise.isDone()) {
+                statistics.lateResponse();
+                return;
+            }
+            statistics.answered();
+            promise.complete(result);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4}) {
+            new Runner(new OptionsBuilder().include(PromiseRegistryBenchmark.class.getSimpleName())
+                    .threads(threads).addProfiler("gc").build()).run();
+        }
+    }
+
+}
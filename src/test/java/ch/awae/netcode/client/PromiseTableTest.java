@@ -0,0 +1,72 @@
+package ch.awae.netcode.client;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PromiseTableTest {
+
+    @Test
+    public void testPutGetRemove() {
+        PromiseTable<String> table = new PromiseTable<>(4);
+        assertNull(table.put(1, "a"));
+        assertNull(table.put(2, "b"));
+        assertEquals("a", table.put(1, "c"));
+        assertEquals("c", table.get(1));
+        assertEquals(2, table.size());
+        assertEquals("c", table.remove(1));
+        assertNull(table.remove(1));
+        assertNull(table.get(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testConditionalRemoveComparesIdentity() {
+        PromiseTable<String> table = new PromiseTable<>(1);
+        String value = "value";
+        table.put(7, value);
+        assertFalse(table.remove(7, new String(value)));
+        assertTrue(table.remove(7, value));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        // a single stripe, so resizing and backward shifting are exercised heavily
+        PromiseTable<Long> table = new PromiseTable<>(1);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertEquals(reference.put(key, (long) i), table.put(key, (long) i));
+            } else {
+                assertEquals(reference.remove(key), table.remove(key));
+            }
+        }
+        assertEquals(reference.size(), table.size());
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(reference.get(key), table.get(key));
+        }
+    }
+
+    @Test
+    public void testRemoveIf() {
+        PromiseTable<Long> table = new PromiseTable<>(8);
+        for (long key = 0; key < 1000; key++) {
+            table.put(key, key);
+        }
+        List<Long> removed = table.removeIf(value -> value % 3 == 0);
+        assertEquals(334, removed.size());
+        assertEquals(666, table.size());
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(key % 3 == 0 ? null : (Long) key, table.get(key));
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.OverloadedException;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QuestionExecutorTest {
+
+    private NetcodeServer server;
+    private NetcodeClientFactory clientFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testSaturatedExecutorShedsQuestions() throws Exception {
+        clientFactory.setQuestionThreads(1);
+        clientFactory.setQuestionQueueSize(1);
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bob.setQuestionHandler((sender, timestamp, question) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return question;
+        });
+        ClientReference reference = alice.getClientReference("bob");
+        Future<Serializable> running = reference.askQuestion("first");
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<Serializable> queued = reference.askQuestion("second");
+        try {
+            reference.askQuestion("third").get(5, TimeUnit.SECONDS);
+            fail("overload expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OverloadedException);
+        }
+
+        QuestionExecutorStatistics statistics = bob.getQuestionExecutorStatistics();
+        assertEquals(1, statistics.getActiveQuestions());
+        assertEquals(1, statistics.getQueuedQuestions());
+        assertEquals(1, statistics.getRejectedQuestions());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, statistics.getQueuedQuestions());
+    }
+
+    @Test
+    public void testSuppliedExecutorAnswersQuestions() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        clientFactory.setQuestionExecutor(task -> {
+            executed.incrementAndGet();
+            new Thread(task).start();
+        });
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+        bob.setQuestionHandler((sender, timestamp, question) -> question);
+
+        assertEquals("ping", alice.getClientReference("bob").askQuestion("ping").get(5, TimeUnit.SECONDS));
+        assertEquals(1, executed.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQuestionThreadsMustBePositive() {
+        clientFactory.setQuestionThreads(0);
+    }
+
+}
@@ -0,0 +1,191 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QuestionFlowControlTest {
+
+    private NetcodeServer server;
+    private NetcodeClientFactory clientFactory;
+    private NetcodeClient alice, bob;
+    private ClientReference bobRef;
+    private final Semaphore started = new Semaphore(0);
+    private final Semaphore release = new Semaphore(0);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setQuestionWindow(2);
+        alice = clientFactory.createChannel("alice");
+        bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        bob.setQuestionHandler((sender, timestamp, question) -> {
+            handled.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.release();
+            try {
+                if (!"fast".equals(question)) {
+                    release.acquire();
+                }
+                return question;
+            } catch (InterruptedException e) {
+                return "interrupted";
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        Users.await(alice, "bob");
+        bobRef = alice.getClientReference("bob");
+        // until bob's credits arrive, only the local limit applies
+        awaitCredits(alice, "bob");
+    }
+
+    private static void awaitCredits(NetcodeClient client, String user) throws InterruptedException {
+        QuestionCredits credits = ((NetcodeClientImpl) client).getQuestionCredits(user);
+        for (int i = 0; i < 500 && !credits.isGranted(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(credits.isGranted());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testQueuedQuestionsRespectTheWindow() throws Exception {
+        List<CompletableFuture<Serializable>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(bobRef.askQuestion(i, 5, TimeUnit.SECONDS));
+        }
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(2, running.get());
+        release.release(10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, responses.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testLocalLimit() throws Exception {
+        bobRef.setQuestionLimit(1);
+        CompletableFuture<Serializable> first = bobRef.askQuestion("first", 5, TimeUnit.SECONDS);
+        CompletableFuture<Serializable> second = bobRef.askQuestion("second", 5, TimeUnit.SECONDS);
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, handled.get());
+        release.release(2);
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        bobRef.askQuestion("first", 5, TimeUnit.SECONDS);
+        bobRef.askQuestion("second", 5, TimeUnit.SECONDS);
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        bobRef.setQuestionFlowControl(QuestionFlowControl.FAIL);
+        try {
+            bobRef.askQuestion("third", 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+            fail("question should have been rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, alice.getQuestionStatistics().getRejectedQuestions());
+        assertEquals(2, alice.getQuestionStatistics().getAskedQuestions());
+        release.release(2);
+    }
+
+    @Test
+    public void testWaitForCredits() throws Exception {
+        bobRef.askQuestion("first", 5, TimeUnit.SECONDS);
+        bobRef.askQuestion("second", 5, TimeUnit.SECONDS);
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        bobRef.setQuestionFlowControl(QuestionFlowControl.WAIT);
+        long start = System.nanoTime();
+        CompletableFuture<Serializable> third = bobRef.askQuestion("third", 100, TimeUnit.MILLISECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        try {
+            third.get(5, TimeUnit.SECONDS);
+            fail("no credit should have been available");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        release.release();
+        assertEquals("fast", bobRef.askQuestion("fast", 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        assertEquals(3, handled.get());
+        release.release();
+    }
+
+    @Test
+    public void testObjectStreamUsersAreNotLimited() throws Exception {
+        clientFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient carol = clientFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Semaphore carolStarted = new Semaphore(0);
+        Semaphore carolRelease = new Semaphore(0);
+        carol.setQuestionHandler((sender, timestamp, question) -> {
+            carolStarted.release();
+            carolRelease.acquireUninterruptibly();
+            return question;
+        });
+        Users.await(alice, "carol");
+        ClientReference carolRef = alice.getClientReference("carol");
+        List<CompletableFuture<Serializable>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(carolRef.askQuestion(i, 5, TimeUnit.SECONDS));
+        }
+        // carol grants no credits and accepts more questions than the window
+        assertTrue(carolStarted.tryAcquire(5, 5, TimeUnit.SECONDS));
+        carolRelease.release(5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, responses.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertFalse(((NetcodeClientImpl) alice).getQuestionCredits("carol").isGranted());
+        // the server does not forward alice's credits to carol, so carol does not wait for them
+        alice.setQuestionHandler((sender, timestamp, question) -> question);
+        assertEquals("hello", carol.getClientReference("alice").askQuestion("hello").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAbandonedQuestionsReturnTheirCredits() throws Exception {
+        CompletableFuture<Serializable> first = bobRef.askQuestion("first", 0, TimeUnit.SECONDS);
+        CompletableFuture<Serializable> second = bobRef.askQuestion("second", 0, TimeUnit.SECONDS);
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        CompletableFuture<Serializable> queued = bobRef.askQuestion("queued", 0, TimeUnit.SECONDS);
+        // never sent, the remote does not see it
+        assertTrue(queued.cancel(false));
+        // interrupts the handler, which returns the credit without an answer
+        assertTrue(first.cancel(true));
+        assertTrue(second.cancel(true));
+        for (int i = 0; i < 4; i++) {
+            assertEquals("fast", bobRef.askQuestion("fast", 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(6, handled.get());
+        assertEquals(3, alice.getQuestionStatistics().getCancelledQuestions());
+    }
+
+}
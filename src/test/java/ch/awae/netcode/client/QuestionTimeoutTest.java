@@ -0,0 +1,142 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class QuestionTimeoutTest {
+
+    private NetcodeServer server;
+    private NetcodeClient alice, bob;
+    private final Semaphore interrupted = new Semaphore(0);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setQuestionTimeout(300);
+        alice = clientFactory.createChannel("alice");
+        bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+        bob.setQuestionHandler((sender, timestamp, question) -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.release();
+            }
+            return "too late";
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testDefaultTimeout() throws Exception {
+        Future<Serializable> response = alice.getClientReference("bob").askQuestion("hello");
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("question should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(interrupted.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(1, alice.getQuestionStatistics().getTimedOutQuestions());
+    }
+
+    @Test
+    public void testPerCallTimeout() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<Serializable> response = alice.getClientReference("bob").askQuestion("hello", 50, TimeUnit.MILLISECONDS);
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("question should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void testCancellationInterruptsTheHandler() throws Exception {
+        CompletableFuture<Serializable> response = alice.getClientReference("bob").askQuestion("hello", 0, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        assertTrue(response.cancel(true));
+        assertTrue(interrupted.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(1, alice.getQuestionStatistics().getCancelledQuestions());
+        assertEquals(0, alice.getQuestionStatistics().getTimedOutQuestions());
+    }
+
+    @Test
+    public void testLegacyClientsGetNoCancellation() throws Exception {
+        NetcodeClientFactory legacyFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        legacyFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient carol = legacyFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Semaphore completed = new Semaphore(0);
+        carol.setQuestionHandler((sender, timestamp, question) -> {
+            if ("slow".equals(question)) {
+                try {
+                    Thread.sleep(300);
+                    completed.release();
+                } catch (InterruptedException e) {
+                    interrupted.release();
+                }
+            }
+            return question;
+        });
+        Users.await(alice, "carol");
+        CompletableFuture<Serializable> response = alice.getClientReference("carol").askQuestion("slow", 50, TimeUnit.MILLISECONDS);
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("question should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(completed.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(0, interrupted.availablePermits());
+        assertEquals("fast", alice.getClientReference("carol").askQuestion("fast").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAnsweredQuestionsAreCounted() throws Exception {
+        bob.setQuestionHandler((sender, timestamp, question) -> question);
+        assertEquals("hello", alice.getClientReference("bob").askQuestion("hello").get(5, TimeUnit.SECONDS));
+        QuestionStatistics statistics = alice.getQuestionStatistics();
+        assertEquals(1, statistics.getAskedQuestions());
+        assertEquals(1, statistics.getAnsweredQuestions());
+        assertEquals(0, statistics.getLateResponses());
+    }
+
+    @Test
+    public void testLateResponsesAreDiscarded() {
+        QuestionStatisticsImpl statistics = new QuestionStatisticsImpl();
+        HashedWheelTimer timer = new HashedWheelTimer(Thread::new, "test timer", 10, TimeUnit.MILLISECONDS, 8);
+        try {
+            PromiseManager<Serializable> promises = new PromiseManager<>(timer, statistics);
+            long id = promises.nextCorrelationId();
+            promises.createPromise(id, 0, (correlationId, cancelled) -> {
+            }).cancel(false);
+            assertFalse(promises.fulfill(id, "answer"));
+            assertFalse(promises.fail(42, new Exception()));
+            assertEquals(2, statistics.getLateResponses());
+        } finally {
+            timer.stop();
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.client.binding.LocalBindings;
+import ch.awae.netcode.client.binding.RemoteBatch;
+import ch.awae.netcode.client.binding.RemoteBindings;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calls of a small remotely bound interface. {@code remoteCall} measures a full round trip through a local server,
+ * the dispatch benchmarks compare the cached method handles on the receiving side against a reflective lookup per
+ * call. The encode benchmarks compare the payload of a bound call against serializing the interface, method and
+ * arguments with every call. {@code batchedCall} sends void calls in batches of {@value #BATCH_SIZE}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteBindingsBenchmark {
+
+    private static final int BATCH_SIZE = 16;
+
+    public interface Counter {
+
+        int add(int delta);
+
+        void set(int value);
+
+    }
+
+    static class CounterImpl implements Counter {
+
+        private volatile int value;
+
+        @Override
+        public int add(int delta) {
+            return value += delta;
+        }
+
+        @Override
+        public void set(int value) {
+            this.value = value;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Remote {
+
+        private NetcodeServer server;
+        private NetcodeClient caller;
+        private NetcodeClient callee;
+        private RemoteBindings bindings;
+        private Counter counter;
+
+        @Setup
+        public void setUp() throws IOException, InterruptedException {
+            server = new NetcodeServerFactory(8000).start();
+            NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "benchmark");
+            caller = clientFactory.createChannel("caller");
+            callee = clientFactory.joinChannel(caller.getChannelId(), "callee", null);
+            callee.getLocalBindings().register(new CounterImpl());
+            while (!Arrays.asList(caller.getUsers()).contains("callee")) {
+                Thread.sleep(10);
+            }
+            bindings = caller.getClientReference("callee").getRemoteBindings();
+            counter = bindings.bindBean(Counter.class);
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            caller.disconnect();
+            callee.disconnect();
+            server.terminateAndJoin();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Local {
+
+        private final LocalBindings bindings = LocalBindings.createInstance();
+        private final PayloadCodec codec = new JavaPayloadCodec();
+        private final BeanDispatcher dispatcher = new BeanDispatcher(bindings, codec);
+        private final BeanInterface beanInterface = BeanInterface.of(Counter.class);
+        private final Object[] arguments = {1};
+        private byte[] invocation;
+
+        @Setup
+        public void setUp() throws IOException {
+            bindings.register(new CounterImpl());
+            int bindingId = dispatcher.bind("caller", new BindRequest(null, Counter.class.getName(), beanInterface.getSignatures()));
+            invocation = InvocationCodec.encode(bindingId, 0, beanInterface.getParameterTypes(0), arguments, codec);
+        }
+    }
+
+    @Benchmark
+    public int remoteCall(Remote remote) {
+        return remote.counter.add(1);
+    }
+
+    @Benchmark
+    public void voidCall(Remote remote) {
+        remote.counter.set(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchedCall(Remote remote) {
+        RemoteBatch batch = remote.bindings.startBatch();
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                remote.counter.set(i);
+            }
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Benchmark
+    public Serializable methodHandleDispatch(Local local) {
+        return local.dispatcher.invoke("caller", ByteBuffer.wrap(local.invocation));
+    }
+
+    /**
+     * resolves the interface and method on every call, like a dispatcher without method tables.
+     */
+    @Benchmark
+    public Object reflectiveDispatch(Local local) throws ReflectiveOperationException {
+        Class<?> type = Class.forName(Counter.class.getName());
+        Object bean = local.bindings.getBean(null, type);
+        Method method = type.getMethod("add", int.class);
+        try {
+            return method.invoke(bean, 1);
+        } catch (InvocationTargetException e) {
+            return e.getCause();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeInvocation(Local local) throws IOException {
+        return InvocationCodec.encode(0, 0, local.beanInterface.getParameterTypes(0), local.arguments, local.codec);
+    }
+
+    /**
+     * the interface and method travel with every call.
+     */
+    @Benchmark
+    public byte[] encodeSerialized(Local local) throws IOException {
+        return local.codec.encode(new Object[]{null, Counter.class.getName(), local.beanInterface.getSignatures()[0], local.arguments});
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RemoteBindingsBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+
+}
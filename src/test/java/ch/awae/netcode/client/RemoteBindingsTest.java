@@ -0,0 +1,299 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.client.binding.OneWay;
+import ch.awae.netcode.client.binding.RemoteBatch;
+import ch.awae.netcode.client.binding.RemoteBindings;
+import ch.awae.netcode.exception.NetcodeException;
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class RemoteBindingsTest {
+
+    interface Calculator {
+
+        int add(int a, int b);
+
+        String describe(List<Integer> values);
+
+        void store(long value);
+
+        long stored();
+
+        void fail(String message) throws IOException;
+
+        @OneWay
+        void record(long value);
+
+    }
+
+    interface Broken {
+
+        @OneWay
+        int result();
+
+    }
+
+    static class CalculatorImpl implements Calculator {
+
+        private final String name;
+        private volatile long stored;
+
+        CalculatorImpl(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Override
+        public String describe(List<Integer> values) {
+            return name + values;
+        }
+
+        @Override
+        public void store(long value) {
+            stored = value;
+        }
+
+        @Override
+        public long stored() {
+            return stored;
+        }
+
+        @Override
+        public void fail(String message) throws IOException {
+            if (message == null) {
+                throw new IllegalArgumentException("no message");
+            }
+            throw new IOException(message);
+        }
+
+        @Override
+        public void record(long value) {
+            stored = value;
+        }
+    }
+
+    private NetcodeServer server;
+    private NetcodeClient alice, bob;
+    private RemoteBindings bobBindings;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        alice = clientFactory.createChannel("alice");
+        bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        bob.getLocalBindings().register(new CalculatorImpl("default"));
+        bob.getLocalBindings().register("other", new CalculatorImpl("other"));
+        Users.await(alice, "bob");
+        bobBindings = alice.getClientReference("bob").getRemoteBindings();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testCallsReachTheRemoteBean() {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        assertEquals(5, calculator.add(2, 3));
+        assertEquals("default[1, 2]", calculator.describe(new ArrayList<>(Arrays.asList(1, 2))));
+        calculator.store(42);
+        assertEquals(42, calculator.stored());
+        assertEquals(42, bob.getLocalBindings().getBean(Calculator.class).stored());
+    }
+
+    @Test
+    public void testQualifiedBean() {
+        assertEquals("other[]", bobBindings.bindBean("other", Calculator.class).describe(new ArrayList<>()));
+    }
+
+    @Test
+    public void testExceptionsArePropagated() {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        try {
+            calculator.fail("broken");
+            fail("exception expected");
+        } catch (IOException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        try {
+            calculator.fail(null);
+            fail("exception expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no message", e.getMessage());
+        } catch (IOException e) {
+            fail("wrong exception: " + e);
+        }
+    }
+
+    @Test(expected = NetcodeException.class)
+    public void testMissingBean() {
+        bobBindings.bindBean("missing", Calculator.class).add(1, 2);
+    }
+
+    @Test
+    public void testObjectMethodsAreLocal() {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        long asked = alice.getQuestionStatistics().getAskedQuestions();
+        assertEquals(calculator, calculator);
+        assertNotEquals(calculator, bobBindings.bindBean(Calculator.class));
+        assertEquals(System.identityHashCode(calculator), calculator.hashCode());
+        assertTrue(calculator.toString().contains(Calculator.class.getName()));
+        assertEquals(asked, alice.getQuestionStatistics().getAskedQuestions());
+    }
+
+    @Test
+    public void testInterfaceIsBoundOnce() {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        bobBindings.bindBean(Calculator.class);
+        assertEquals(1, alice.getQuestionStatistics().getAskedQuestions());
+        bobBindings.bindBean("other", Calculator.class);
+        assertEquals(2, alice.getQuestionStatistics().getAskedQuestions());
+        assertEquals(3, calculator.add(1, 2));
+        assertEquals(3, alice.getQuestionStatistics().getAskedQuestions());
+    }
+
+    @Test
+    public void testNullArguments() {
+        assertEquals("defaultnull", bobBindings.bindBean(Calculator.class).describe(null));
+    }
+
+    @Test
+    public void testOneWayCallsAreNotAnswered() throws InterruptedException {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        long asked = alice.getQuestionStatistics().getAskedQuestions();
+        calculator.record(17);
+        Calculator bean = bob.getLocalBindings().getBean(Calculator.class);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bean.stored() != 17 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(17, bean.stored());
+        assertEquals(asked, alice.getQuestionStatistics().getAskedQuestions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOneWayMethodsMustBeVoid() {
+        bobBindings.bindBean(Broken.class);
+    }
+
+    @Test
+    public void testBatchRunsInOrderWithOneQuestion() throws Exception {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        long asked = alice.getQuestionStatistics().getAskedQuestions();
+        RemoteBatch batch = bobBindings.startBatch();
+        try {
+            for (int i = 1; i <= 10; i++) {
+                calculator.store(i);
+            }
+            calculator.record(11);
+            assertEquals(0, bob.getLocalBindings().getBean(Calculator.class).stored());
+        } finally {
+            batch.close();
+        }
+        assertEquals(11, bob.getLocalBindings().getBean(Calculator.class).stored());
+        assertEquals(asked + 1, alice.getQuestionStatistics().getAskedQuestions());
+        // calls after the batch are sent directly again
+        assertEquals(3, calculator.add(1, 2));
+    }
+
+    @Test
+    public void testBatchReportsFirstFailure() throws Exception {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        RemoteBatch batch = bobBindings.startBatch();
+        calculator.fail(null);
+        calculator.store(5);
+        calculator.fail("broken");
+        try {
+            batch.close();
+            fail("exception expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no message", e.getMessage());
+            assertEquals(1, e.getSuppressed().length);
+        }
+        // later calls still ran
+        assertEquals(5, calculator.stored());
+        try {
+            batch.submit().get();
+            fail("exception expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testBatchRejectsCallsWithResults() {
+        Calculator calculator = bobBindings.bindBean(Calculator.class);
+        RemoteBatch batch = bobBindings.startBatch();
+        try {
+            calculator.add(1, 2);
+            fail("exception expected");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test
+    public void testIncompatibleInterfaceIsRejected() throws InterruptedException {
+        ClientReferenceImpl reference = (ClientReferenceImpl) alice.getClientReference("bob");
+        String[] signatures = BeanInterface.of(Calculator.class).getSignatures();
+        String[] extended = Arrays.copyOf(signatures, signatures.length + 1);
+        extended[signatures.length] = "subtract(II)I";
+        try {
+            reference.bind(new BindRequest(null, Calculator.class.getName(), extended)).get();
+            fail("mismatch expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NetcodeException);
+            assertTrue(e.getCause().getMessage().contains("subtract(II)I"));
+        }
+    }
+
+    @Test
+    public void testSubsetOfRemoteInterfaceIsCompatible() throws Exception {
+        ClientReferenceImpl reference = (ClientReferenceImpl) alice.getClientReference("bob");
+        String[] signatures = BeanInterface.of(Calculator.class).getSignatures();
+        assertNotNull(reference.bind(new BindRequest(null, Calculator.class.getName(), Arrays.copyOf(signatures, 1))).get());
+    }
+
+
+    @Test(timeout = 5000)
+    public void testLegacyUserRejectsBindings() throws Exception {
+        NetcodeClientFactory legacyFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        legacyFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient carol = legacyFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Users.await(alice, "carol");
+        // answered by the server long before the question timeout
+        try {
+            alice.getClientReference("carol").getRemoteBindings().bindBean(Calculator.class).add(1, 2);
+            fail("binding should have failed");
+        } catch (NetcodeException e) {
+            assertTrue(e.getMessage().contains("not supported by carol"));
+        }
+        // and the legacy client cannot bind at all
+        try {
+            carol.getClientReference("alice").getRemoteBindings().bindBean(Calculator.class).add(1, 2);
+            fail("binding should have failed");
+        } catch (NetcodeException e) {
+            assertTrue(e.getMessage().contains("not supported by the server"));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import ch.awae.netcode.server.ServerEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SelectorEngineTest {
+
+    private NetcodeServer server;
+    private NetcodeClientFactory clientFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setEngine(ServerEngine.SELECTOR);
+        serverFactory.setEventLoopCount(2);
+        server = serverFactory.start();
+        clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    private NetcodeClient join(NetcodeClient creator, String user) throws InterruptedException {
+        Semaphore semaphore = new Semaphore(0);
+        creator.setEventHandler((userId, joined) -> {
+            if (joined && user.equals(userId)) semaphore.release();
+        });
+        NetcodeClient client = clientFactory.joinChannel(creator.getChannelId(), user, null);
+        assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
+        creator.setEventHandler(null);
+        return client;
+    }
+
+    @Test
+    public void testPublicMessagesReachEveryone() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = join(alice, "bob");
+        NetcodeClient carol = join(alice, "carol");
+
+        Semaphore semaphore = new Semaphore(0);
+        MessageHandler countingHandler = (sender, timestamp, message) -> semaphore.release();
+        alice.setMessageHandler(countingHandler);
+        bob.setMessageHandler(countingHandler);
+        carol.setMessageHandler(countingHandler);
+
+        bob.sendToChannel("hello world");
+
+        assertTrue(semaphore.tryAcquire(3, 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMessagesArriveInOrder() throws Exception {
+        final int MESSAGE_COUNT = 10000;
+
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = join(alice, "bob");
+
+        AtomicInteger nextId = new AtomicInteger(0);
+        AtomicBoolean errorFlag = new AtomicBoolean(false);
+        Semaphore semaphore = new Semaphore(0);
+
+        bob.setMessageHandler((sender, timestamp, message) -> {
+            int value = (int) message;
+            if (!nextId.compareAndSet(value, value + 1)) {
+                errorFlag.set(true);
+            }
+            if (value + 1 == MESSAGE_COUNT) {
+                semaphore.release();
+            }
+        });
+
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            alice.sendToChannel(i);
+        }
+
+        assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
+        assertFalse(errorFlag.get());
+    }
+
+    @Test
+    public void testLeaveIsBroadcast() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        NetcodeClient bob = join(alice, "bob");
+
+        Semaphore semaphore = new Semaphore(0);
+        bob.setEventHandler((userId, joined) -> {
+            if (!joined) semaphore.release();
+        });
+
+        alice.disconnect();
+
+        assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
+        assertEquals(1, bob.getUsers().length);
+    }
+
+    @Test
+    public void testLegacyClientCanShareChannel() throws Exception {
+        NetcodeClient alice = clientFactory.createChannel("alice");
+        clientFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient bob = join(alice, "bob");
+
+        bob.setQuestionHandler((sender, time, question) -> question.toString().toUpperCase());
+        Future<Serializable> response = alice.getClientReference("bob").askQuestion("hello");
+        assertEquals("HELLO", response.get(10, TimeUnit.SECONDS));
+
+        Semaphore semaphore = new Semaphore(0);
+        alice.setMessageHandler((sender, timestamp, message) -> semaphore.release());
+        bob.sendPrivately("alice", "hello there");
+        assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,56 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * small messages sent by several threads of one client, per flush policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SendThroughputBenchmark {
+
+    @Param({"IMMEDIATE", "ON_DRAIN", "INTERVAL"})
+    private FlushPolicy flushPolicy;
+
+    private NetcodeServer server;
+    private NetcodeClient sender;
+    private NetcodeClient receiver;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new NetcodeServerFactory(8000).start();
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "benchmark");
+        clientFactory.setFlushPolicy(flushPolicy);
+        sender = clientFactory.createChannel("sender");
+        receiver = clientFactory.joinChannel(sender.getChannelId(), "receiver", null);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        sender.disconnect();
+        receiver.disconnect();
+        server.terminateAndJoin();
+    }
+
+    @Benchmark
+    public void sendPrivately() {
+        sender.sendPrivately("receiver", 42);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SendThroughputBenchmark.class.getSimpleName()).build()).run();
+    }
+}
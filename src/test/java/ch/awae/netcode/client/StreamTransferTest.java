@@ -0,0 +1,240 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.exception.NetcodeException;
+import ch.awae.netcode.internal.Protocol;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class StreamTransferTest {
+
+    private NetcodeServer server;
+    private NetcodeClient alice, bob;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NetcodeServerFactory(8000).start();
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        alice = clientFactory.createChannel("alice");
+        bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+        Users.await(alice, "bob");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    @Test
+    public void testLargeTransfer() throws Exception {
+        byte[] data = new byte[5 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        Semaphore semaphore = new Semaphore(0);
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            assertEquals("alice", sender);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = stream.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+            received.set(out.toByteArray());
+            semaphore.release();
+        });
+
+        alice.getClientReference("bob").sendStream(new ByteArrayInputStream(data)).get(10, TimeUnit.SECONDS);
+        assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
+        assertArrayEquals(data, received.get());
+    }
+
+    @Test
+    public void testChannelTransfer() throws Exception {
+        Semaphore semaphore = new Semaphore(0);
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            if (stream.read() == 1 && stream.read() == 2 && stream.read() == -1) {
+                semaphore.release();
+            }
+        });
+        alice.getClientReference("bob").sendStream(Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2}))).get(5, TimeUnit.SECONDS);
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSenderWaitsForSlowReceiver() throws Exception {
+        Semaphore started = new Semaphore(0);
+        Semaphore proceed = new Semaphore(0);
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            started.release();
+            proceed.acquireUninterruptibly();
+            while (stream.read(new byte[8192]) >= 0) {
+            }
+        });
+
+        AtomicLong read = new AtomicLong();
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                read.incrementAndGet();
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                read.addAndGet(len);
+                return len;
+            }
+        };
+        CompletableFuture<Void> transfer = alice.getClientReference("bob").sendStream(endless);
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        assertFalse(transfer.isDone());
+        assertTrue(read.get() <= (long) (StreamManager.WINDOW + 1) * StreamManager.CHUNK_SIZE);
+        proceed.release();
+        alice.disconnect();
+        try {
+            transfer.get(5, TimeUnit.SECONDS);
+            fail("transfer should have been aborted");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testMissingHandlerFailsTheTransfer() throws Exception {
+        try {
+            alice.getClientReference("bob").sendStream(new ByteArrayInputStream(new byte[1024 * 1024])).get(5, TimeUnit.SECONDS);
+            fail("transfer should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testReceiverClosingFailsTheTransfer() throws Exception {
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            stream.read();
+            stream.close();
+        });
+        try {
+            alice.getClientReference("bob").sendStream(new ByteArrayInputStream(new byte[8 * 1024 * 1024])).get(5, TimeUnit.SECONDS);
+            fail("transfer should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testSourceFailureAbortsTheReceiver() throws Exception {
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Semaphore semaphore = new Semaphore(0);
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            try {
+                while (stream.read() >= 0) {
+                }
+            } catch (IOException e) {
+                error.set(e);
+            }
+            semaphore.release();
+        });
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ > 100000) {
+                    throw new IOException("disk on fire");
+                }
+                return 1;
+            }
+        };
+        try {
+            alice.getClientReference("bob").sendStream(failing).get(5, TimeUnit.SECONDS);
+            fail("transfer should have failed");
+        } catch (ExecutionException e) {
+            assertEquals("disk on fire", e.getCause().getMessage());
+        }
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertTrue(error.get().getMessage().contains("disk on fire"));
+    }
+
+
+    @Test
+    public void testLegacyReceiverCancelsTheStream() throws Exception {
+        NetcodeClientFactory legacyFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        legacyFactory.setProtocolVersion(Protocol.OBJECT_STREAM);
+        NetcodeClient carol = legacyFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Users.await(alice, "carol");
+        try {
+            alice.getClientReference("carol").sendStream(new ByteArrayInputStream(new byte[1024 * 1024])).get(5, TimeUnit.SECONDS);
+            fail("transfer should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage().contains("not supported by carol"));
+        }
+        // and the legacy client cannot send streams at all
+        try {
+            carol.getClientReference("alice").sendStream(new ByteArrayInputStream(new byte[16])).get(5, TimeUnit.SECONDS);
+            fail("transfer should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NetcodeException);
+        }
+    }
+
+    @Test
+    public void testIdleTransferTimesOut() throws Exception {
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setStreamTimeout(200);
+        NetcodeClient carol = clientFactory.joinChannel(alice.getChannelId(), "carol", null);
+        Users.await(carol, "bob");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Semaphore semaphore = new Semaphore(0);
+        bob.setStreamHandler((sender, timestamp, stream) -> {
+            try {
+                release.await();
+                while (stream.read() >= 0) {
+                }
+            } catch (IOException | InterruptedException e) {
+                error.set(e);
+            }
+            semaphore.release();
+        });
+        try {
+            // more than a window, the receiver does not read
+            carol.getClientReference("bob").sendStream(new ByteArrayInputStream(new byte[8 * 1024 * 1024])).get(5, TimeUnit.SECONDS);
+            fail("transfer should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+        }
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IOException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStreamTimeoutMustNotBeNegative() {
+        new NetcodeClientFactory("localhost", 8000, "testApp").setStreamTimeout(-1);
+    }
+}
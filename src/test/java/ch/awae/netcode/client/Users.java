@@ -0,0 +1,20 @@
+package ch.awae.netcode.client;
+
+import java.util.Arrays;
+
+final class Users {
+
+    private Users() {
+    }
+
+    /**
+     * waits until the client has been notified that the user joined. Joining returns before the other clients of
+     * the channel know about the new user.
+     */
+    static void await(NetcodeClient client, String user) throws InterruptedException {
+        while (!Arrays.asList(client.getUsers()).contains(user)) {
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package ch.awae.netcode.client;
+
+import ch.awae.netcode.internal.Threads;
+import ch.awae.netcode.server.NetcodeServer;
+import ch.awae.netcode.server.NetcodeServerFactory;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class VirtualThreadTest {
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testServerRejectsVirtualThreadsIfUnsupported() {
+        Assume.assumeFalse(Threads.isVirtualThreadSupported());
+        new NetcodeServerFactory(8000).setVirtualThreads(true);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testClientRejectsVirtualThreadsIfUnsupported() {
+        Assume.assumeFalse(Threads.isVirtualThreadSupported());
+        new NetcodeClientFactory("localhost", 8000, "testApp").setVirtualThreads(true);
+    }
+
+    @Test
+    public void testQuestionsOnVirtualThreads() throws Exception {
+        Assume.assumeTrue(Threads.isVirtualThreadSupported());
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setVirtualThreads(true);
+        NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+        clientFactory.setVirtualThreads(true);
+
+        NetcodeServer server = serverFactory.start();
+        try {
+            NetcodeClient alice = clientFactory.createChannel("alice");
+            NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+            Users.await(alice, "bob");
+            AtomicReference<Thread> handlerThread = new AtomicReference<>();
+            bob.setQuestionHandler((sender, time, question) -> {
+                handlerThread.set(Thread.currentThread());
+                return question.toString().toUpperCase();
+            });
+
+            assertEquals("HELLO", alice.getClientReference("bob").askQuestion("hello").get(10, TimeUnit.SECONDS));
+            // Thread.isVirtual() is not available to the Java 8 test sources
+            assertEquals("java.lang.VirtualThread", handlerThread.get().getClass().getName());
+        } finally {
+            server.terminateAndJoin();
+        }
+    }
+
+}
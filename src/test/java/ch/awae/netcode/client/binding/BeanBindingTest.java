@@ -3,6 +3,8 @@ package ch.awae.netcode.client.binding;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class BeanBindingTest {
@@ -192,4 +194,23 @@ public class BeanBindingTest {
         bindings.unregister(Object.class);
     }
 
+    @Test
+    public void lookupsAreSnapshots() {
+        Implementation_A first = new Implementation_A();
+        bindings.register(first);
+        List<Interface_A> beans = bindings.getBeans(Interface_A.class);
+        bindings.register("other", new Implementation_A());
+        assertEquals(1, beans.size());
+        assertEquals(2, bindings.getBeans(Interface_A.class).size());
+        bindings.unregister(first);
+        assertEquals(1, bindings.getBeans(Interface_A.class).size());
+        assertEquals(1, bindings.getAllBeans().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void lookupResultsAreUnmodifiable() {
+        bindings.register(new Implementation_A());
+        bindings.getAllBeans().clear();
+    }
+
 }
@@ -0,0 +1,116 @@
+package ch.awae.netcode.client.binding;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * contended bean lookups, as done for every incoming remote call. Compares the copy-on-write snapshots of
+ * {@link LocalBindingsImpl} against the previous registry guarded by a fair read-write lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LocalBindingsBenchmark {
+
+    private final LocalBindings bindings = LocalBindings.createInstance();
+    private final FairLockBindings legacyBindings = new FairLockBindings();
+
+    @Setup
+    public void setUp() {
+        for (Object bean : new Object[]{new Implementation_A(), new Implementation_B(), new Implementation_C()}) {
+            bindings.register(bean);
+            legacyBindings.register(null, bean);
+        }
+        bindings.register("common", new CommonImplementation());
+        legacyBindings.register("common", new CommonImplementation());
+    }
+
+    @Benchmark
+    public Object getBean() {
+        return bindings.getBean(null, Interface_A.class);
+    }
+
+    @Benchmark
+    public Object getBeanFairLock() {
+        return legacyBindings.getBean(null, Interface_A.class);
+    }
+
+    @Benchmark
+    public List<Interface_A> getBeans() {
+        return bindings.getBeans(Interface_A.class);
+    }
+
+    @Benchmark
+    public List<Interface_A> getBeansFairLock() {
+        return legacyBindings.getBeans(Interface_A.class);
+    }
+
+    /**
+     * the lookups of the registry before the snapshots.
+     */
+    private static class FairLockBindings {
+
+        private final Map<Class<?>, Map<String, Object>> map = new HashMap<>();
+        private final Lock readLock, writeLock;
+
+        FairLockBindings() {
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+            readLock = lock.readLock();
+            writeLock = lock.writeLock();
+        }
+
+        void register(String qualifier, Object bean) {
+            writeLock.lock();
+            try {
+                for (Class<?> anInterface : bean.getClass().getInterfaces()) {
+                    map.computeIfAbsent(anInterface, k -> new HashMap<>()).put(qualifier, bean);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        <T> T getBean(String qualifier, Class<T> beanInterface) {
+            readLock.lock();
+            try {
+                Map<String, Object> interfaceMap = map.get(beanInterface);
+                return interfaceMap == null ? null : beanInterface.cast(interfaceMap.get(qualifier));
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        <T> List<T> getBeans(Class<T> beanInterface) {
+            readLock.lock();
+            try {
+                Map<String, Object> interfaceMap = map.get(beanInterface);
+                if (interfaceMap == null) {
+                    return Collections.emptyList();
+                }
+                Set<T> set = new HashSet<>();
+                for (Object x : interfaceMap.values()) {
+                    set.add(beanInterface.cast(x));
+                }
+                return new ArrayList<>(set);
+            } finally {
+                readLock.unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocalBindingsBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+
+}
@@ -0,0 +1,165 @@
+package ch.awae.netcode.internal;
+
+import ch.awae.netcode.client.ChannelFeatures;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import static org.junit.Assert.*;
+
+public class ControlFramesTest {
+
+    private static Serializable roundTrip(Serializable message) throws Exception {
+        return Frames.decode(Frames.encode(message));
+    }
+
+    @Test
+    public void testUserChange() throws Exception {
+        UserChangeMessage message = (UserChangeMessage) roundTrip(new TestUserChange("alice", true));
+        assertEquals("alice", message.getUser());
+        assertTrue(message.isEntering());
+    }
+
+    @Test
+    public void testUserChangeIsSmallerThanSerializedObject() throws Exception {
+        TestUserChange message = new TestUserChange("alice", false);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(message);
+        }
+        byte[] frame = Frames.encode(message);
+        assertEquals(Frames.USER_CHANGE, frame[4]);
+        assertTrue(frame.length * 4 < serialized.size());
+    }
+
+    @Test
+    public void testChannelInformation() throws Exception {
+        FullChannelInformation information = (FullChannelInformation) roundTrip(new FullChannelInformation() {
+            @Override
+            public String[] getUsers() {
+                return new String[]{"alice", "bob"};
+            }
+
+            @Override
+            public String getChannelId() {
+                return "1234abcd";
+            }
+
+            @Override
+            public int getClientLimit() {
+                return 5;
+            }
+
+            @Override
+            public String getCompression() {
+                return "deflate";
+            }
+
+            @Override
+            public int getCompressionThreshold() {
+                return 512;
+            }
+        });
+        assertArrayEquals(new String[]{"alice", "bob"}, information.getUsers());
+        assertEquals("1234abcd", information.getChannelId());
+        assertEquals(5, information.getClientLimit());
+        assertEquals("deflate", information.getCompression());
+        assertEquals(512, information.getCompressionThreshold());
+    }
+
+    @Test
+    public void testCreateChannelRequest() throws Exception {
+        ChannelFeatures features = new ChannelFeatures();
+        features.setClientLimit(3);
+        features.setPassword("secret");
+        features.setCompression("deflate");
+        features.setCompressionThreshold(128);
+        CreateChannelRequest request = (CreateChannelRequest) roundTrip(new CreateChannelRequest() {
+            @Override
+            public String getUserId() {
+                return "alice";
+            }
+
+            @Override
+            public ChannelFeatures getFeatures() {
+                return features;
+            }
+
+            @Override
+            public String getPayloadCodec() {
+                return "java";
+            }
+        });
+        assertEquals("alice", request.getUserId());
+        assertEquals(3, request.getFeatures().getClientLimit());
+        assertEquals("secret", request.getFeatures().getPassword());
+        assertEquals("deflate", request.getFeatures().getCompression());
+        assertEquals(128, request.getFeatures().getCompressionThreshold());
+        assertEquals("java", request.getPayloadCodec());
+    }
+
+    @Test
+    public void testJoinChannelRequestWithoutPassword() throws Exception {
+        JoinChannelRequest request = (JoinChannelRequest) roundTrip(new JoinChannelRequest() {
+            @Override
+            public String getUserId() {
+                return "bob";
+            }
+
+            @Override
+            public String getPassword() {
+                return null;
+            }
+
+            @Override
+            public String getChannelId() {
+                return "1234abcd";
+            }
+
+            @Override
+            public String getPayloadCodec() {
+                return null;
+            }
+
+            @Override
+            public String[] getCompressions() {
+                return null;
+            }
+        });
+        assertEquals("bob", request.getUserId());
+        assertNull(request.getPassword());
+        assertEquals("1234abcd", request.getChannelId());
+        assertNull(request.getPayloadCodec());
+        assertNull(request.getCompressions());
+    }
+
+    @Test
+    public void testErrorsAreSerialized() throws Exception {
+        byte[] frame = Frames.encode(new IllegalArgumentException("bad appId"));
+        assertEquals(Frames.OBJECT, frame[4]);
+        assertEquals("bad appId", ((Exception) Frames.decode(frame)).getMessage());
+    }
+
+    private static class TestUserChange implements UserChangeMessage {
+
+        private final String user;
+        private final boolean entering;
+
+        TestUserChange(String user, boolean entering) {
+            this.user = user;
+            this.entering = entering;
+        }
+
+        @Override
+        public String getUser() {
+            return user;
+        }
+
+        @Override
+        public boolean isEntering() {
+            return entering;
+        }
+    }
+}
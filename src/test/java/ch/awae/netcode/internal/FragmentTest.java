@@ -0,0 +1,142 @@
+package ch.awae.netcode.internal;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FragmentTest {
+
+    private static PacketFrame packet(int payloadSize) throws Exception {
+        byte[] payload = new byte[payloadSize];
+        new Random(payloadSize).nextBytes(payload);
+        return PacketFrame.encode(null, "alice", (byte) 0, -1, new Timestamp(0), payload);
+    }
+
+    @Test
+    public void testSmallFramesAreNotFragmented() throws Exception {
+        assertFalse(FragmentScheduler.isLarge(packet(1000).getFrame()));
+        assertTrue(FragmentScheduler.isLarge(packet(FragmentScheduler.FRAGMENT_SIZE).getFrame()));
+    }
+
+    @Test
+    public void testReassembly() throws Exception {
+        byte[] frame = packet(5 * FragmentScheduler.FRAGMENT_SIZE + 3).getFrame();
+        FragmentScheduler<String> scheduler = new FragmentScheduler<>();
+        FragmentAssembler assembler = new FragmentAssembler();
+        scheduler.add(frame, "done");
+
+        byte[] result = null;
+        int fragments = 0;
+        while (scheduler.hasFragments()) {
+            byte[] fragment = scheduler.nextFragment();
+            assertEquals(Frames.FRAGMENT, fragment[4]);
+            assertNull(result);
+            result = assembler.add(fragment);
+            fragments++;
+        }
+        assertEquals(6, fragments);
+        assertEquals("done", scheduler.getCompleted());
+        assertArrayEquals(frame, result);
+    }
+
+    @Test
+    public void testLargeFramesKeepTheirOrder() throws Exception {
+        FragmentScheduler<String> scheduler = new FragmentScheduler<>();
+        scheduler.add(packet(40000).getFrame(), "first");
+        scheduler.add(packet(20000).getFrame(), "second");
+        StringBuilder order = new StringBuilder();
+        while (scheduler.hasFragments()) {
+            scheduler.nextFragment();
+            if (scheduler.getCompleted() != null) {
+                order.append(scheduler.getCompleted()).append(' ');
+            }
+        }
+        assertEquals("first second ", order.toString());
+    }
+
+    @Test
+    public void testOrderKeys() throws Exception {
+        FragmentScheduler<String> scheduler = new FragmentScheduler<>();
+        assertFalse(scheduler.isOrderedBehind("alice"));
+        scheduler.add(packet(40000).getFrame(), "alice", "large");
+        assertTrue(scheduler.isOrderedBehind("alice"));
+        assertFalse(scheduler.isOrderedBehind("bob"));
+        assertTrue(scheduler.isOrderedBehind(null));
+
+        // a small frame added behind the large one is sent as a single fragment after it
+        byte[] small = packet(10).getFrame();
+        scheduler.add(small, "alice", "small");
+        FragmentAssembler assembler = new FragmentAssembler();
+        List<byte[]> frames = new ArrayList<>();
+        while (scheduler.hasFragments()) {
+            byte[] frame = assembler.add(scheduler.nextFragment());
+            if (frame != null) {
+                frames.add(frame);
+            }
+        }
+        assertEquals(2, frames.size());
+        assertArrayEquals(small, frames.get(1));
+        assertFalse(scheduler.isOrderedBehind("alice"));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testInterleavedFragmentsAreRejected() throws Exception {
+        FragmentScheduler<String> scheduler = new FragmentScheduler<>();
+        byte[] frame = packet(40000).getFrame();
+        scheduler.add(frame, "first");
+        scheduler.add(frame, "second");
+        byte[] first = scheduler.nextFragment();
+        while (scheduler.getCompleted() == null) {
+            scheduler.nextFragment();
+        }
+        FragmentAssembler assembler = new FragmentAssembler();
+        assembler.add(first);
+        assembler.add(scheduler.nextFragment());
+    }
+
+    @Test
+    public void testFramedStreamsReassembleFragments() throws Exception {
+        PacketFrame large = packet(100000);
+        PacketFrame small = packet(10);
+        FragmentScheduler<Void> scheduler = new FragmentScheduler<>();
+        scheduler.add(large.getFrame(), null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FramedStreams writer = new FramedStreams(new ByteArrayInputStream(new byte[0]), bytes);
+        writer.writeFrame(scheduler.nextFragment());
+        writer.write(small);
+        while (scheduler.hasFragments()) {
+            writer.writeFrame(scheduler.nextFragment());
+        }
+
+        FramedStreams reader = new FramedStreams(new ByteArrayInputStream(bytes.toByteArray()), new ByteArrayOutputStream());
+        assertArrayEquals(small.getFrame(), ((PacketFrame) reader.read()).getFrame());
+        assertArrayEquals(large.getFrame(), ((PacketFrame) reader.read()).getFrame());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testFramedStreamsRejectFramesAboveTheLimit() throws Exception {
+        // only the header is sent, the frame must be rejected before its body is buffered
+        byte[] header = ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE - 4).array();
+        FramedStreams reader = new FramedStreams(new ByteArrayInputStream(header), new ByteArrayOutputStream(),
+                FragmentScheduler.MAX_FRAGMENT_LENGTH);
+        reader.read();
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testReassembledFramesAboveTheLimitAreRejected() throws Exception {
+        FragmentScheduler<Void> scheduler = new FragmentScheduler<>();
+        scheduler.add(packet(100000).getFrame(), null);
+        new FragmentAssembler(50000).add(scheduler.nextFragment());
+    }
+
+}
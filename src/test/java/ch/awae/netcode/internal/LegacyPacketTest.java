@@ -0,0 +1,107 @@
+package ch.awae.netcode.internal;
+
+import ch.awae.netcode.client.JavaPayloadCodec;
+import ch.awae.netcode.client.PayloadCodec;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LegacyPacketTest {
+
+    // wire ids of the client's packet types
+    private static final byte QUESTION = 1;
+    private static final byte BATCH = 3;
+    private static final byte STREAM_OPEN = 4;
+    private static final byte STREAM_CANCEL = 9;
+    private static final byte QUESTION_CANCEL = 10;
+    private static final byte INVOCATION = 12;
+    private static final byte BIND = 13;
+    private static final byte REJECTED = 15;
+
+    private final PayloadCodec codec = new JavaPayloadCodec();
+    private final Timestamp timestamp = Timestamp.from(Instant.now());
+
+    @Test
+    public void testOnlyKnownTypesAreConverted() throws Exception {
+        PacketFrame question = PacketFrame.encode("bob", "alice", QUESTION, 3, timestamp, codec.encode("hello"));
+        PacketFrame cancel = PacketFrame.encode("bob", "alice", QUESTION_CANCEL, 3, timestamp, new byte[0]);
+        PacketFrame unknown = PacketFrame.encode("bob", "alice", (byte) 100, 3, timestamp, new byte[0]);
+        List<LegacyPacket> packets = LegacyPacket.fromFrame(question);
+        assertEquals(1, packets.size());
+        assertEquals(LegacyPacket.Type.QUESTION, packets.get(0).getType());
+        assertEquals(3, packets.get(0).getCorrelationId());
+        assertEquals("hello", codec.decode(packets.get(0).getPayload()));
+        assertTrue(LegacyPacket.fromFrame(cancel).isEmpty());
+        assertTrue(LegacyPacket.fromFrame(unknown).isEmpty());
+    }
+
+    @Test
+    public void testBatchIsSplitIntoMessages() throws Exception {
+        PacketFrame batch = PacketFrame.encode(null, "alice", BATCH, -1, timestamp,
+                PacketBatch.writer(Arrays.asList("x", "y"), codec));
+        List<LegacyPacket> packets = LegacyPacket.fromFrame(batch);
+        assertEquals(2, packets.size());
+        for (LegacyPacket packet : packets) {
+            assertEquals(LegacyPacket.Type.MESSAGE, packet.getType());
+            assertEquals("alice", packet.getSenderId());
+            assertNull(packet.getDestinationId());
+        }
+        assertEquals("x", codec.decode(packets.get(0).getPayload()));
+        assertEquals("y", codec.decode(packets.get(1).getPayload()));
+    }
+
+    @Test
+    public void testWrittenAsClientPacket() throws Exception {
+        PacketFrame question = PacketFrame.encode("bob", "alice", QUESTION, 3, timestamp, codec.encode("hello"));
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        new ObjectOutputStream(header).flush();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectStreams streams = new ObjectStreams(new ByteArrayInputStream(header.toByteArray()), output);
+        // twice, the second time with back-references to the class descriptors
+        streams.write(LegacyPacket.fromFrame(question).get(0));
+        streams.write(LegacyPacket.fromFrame(question).get(0));
+
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()));
+        for (int i = 0; i < 2; i++) {
+            Object packet = input.readObject();
+            assertEquals(LegacyPacket.CLASS_NAME, packet.getClass().getName());
+            PacketFrame frame = ((NetcodePacket) packet).toFrame();
+            assertEquals("bob", frame.getDestinationId());
+            assertEquals("alice", frame.getSenderId());
+            assertEquals(QUESTION, frame.getType());
+            assertEquals(3, frame.getCorrelationId());
+            assertEquals(timestamp, frame.getTimestamp());
+            assertEquals("hello", codec.decode(frame.getPayload()));
+        }
+    }
+
+    @Test
+    public void testRejectionAnswersWaitingSenders() throws Exception {
+        PacketFrame open = PacketFrame.encode("bob", "alice", STREAM_OPEN, 7, timestamp, new byte[0]);
+        PacketFrame cancel = LegacyPacket.rejection(open);
+        assertEquals(STREAM_CANCEL, cancel.getType());
+        assertEquals("alice", cancel.getDestinationId());
+        assertEquals("bob", cancel.getSenderId());
+        assertEquals(7, cancel.getCorrelationId());
+
+        PacketFrame bind = PacketFrame.encode("bob", "alice", BIND, 8, timestamp, new byte[0]);
+        PacketFrame rejected = LegacyPacket.rejection(bind);
+        assertEquals(REJECTED, rejected.getType());
+        assertEquals("alice", rejected.getDestinationId());
+        assertEquals(8, rejected.getCorrelationId());
+
+        // nobody waits for one-way calls, and legacy clients receive questions themselves
+        assertNull(LegacyPacket.rejection(PacketFrame.encode("bob", "alice", INVOCATION, -1, timestamp, new byte[0])));
+        assertNull(LegacyPacket.rejection(PacketFrame.encode("bob", "alice", QUESTION, 9, timestamp, new byte[0])));
+    }
+
+}
@@ -0,0 +1,98 @@
+package ch.awae.netcode.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ObjectStreamsTest {
+
+    private ServerSocket serverSocket;
+    private Socket left, right;
+
+    @Before
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0);
+        CompletableFuture<Socket> accepted = CompletableFuture.supplyAsync(() -> {
+            try {
+                return serverSocket.accept();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        left = new Socket("localhost", serverSocket.getLocalPort());
+        right = accepted.get();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        left.close();
+        right.close();
+        serverSocket.close();
+    }
+
+    private ObjectStreams[] open(ResetPolicy policy) throws Exception {
+        CompletableFuture<ObjectStreams> reader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new ObjectStreams(right, ResetPolicy.DEFAULT);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        ObjectStreams writer = new ObjectStreams(left, policy);
+        return new ObjectStreams[]{writer, reader.get()};
+    }
+
+    @Test
+    public void testResetAfterMessageCount() throws Exception {
+        ObjectStreams[] streams = open(new ResetPolicy(3, 0, 0));
+        streams[0].write("a");
+        streams[0].write("b");
+        assertEquals(2, streams[0].getHandleTableSize());
+        streams[0].write("c");
+        assertEquals(0, streams[0].getHandleTableSize());
+        assertEquals("a", streams[1].read());
+        assertEquals("b", streams[1].read());
+        assertEquals("c", streams[1].read());
+    }
+
+    @Test
+    public void testResetAfterByteCount() throws Exception {
+        ObjectStreams[] streams = open(new ResetPolicy(0, 100, 0));
+        streams[0].write("x");
+        assertEquals(1, streams[0].getHandleTableSize());
+        streams[0].write(new byte[200]);
+        assertEquals(0, streams[0].getHandleTableSize());
+        assertEquals("x", streams[1].read());
+        assertEquals(200, ((byte[]) streams[1].read()).length);
+    }
+
+    @Test
+    public void testResetWhenIdle() throws Exception {
+        ObjectStreams[] streams = open(new ResetPolicy(0, 0, 50));
+        streams[0].write("a");
+        streams[0].write("b");
+        assertEquals(2, streams[0].getHandleTableSize());
+        Thread.sleep(100);
+        streams[0].write("c");
+        assertEquals(1, streams[0].getHandleTableSize());
+        assertEquals("a", streams[1].read());
+        assertEquals("b", streams[1].read());
+        assertEquals("c", streams[1].read());
+    }
+
+    @Test
+    public void testBackReferencesWithinBurst() throws Exception {
+        ObjectStreams[] streams = open(new ResetPolicy(0, 0, 0));
+        String message = "hello";
+        streams[0].write(message);
+        streams[0].write(message);
+        assertEquals(1, streams[0].getHandleTableSize());
+        assertSame(streams[1].read(), streams[1].read());
+    }
+}
@@ -0,0 +1,102 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.client.ChannelFeatures;
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.Frames;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares encoding a broadcast per recipient with encoding it once per channel. Run the main method from the
+ * test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"10", "200"})
+    public int members;
+
+    @Param({"64", "4096"})
+    public int payloadSize;
+
+    private byte[] payload;
+    private Channel channel;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        this.payload = new byte[payloadSize];
+        this.channel = new ChannelManager().createChannel("benchmark", new ChannelFeatures(), null);
+        for (int i = 0; i < members; i++) {
+            channel.addClient("user" + i, new FrameConsumer());
+        }
+    }
+
+    @Benchmark
+    public void encodePerRecipient(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < members; i++) {
+            blackhole.consume(Frames.encode(payload));
+        }
+    }
+
+    @Benchmark
+    public void encodeOnce() {
+        channel.sendPublicly(payload);
+    }
+
+    private class FrameConsumer implements Connection {
+
+        @Override
+        public void start(Client client) {
+        }
+
+        @Override
+        public void startReading() {
+        }
+
+        @Override
+        public void send(EncodedMessage message, boolean mayBlock) {
+            try {
+                blackhole.consume(message.getFrame());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean isLegacy() {
+            return false;
+        }
+
+        @Override
+        public OutboundQueue<?> getOutboundQueue() {
+            return null;
+        }
+
+        @Override
+        public int getHandleTableSize() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BroadcastBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
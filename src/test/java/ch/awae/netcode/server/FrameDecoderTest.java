@@ -0,0 +1,21 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.internal.FragmentScheduler;
+import org.junit.Test;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.fail;
+
+public class FrameDecoderTest {
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testFramesAboveTheLimitAreRejected() throws Exception {
+        FrameDecoder decoder = new FrameDecoder(FragmentScheduler.MAX_FRAGMENT_LENGTH);
+        ByteBuffer header = ByteBuffer.allocate(5).putInt(FragmentScheduler.MAX_FRAGMENT_LENGTH).put((byte) 1);
+        header.flip();
+        decoder.decode(header, message -> fail("no frame expected"));
+    }
+
+}
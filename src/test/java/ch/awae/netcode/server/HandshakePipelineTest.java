@@ -0,0 +1,106 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.client.NetcodeClient;
+import ch.awae.netcode.client.NetcodeClientFactory;
+import ch.awae.netcode.exception.HandshakeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.Socket;
+
+import static org.junit.Assert.*;
+
+public class HandshakePipelineTest {
+
+    private NetcodeServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setAppIdValidator("testApp"::equals);
+        serverFactory.setHandshakeThreads(2);
+        serverFactory.setHandshakeQueueSize(1);
+        serverFactory.setHandshakeTimeout(500);
+        server = serverFactory.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.terminateAndJoin();
+    }
+
+    private void awaitPendingHandshakes(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getStatistics().getPendingHandshakes() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getStatistics().getPendingHandshakes());
+    }
+
+    @Test
+    public void testStalledClientDoesNotBlockOthers() throws Exception {
+        Socket stalled = new Socket("localhost", 8000);
+        try {
+            awaitPendingHandshakes(1);
+            NetcodeClient alice = new NetcodeClientFactory("localhost", 8000, "testApp").createChannel("alice");
+            assertEquals(1, alice.getUsers().length);
+            // counted by the worker after the response went out
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.getStatistics().getCompletedHandshakes() != 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, server.getStatistics().getCompletedHandshakes());
+            assertTrue(server.getStatistics().getMaxHandshakeNanos() > 0);
+        } finally {
+            stalled.close();
+        }
+    }
+
+    @Test
+    public void testStalledClientTimesOut() throws Exception {
+        try (Socket socket = new Socket("localhost", 8000)) {
+            socket.setSoTimeout(5000);
+            // the server only sends its stream header before closing the connection
+            while (socket.getInputStream().read() >= 0) {
+                assertEquals(0, server.getStatistics().getTimedOutHandshakes());
+            }
+        }
+        awaitPendingHandshakes(0);
+        assertEquals(1, server.getStatistics().getTimedOutHandshakes());
+        assertEquals(1, server.getStatistics().getAcceptedConnections());
+    }
+
+    @Test
+    public void testRejectedAppIdIsCounted() throws Exception {
+        try {
+            new NetcodeClientFactory("localhost", 8000, "otherApp").createChannel("alice");
+            fail("handshake should have failed");
+        } catch (HandshakeException e) {
+            // expected
+        }
+        awaitPendingHandshakes(0);
+        assertEquals(1, server.getStatistics().getFailedHandshakes());
+    }
+
+    @Test
+    public void testConnectionsAreRejectedIfQueueIsFull() throws Exception {
+        Socket[] sockets = new Socket[4];
+        try {
+            for (int i = 0; i < sockets.length; i++) {
+                sockets[i] = new Socket("localhost", 8000);
+            }
+            // 2 workers and 1 queue slot: the fourth connection is closed without handshake
+            sockets[3].setSoTimeout(5000);
+            assertEquals(-1, sockets[3].getInputStream().read());
+            assertEquals(1, server.getStatistics().getRejectedHandshakes());
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.client.NetcodeClient;
+import ch.awae.netcode.client.NetcodeClientFactory;
+import ch.awae.netcode.internal.Threads;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * the footprint of idle connections per server engine: threads, heap and resident memory of the server per connected
+ * client. This measures memory rather than time, so it is a plain main method instead of a JMH benchmark. Run it from
+ * the test classpath, optionally with the number of connections (default 10000).
+ * <p>
+ * The server runs in a child process, so the clients do not count towards its footprint. On Java 21 the clients use
+ * virtual threads, older runtimes need a thread per client for the reader and the writer and do not reach 10000
+ * connections. Both processes need a file descriptor per connection.
+ */
+public class IdleConnectionBenchmark {
+
+    private static final int PORT = 8000;
+    private static final int USERS_PER_CHANNEL = 100;
+
+    // kept referenced, the level is lost if the logger is collected
+    private static final Logger LOG = Logger.getLogger("ch.awae.netcode");
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        LOG.setLevel(Level.WARNING);
+        List<String> results = new ArrayList<>();
+        for (ServerEngine engine : ServerEngine.values()) {
+            results.add(measure(engine, connections));
+        }
+        System.out.println();
+        System.out.println(connections + " idle connections, per connection:");
+        System.out.println(String.format("%-10s %8s %12s %12s", "engine", "threads", "heap (KiB)", "RSS (KiB)"));
+        results.forEach(System.out::println);
+    }
+
+    private static String measure(ServerEngine engine, int connections) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ServerProcess.class.getName(), engine.name())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader server = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        PrintStream commands = new PrintStream(process.getOutputStream(), true, "UTF-8");
+        List<NetcodeClient> clients = new ArrayList<>(connections);
+        try {
+            server.readLine();
+            long[] idle = command(commands, server, "measure");
+
+            NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", PORT, "benchmark");
+            clientFactory.setVirtualThreads(Threads.isVirtualThreadSupported());
+            String channel = null;
+            for (int i = 0; i < connections; i++) {
+                if (i % USERS_PER_CHANNEL == 0) {
+                    NetcodeClient client = clientFactory.createChannel("user" + i);
+                    channel = client.getChannelId();
+                    clients.add(client);
+                } else {
+                    clients.add(clientFactory.joinChannel(channel, "user" + i, null));
+                }
+            }
+            // the last join notifications settle
+            Thread.sleep(2000);
+            long[] loaded = command(commands, server, "measure");
+
+            System.out.println(String.format("%s: %d threads, %d KiB heap, %d KiB RSS without clients", engine,
+                    idle[0], idle[1] / 1024, idle[2] / 1024));
+            System.out.println(String.format("%s: %d threads, %d KiB heap, %d KiB RSS with %d clients", engine,
+                    loaded[0], loaded[1] / 1024, loaded[2] / 1024, connections));
+            return String.format("%-10s %8.2f %12.2f %12.2f", engine,
+                    (double) (loaded[0] - idle[0]) / connections,
+                    (loaded[1] - idle[1]) / 1024.0 / connections,
+                    (loaded[2] - idle[2]) / 1024.0 / connections);
+        } finally {
+            commands.println("exit");
+            process.waitFor();
+            // the server is gone, the clients shut down on their own
+            clients.forEach(NetcodeClient::disconnect);
+        }
+    }
+
+    private static long[] command(PrintStream commands, BufferedReader server, String command) throws IOException {
+        commands.println(command);
+        String[] values = server.readLine().split(" ");
+        long[] result = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Long.parseLong(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * the server. Answers "measure" on stdin with its thread count, used heap and resident set size in bytes, the
+     * latter -1 if unknown.
+     */
+    public static final class ServerProcess {
+
+        public static void main(String[] args) throws Exception {
+            LOG.setLevel(Level.WARNING);
+            NetcodeServerFactory serverFactory = new NetcodeServerFactory(PORT);
+            serverFactory.setEngine(ServerEngine.valueOf(args[0]));
+            NetcodeServer server = serverFactory.start();
+            System.out.println("ready");
+            BufferedReader commands = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String command;
+            while ((command = commands.readLine()) != null && command.equals("measure")) {
+                for (int i = 0; i < 3; i++) {
+                    System.gc();
+                }
+                System.out.println(ManagementFactory.getThreadMXBean().getThreadCount() + " "
+                        + ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + " " + residentSetSize());
+            }
+            server.terminateAndJoin();
+            System.exit(0);
+        }
+
+        private static long residentSetSize() throws IOException {
+            File status = new File("/proc/self/status");
+            if (!status.exists()) {
+                return -1;
+            }
+            for (String line : Files.readAllLines(status.toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    // in kB
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
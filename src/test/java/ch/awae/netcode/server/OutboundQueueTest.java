@@ -0,0 +1,258 @@
+package ch.awae.netcode.server;
+
+import ch.awae.netcode.client.NetcodeClient;
+import ch.awae.netcode.client.NetcodeClientFactory;
+import ch.awae.netcode.internal.EncodedMessage;
+import ch.awae.netcode.internal.PacketFrame;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OutboundQueueTest {
+
+    @Test
+    public void testDropOldest() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(2, OverflowPolicy.DROP_OLDEST);
+        assertTrue(queue.offer("a", true));
+        assertTrue(queue.offer("b", true));
+        assertTrue(queue.offer("c", true));
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDropped());
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDropOldestKeepsUndroppableItems() throws Exception {
+        // lower case items are messages, upper case items protocol packets
+        OutboundQueue<String> queue = new OutboundQueue<>(2, OverflowPolicy.DROP_OLDEST,
+                item -> item.equals(item.toLowerCase()), null, null);
+        assertTrue(queue.offer("E", true));
+        assertTrue(queue.offer("a", true));
+        assertTrue(queue.offer("b", true));
+        assertTrue(queue.offer("C", true));
+        // nothing left to drop: protocol packets exceed the limit, messages are dropped themselves
+        assertTrue(queue.offer("D", true));
+        assertTrue(queue.offer("x", true));
+        assertEquals(3, queue.getDropped());
+        assertEquals("E", queue.poll());
+        assertEquals("C", queue.poll());
+        assertEquals("D", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOnlyMessagesAreDroppable() throws Exception {
+        OutboundQueue<EncodedMessage> queue = OutboundQueue.forFrames(1, OverflowPolicy.DROP_OLDEST);
+        EncodedMessage response = packet(2);
+        EncodedMessage message = packet(0);
+        EncodedMessage event = new EncodedMessage(new UserChangeMessageImpl("carol", true));
+        assertTrue(queue.offer(response, true));
+        assertTrue(queue.offer(event, true));
+        assertTrue(queue.offer(message, true));
+        assertEquals(1, queue.getDropped());
+        assertSame(response, queue.poll());
+        assertSame(event, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    private static EncodedMessage packet(int type) throws Exception {
+        return new EncodedMessage(PacketFrame.encode("bob", "alice", (byte) type, 1,
+                Timestamp.from(Instant.now()), new byte[0]));
+    }
+
+    @Test
+    public void testSmallItemsOvertakeBulkItems() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(4, OverflowPolicy.DISCONNECT, item -> true, item -> item.length() > 1,
+                item -> item);
+        assertTrue(queue.offer("large", true));
+        assertTrue(queue.offer("a", true));
+        assertTrue(queue.offer("huge", true));
+        assertTrue(queue.offer("b", true));
+        assertFalse(queue.offer("c", true));
+        assertEquals("a", queue.pollSmall());
+        assertEquals("b", queue.poll());
+        assertNull(queue.pollSmall());
+        assertEquals("large", queue.poll());
+        assertEquals("huge", queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testSmallItemsStayBehindBulkItemsWithTheSameKey() throws Exception {
+        // keyed by the first letter, e.g. the sender
+        OutboundQueue<String> queue = new OutboundQueue<>(8, OverflowPolicy.DISCONNECT, item -> true, item -> item.length() > 2,
+                item -> item.substring(0, 1));
+        assertTrue(queue.offer("alice", true));
+        assertTrue(queue.offer("a1", true));
+        assertTrue(queue.offer("b1", true));
+        assertTrue(queue.offer("a2", true));
+        assertEquals("b1", queue.pollSmall());
+        assertNull(queue.pollSmall());
+        assertEquals("alice", queue.poll());
+        assertEquals("a1", queue.poll());
+        assertEquals("a2", queue.poll());
+        // the bulk lane is empty again, nothing to wait for
+        assertTrue(queue.offer("a3", true));
+        assertEquals("a3", queue.pollSmall());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(1, OverflowPolicy.DISCONNECT);
+        assertTrue(queue.offer("a", true));
+        assertFalse(queue.offer("b", true));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testBlockWaitsForWriter() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(1, OverflowPolicy.BLOCK);
+        queue.offer("a", true);
+        Semaphore done = new Semaphore(0);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.offer("b", true);
+                done.release();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        producer.start();
+        assertFalse(done.tryAcquire(100, TimeUnit.MILLISECONDS));
+        assertEquals("a", queue.take());
+        assertTrue(done.tryAcquire(1, TimeUnit.SECONDS));
+        assertEquals("b", queue.take());
+        assertEquals(1, queue.getMaxDepth());
+    }
+
+    @Test
+    public void testBlockDoesNotWaitIfNotAllowed() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(1, OverflowPolicy.BLOCK);
+        queue.offer("a", false);
+        assertTrue(queue.offer("b", false));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testCloseReleasesBlockedProducer() throws Exception {
+        OutboundQueue<String> queue = new OutboundQueue<>(1, OverflowPolicy.BLOCK);
+        queue.offer("a", true);
+        Semaphore done = new Semaphore(0);
+        new Thread(() -> {
+            try {
+                queue.offer("b", true);
+                done.release();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }).start();
+        assertFalse(done.tryAcquire(100, TimeUnit.MILLISECONDS));
+        queue.close();
+        assertTrue(done.tryAcquire(1, TimeUnit.SECONDS));
+        assertNull(queue.take());
+    }
+
+    @Test
+    public void testClientStatistics() throws Exception {
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setOutboundQueueSize(16);
+        serverFactory.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        NetcodeServer server = serverFactory.start();
+        try {
+            NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+            NetcodeClient alice = clientFactory.createChannel("alice");
+            NetcodeClient bob = clientFactory.joinChannel(alice.getChannelId(), "bob", null);
+            List<ClientStatistics> statistics = server.getStatistics().getClientStatistics();
+            assertEquals(2, statistics.size());
+            for (ClientStatistics client : statistics) {
+                assertEquals(alice.getChannelId(), client.getChannelId());
+                assertTrue(client.getQueuedMessages() > 0);
+                assertEquals(0, client.getDroppedMessages());
+            }
+            bob.disconnect();
+            alice.disconnect();
+        } finally {
+            server.terminateAndJoin();
+        }
+        assertEquals(0, server.getStatistics().getSlowConsumerDisconnects());
+    }
+
+    @Test
+    public void testMembershipChangesDoNotWaitForBlockedClient() throws Exception {
+        NetcodeServerFactory serverFactory = new NetcodeServerFactory(8000);
+        serverFactory.setOutboundQueueSize(1);
+        NetcodeServer server = serverFactory.start();
+        Semaphore release = new Semaphore(0);
+        try {
+            NetcodeClientFactory clientFactory = new NetcodeClientFactory("localhost", 8000, "testApp");
+            NetcodeClient alice = clientFactory.createChannel("alice");
+            String channelId = alice.getChannelId();
+            NetcodeClient bob = clientFactory.joinChannel(channelId, "bob", null);
+            NetcodeClient carol = clientFactory.joinChannel(channelId, "carol", null);
+            NetcodeClient dave = clientFactory.joinChannel(channelId, "dave", null);
+            // bob stops reading, alice fills his queue
+            bob.setMessageHandler((sender, time, message) -> release.acquireUninterruptibly());
+            Thread flood = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        alice.sendPrivately("bob", new byte[256 * 1024]);
+                    }
+                } catch (Exception e) {
+                    // the server is shut down while we are blocked
+                }
+            });
+            flood.setDaemon(true);
+            flood.start();
+            // the queue stays full once bob's socket buffers are full as well
+            long deadline = System.currentTimeMillis() + 10000;
+            for (int full = 0; full < 20; full = queueDepth(server, "bob") < 1 ? 0 : full + 1) {
+                assertTrue("bob's queue did not fill up", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+
+            // the join broadcast does not wait for bob's queue
+            Semaphore events = new Semaphore(0);
+            dave.setEventHandler((user, joined) -> events.release());
+            Thread join = new Thread(() -> {
+                try {
+                    clientFactory.joinChannel(channelId, "eve", null);
+                } catch (Exception e) {
+                    // the server is shut down while we are blocked
+                }
+            });
+            join.setDaemon(true);
+            join.start();
+            join.join(5000);
+            assertFalse(join.isAlive());
+            assertTrue(events.tryAcquire(5, TimeUnit.SECONDS));
+            // neither do relays between others, nor the leave broadcast
+            Semaphore received = new Semaphore(0);
+            dave.setMessageHandler((sender, time, message) -> received.release());
+            carol.sendPrivately("dave", "hello");
+            assertTrue(received.tryAcquire(5, TimeUnit.SECONDS));
+            carol.disconnect();
+            assertTrue(events.tryAcquire(5, TimeUnit.SECONDS));
+        } finally {
+            release.release(Integer.MAX_VALUE / 2);
+            server.terminateAndJoin();
+        }
+    }
+
+    private static int queueDepth(NetcodeServer server, String userId) {
+        for (ClientStatistics client : server.getStatistics().getClientStatistics()) {
+            if (client.getUserId().equals(userId)) {
+                return client.getQueueDepth();
+            }
+        }
+        return 0;
+    }
+}